@@ -0,0 +1,11 @@
+package com.example.booking.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveBookingApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveBookingApplication.class, args);
+    }
+}
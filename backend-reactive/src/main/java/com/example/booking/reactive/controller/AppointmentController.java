@@ -0,0 +1,99 @@
+package com.example.booking.reactive.controller;
+
+import com.example.booking.reactive.model.Appointment;
+import com.example.booking.reactive.security.JwtWebFilter;
+import com.example.booking.reactive.service.BookingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/appointments")
+public class AppointmentController {
+    private final BookingService bookingService;
+
+    public AppointmentController(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> bookAppointment(@RequestBody AppointmentRequest request,
+            @RequestAttribute(JwtWebFilter.USERNAME_ATTRIBUTE) String username) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomerEmail(request.getCustomerEmail());
+        appointment.setCustomerPhone(request.getCustomerPhone());
+        appointment.setLocation(request.getLocation());
+        appointment.setService(request.getService());
+
+        return bookingService.bookAppointment(appointment, request.getTimeSlotId(), username)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalStateException.class, e -> Mono.just(ResponseEntity.status(409)
+                        .body(Map.of("message", "Time slot is not available", "error", e.getMessage()))))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.status(400)
+                        .body(Map.of("message", e.getMessage(), "error", e.getMessage()))));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> cancelAppointment(@PathVariable Long id) {
+        return bookingService.cancelAppointment(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @RequestMapping(value = "/cancel/{token}", method = { RequestMethod.GET, RequestMethod.DELETE })
+    public Mono<ResponseEntity<String>> cancelAppointmentByToken(@PathVariable String token) {
+        return bookingService.cancelAppointmentByToken(token)
+                .map(cancelled -> cancelled
+                        ? ResponseEntity.ok("Your appointment has been cancelled.")
+                        : ResponseEntity.status(404).body("Invalid or already cancelled appointment."));
+    }
+
+    // DTO for booking request
+    public static class AppointmentRequest {
+        private String customerEmail;
+        private String customerPhone;
+        private Long timeSlotId;
+        private String location;
+        private String service;
+
+        public String getCustomerEmail() {
+            return customerEmail;
+        }
+
+        public void setCustomerEmail(String customerEmail) {
+            this.customerEmail = customerEmail;
+        }
+
+        public String getCustomerPhone() {
+            return customerPhone;
+        }
+
+        public void setCustomerPhone(String customerPhone) {
+            this.customerPhone = customerPhone;
+        }
+
+        public Long getTimeSlotId() {
+            return timeSlotId;
+        }
+
+        public void setTimeSlotId(Long timeSlotId) {
+            this.timeSlotId = timeSlotId;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public String getService() {
+            return service;
+        }
+
+        public void setService(String service) {
+            this.service = service;
+        }
+    }
+}
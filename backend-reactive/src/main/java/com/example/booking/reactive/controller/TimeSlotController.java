@@ -0,0 +1,23 @@
+package com.example.booking.reactive.controller;
+
+import com.example.booking.reactive.model.TimeSlot;
+import com.example.booking.reactive.service.BookingService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/timeslots")
+public class TimeSlotController {
+    private final BookingService bookingService;
+
+    public TimeSlotController(BookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    @GetMapping
+    public Flux<TimeSlot> getAllTimeSlots() {
+        return bookingService.getAllTimeSlots();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.booking.reactive.model;
+
+/**
+ * Lifecycle of an {@link Appointment}, stored by name like in the servlet
+ * backend's schema.
+ */
+public enum AppointmentStatus {
+    BOOKED,
+    CANCELLED,
+    COMPLETED
+}
@@ -0,0 +1,61 @@
+package com.example.booking.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import java.time.OffsetDateTime;
+
+// Maps the time_slot table owned by the servlet backend's JPA schema
+@Table("time_slot")
+public class TimeSlot {
+    @Id
+    private Long id;
+    private OffsetDateTime startTime;
+    private OffsetDateTime endTime;
+    private int capacity = 1;
+    private int bookedCount;
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public OffsetDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(OffsetDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public OffsetDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(OffsetDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(int bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
+    public boolean isAvailable() {
+        return bookedCount < capacity;
+    }
+}
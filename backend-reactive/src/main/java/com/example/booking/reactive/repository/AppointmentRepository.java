@@ -0,0 +1,18 @@
+package com.example.booking.reactive.repository;
+
+import com.example.booking.reactive.model.Appointment;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface AppointmentRepository extends R2dbcRepository<Appointment, Long> {
+
+    /**
+     * Marks a booked appointment as cancelled; same conditional update as the
+     * servlet backend, so a cancellation succeeds only once across both stacks.
+     */
+    @Modifying
+    @Query("UPDATE appointment SET status = 'CANCELLED' WHERE id = :id AND status = 'BOOKED'")
+    Mono<Integer> cancelIfBooked(Long id);
+}
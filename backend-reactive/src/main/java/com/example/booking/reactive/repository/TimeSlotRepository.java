@@ -0,0 +1,31 @@
+package com.example.booking.reactive.repository;
+
+import com.example.booking.reactive.model.TimeSlot;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface TimeSlotRepository extends R2dbcRepository<TimeSlot, Long> {
+
+    /**
+     * Atomically takes one seat on a time slot if it still has a free seat.
+     * Same check-and-set as the servlet backend, so both stacks can book
+     * against one database without overbooking.
+     *
+     * @param id the time slot ID
+     * @return number of rows updated (1 if successful, 0 if the slot was full)
+     */
+    @Modifying
+    @Query("UPDATE time_slot SET booked_count = booked_count + 1, version = version + 1 WHERE id = :id AND booked_count < capacity")
+    Mono<Integer> reserveSeatIfAvailable(Long id);
+
+    /**
+     * Gives back the seat taken by an appointment, found through its
+     * foreign key in the same statement.
+     */
+    @Modifying
+    @Query("UPDATE time_slot SET booked_count = booked_count - 1, version = version + 1 WHERE booked_count > 0 "
+            + "AND id = (SELECT time_slot_id FROM appointment WHERE id = :appointmentId)")
+    Mono<Integer> releaseSeatOfAppointment(Long appointmentId);
+}
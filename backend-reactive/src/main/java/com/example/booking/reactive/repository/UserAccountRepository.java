@@ -0,0 +1,14 @@
+package com.example.booking.reactive.repository;
+
+import com.example.booking.reactive.model.UserAccount;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface UserAccountRepository extends R2dbcRepository<UserAccount, Long> {
+    Mono<UserAccount> findByUsername(String username);
+
+    // Bumped by the servlet backend's logout-all to revoke every token issued so far
+    @Query("SELECT token_version FROM users WHERE id = :id")
+    Mono<Integer> findTokenVersionById(Long id);
+}
@@ -0,0 +1,109 @@
+package com.example.booking.reactive.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+/**
+ * Stateless cancellation tokens of the form {@code <appointmentId>.<expiry>.<signature>},
+ * where the expiry is in epoch seconds and the signature is an HMAC-SHA256 of
+ * the first two parts.
+ * Forged, malformed and expired tokens are rejected without touching the
+ * database; valid ones resolve straight to the appointment's primary key.
+ *
+ * Same format and key as the servlet backend's signer, so tokens issued by
+ * either stack can be redeemed on the other.
+ */
+@Component
+public class CancellationTokenSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    // Keeps these signatures distinct from anything else signed with the same secret
+    private static final String DOMAIN = "cancel:";
+    // Appointment ID and expiry as decimal longs plus an unpadded base64url SHA-256 MAC
+    private static final int MAX_TOKEN_LENGTH = 19 + 1 + 19 + 1 + 43;
+
+    private final ThreadLocal<Mac> macs;
+    private final Clock clock;
+
+    @Autowired
+    public CancellationTokenSigner(@Value("${booking.cancellation.secret:${jwt.secret}}") String secret) {
+        this(secret, Clock.systemUTC());
+    }
+
+    CancellationTokenSigner(String secret, Clock clock) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+        this.clock = clock;
+    }
+
+    /**
+     * Issues a token for the appointment that stops working at {@code expiresAt}.
+     */
+    public String sign(Long appointmentId, OffsetDateTime expiresAt) {
+        String payload = appointmentId + "." + expiresAt.toEpochSecond();
+        return payload + "." + encode(mac(payload));
+    }
+
+    /**
+     * Returns the appointment ID the token was issued for, or null if the token
+     * is malformed, forged or expired.
+     */
+    public Long verify(String token) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last == first) {
+            return null;
+        }
+
+        long appointmentId;
+        long expiresAt;
+        try {
+            appointmentId = Long.parseLong(token, 0, first, 10);
+            expiresAt = Long.parseLong(token, first + 1, last, 10);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt < clock.instant().getEpochSecond()) {
+            return null;
+        }
+
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(last + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        byte[] expected = mac(token.substring(0, last));
+        return MessageDigest.isEqual(expected, signature) ? appointmentId : null;
+    }
+
+    private byte[] mac(String payload) {
+        Mac mac = macs.get();
+        mac.update(DOMAIN.getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
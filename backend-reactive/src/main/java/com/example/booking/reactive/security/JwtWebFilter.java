@@ -0,0 +1,95 @@
+package com.example.booking.reactive.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Verifies the {@code jwt} cookie issued by the servlet backend's login and
+ * exposes the username as the {@link #USERNAME_ATTRIBUTE} exchange attribute.
+ * Like the servlet backend, a token is only accepted while its token version
+ * ({@code tv}) is still the user's current one, so logout-all revokes it here
+ * too; tokens without the user claims are rejected.
+ * Mirrors the servlet security rules: appointment endpoints require a valid
+ * token, except cancellation by token; everything else is public.
+ */
+@Component
+public class JwtWebFilter implements WebFilter {
+    public static final String USERNAME_ATTRIBUTE = "username";
+    // Claim names of the servlet backend's JwtUtil
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String TOKEN_VERSION_CLAIM = "tv";
+
+    private final JwtParser parser;
+    private final TokenVersionCache tokenVersions;
+
+    public JwtWebFilter(@Value("${jwt.secret}") String secretString, TokenVersionCache tokenVersions) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.tokenVersions = tokenVersions;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst("jwt");
+        VerifiedToken token = cookie != null ? verify(cookie.getValue()) : null;
+        if (token == null) {
+            return unauthenticated(exchange, chain);
+        }
+        return tokenVersions.isCurrent(token.userId(), token.tokenVersion()).flatMap(current -> {
+            if (!current) {
+                return unauthenticated(exchange, chain);
+            }
+            exchange.getAttributes().put(USERNAME_ATTRIBUTE, token.username());
+            return chain.filter(exchange);
+        });
+    }
+
+    private static Mono<Void> unauthenticated(ServerWebExchange exchange, WebFilterChain chain) {
+        if (requiresAuthentication(exchange)) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange);
+    }
+
+    // Null if the token is invalid or lacks the user claims (issued before they were added)
+    private VerifiedToken verify(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Long userId = claims.get(USER_ID_CLAIM, Long.class);
+            Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+            if (userId == null || tokenVersion == null || claims.getSubject() == null) {
+                return null;
+            }
+            return new VerifiedToken(claims.getSubject(), userId, tokenVersion);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean requiresAuthentication(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().value();
+        if (exchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
+            return false;
+        }
+        return path.startsWith("/api/appointments") && !path.startsWith("/api/appointments/cancel/");
+    }
+
+    private record VerifiedToken(String username, Long userId, int tokenVersion) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.booking.reactive.security;
+
+import com.example.booking.reactive.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Current token version per user, as bumped by the servlet backend's
+ * {@code POST /api/auth/logout-all}. Versions are cached for
+ * {@code booking.auth.token-version-ttl-seconds}, the same setting the servlet
+ * backend uses, so a revocation takes effect here once the entry expires.
+ */
+@Component
+public class TokenVersionCache {
+    private final UserAccountRepository userAccountRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoTime;
+    // User ID -> current token version; users that no longer exist are cached as null
+    private final Map<Long, CachedTokenVersion> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenVersionCache(UserAccountRepository userAccountRepository,
+            @Value("${booking.auth.token-version-ttl-seconds:60}") long ttlSeconds,
+            @Value("${booking.auth.token-version-cache-size:100000}") int maxEntries) {
+        this(userAccountRepository, ttlSeconds, maxEntries, System::nanoTime);
+    }
+
+    TokenVersionCache(UserAccountRepository userAccountRepository, long ttlSeconds, int maxEntries,
+            LongSupplier nanoTime) {
+        this.userAccountRepository = userAccountRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Whether a token issued with the given version is still accepted for
+     * the user.
+     */
+    public Mono<Boolean> isCurrent(Long userId, int tokenVersion) {
+        long now = nanoTime.getAsLong();
+        CachedTokenVersion cached = versions.get(userId);
+        if (cached != null && now - cached.loadedAt() <= ttlNanos) {
+            return Mono.just(cached.matches(tokenVersion));
+        }
+        return userAccountRepository.findTokenVersionById(userId)
+                .map(version -> new CachedTokenVersion(version, now))
+                .defaultIfEmpty(new CachedTokenVersion(null, now))
+                .map(loaded -> {
+                    cache(userId, loaded);
+                    return loaded.matches(tokenVersion);
+                });
+    }
+
+    int size() {
+        return versions.size();
+    }
+
+    private void cache(Long userId, CachedTokenVersion loaded) {
+        versions.put(userId, loaded);
+        if (versions.size() <= maxEntries) {
+            return;
+        }
+        // Over the bound: drop arbitrary entries, they are reloaded on next use
+        Iterator<Long> ids = versions.keySet().iterator();
+        while (versions.size() > maxEntries && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+    private record CachedTokenVersion(Integer version, long loadedAt) {
+        boolean matches(int tokenVersion) {
+            return version != null && version == tokenVersion;
+        }
+    }
+}
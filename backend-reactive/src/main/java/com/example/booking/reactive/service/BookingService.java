@@ -0,0 +1,102 @@
+package com.example.booking.reactive.service;
+
+import com.example.booking.reactive.model.Appointment;
+import com.example.booking.reactive.model.TimeSlot;
+import com.example.booking.reactive.repository.AppointmentRepository;
+import com.example.booking.reactive.repository.TimeSlotRepository;
+import com.example.booking.reactive.repository.UserAccountRepository;
+import com.example.booking.reactive.security.CancellationTokenSigner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the servlet backend's booking and cancellation
+ * logic. Uses the same conditional update on {@code time_slot.booked_count},
+ * so both stacks can run against one database.
+ *
+ * Confirmation emails are not sent from this module.
+ */
+@Service
+public class BookingService {
+    private final TimeSlotRepository timeSlotRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final UserAccountRepository userAccountRepository;
+    private final CancellationTokenSigner cancellationTokenSigner;
+
+    public BookingService(TimeSlotRepository timeSlotRepository, AppointmentRepository appointmentRepository,
+            UserAccountRepository userAccountRepository, CancellationTokenSigner cancellationTokenSigner) {
+        this.timeSlotRepository = timeSlotRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.userAccountRepository = userAccountRepository;
+        this.cancellationTokenSigner = cancellationTokenSigner;
+    }
+
+    public Flux<TimeSlot> getAllTimeSlots() {
+        return timeSlotRepository.findAll();
+    }
+
+    /**
+     * Books the slot for the user.
+     * Errors with {@link IllegalArgumentException} if the user or slot does not
+     * exist, and with {@link IllegalStateException} if the slot is taken.
+     */
+    @Transactional
+    public Mono<Appointment> bookAppointment(Appointment appointment, Long timeSlotId, String username) {
+        return userAccountRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("User not found")))
+                .flatMap(user -> timeSlotRepository.reserveSeatIfAvailable(timeSlotId)
+                        .flatMap(updated -> updated == 0 ? notBookable(timeSlotId)
+                                : timeSlotRepository.findById(timeSlotId))
+                        .flatMap(slot -> {
+                            appointment.setCustomerName(user.getUsername());
+                            if (user.getEmail() != null) {
+                                appointment.setCustomerEmail(user.getEmail());
+                            }
+                            if (user.getPhone() != null) {
+                                appointment.setCustomerPhone(user.getPhone());
+                            }
+                            appointment.setUserId(user.getId());
+                            appointment.setTimeSlotId(slot.getId());
+                            appointment.setStartTime(slot.getStartTime());
+                            appointment.setEndTime(slot.getEndTime());
+                            return appointmentRepository.save(appointment);
+                        }))
+                .doOnNext(saved -> saved.setCancellationToken(
+                        cancellationTokenSigner.sign(saved.getId(), saved.getStartTime())));
+    }
+
+    /**
+     * Cancels a booked appointment and gives its seat back with two conditional
+     * updates. The appointment row is kept as history.
+     *
+     * @return true if the appointment was booked and is now cancelled
+     */
+    @Transactional
+    public Mono<Boolean> cancelAppointment(Long id) {
+        return appointmentRepository.cancelIfBooked(id)
+                .flatMap(updated -> updated == 0 ? Mono.just(false)
+                        : timeSlotRepository.releaseSeatOfAppointment(id).thenReturn(true));
+    }
+
+    /**
+     * Cancels the appointment a signed token was issued for. Forged, malformed
+     * and expired tokens are rejected before any database access.
+     */
+    @Transactional
+    public Mono<Boolean> cancelAppointmentByToken(String token) {
+        Long appointmentId = cancellationTokenSigner.verify(token);
+        if (appointmentId == null) {
+            return Mono.just(false);
+        }
+        return cancelAppointment(appointmentId);
+    }
+
+    private Mono<TimeSlot> notBookable(Long timeSlotId) {
+        return timeSlotRepository.existsById(timeSlotId)
+                .flatMap(exists -> Mono.error(exists
+                        ? new IllegalStateException("Time slot is not available")
+                        : new IllegalArgumentException("Time slot not found")));
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.booking.reactive.controller;
+
+import com.example.booking.reactive.model.Appointment;
+import com.example.booking.reactive.security.JwtWebFilter;
+import com.example.booking.reactive.security.TokenVersionCache;
+import com.example.booking.reactive.service.BookingService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * WebFlux tests for the reactive AppointmentController.
+ * Tests authentication and error mapping for booking and cancellation.
+ */
+@WebFluxTest(AppointmentController.class)
+@Import(JwtWebFilter.class)
+@ActiveProfiles("test")
+public class AppointmentControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private BookingService bookingService;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @MockBean
+    private TokenVersionCache tokenVersions;
+
+    @BeforeEach
+    void setUp() {
+        when(tokenVersions.isCurrent(7L, 0)).thenReturn(Mono.just(true));
+        when(tokenVersions.isCurrent(7L, 1)).thenReturn(Mono.just(false));
+    }
+
+    private String token(String username) {
+        return token(username, 0);
+    }
+
+    private String token(String username, int tokenVersion) {
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("uid", 7L)
+                .claim("tv", tokenVersion)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    @Test
+    void testBookAppointment_Success() {
+        // Arrange
+        Appointment appointment = new Appointment();
+        appointment.setId(1L);
+        appointment.setCustomerName("testuser");
+        when(bookingService.bookAppointment(any(Appointment.class), eq(1L), eq("testuser")))
+                .thenReturn(Mono.just(appointment));
+
+        // Act & Assert
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", token("testuser"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1, "service", "Consultation"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.customerName").isEqualTo("testuser");
+    }
+
+    @Test
+    void testBookAppointment_Conflict() {
+        // Arrange
+        when(bookingService.bookAppointment(any(Appointment.class), eq(1L), eq("testuser")))
+                .thenReturn(Mono.error(new IllegalStateException("Time slot is not available")));
+
+        // Act & Assert
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", token("testuser"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Time slot is not available");
+    }
+
+    @Test
+    void testBookAppointment_NotFound() {
+        // Arrange
+        when(bookingService.bookAppointment(any(Appointment.class), eq(999L), eq("testuser")))
+                .thenReturn(Mono.error(new IllegalArgumentException("Time slot not found")));
+
+        // Act & Assert
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", token("testuser"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 999))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testBookAppointment_Unauthenticated() {
+        webTestClient.post().uri("/api/appointments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", "not-a-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void testBookAppointment_RevokedOrLegacyTokenIsUnauthorized() {
+        // Arrange - a token from before logout-all, and one without the user claims
+        String legacy = Jwts.builder()
+                .setSubject("testuser")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        // Act & Assert
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", token("testuser", 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        webTestClient.post().uri("/api/appointments")
+                .cookie("jwt", legacy)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("timeSlotId", 1))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        verifyNoInteractions(bookingService);
+    }
+
+    @Test
+    void testCancelAppointmentByToken() {
+        // Arrange
+        when(bookingService.cancelAppointmentByToken("valid")).thenReturn(Mono.just(true));
+        when(bookingService.cancelAppointmentByToken("missing")).thenReturn(Mono.just(false));
+
+        // Act & Assert - no authentication needed
+        webTestClient.get().uri("/api/appointments/cancel/valid")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/appointments/cancel/missing")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testCancelAppointment() {
+        // Arrange
+        when(bookingService.cancelAppointment(5L)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        webTestClient.delete().uri("/api/appointments/5")
+                .cookie("jwt", token("testuser"))
+                .exchange()
+                .expectStatus().isNoContent();
+        verify(bookingService).cancelAppointment(5L);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.booking.reactive.load;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fires the same request load at the servlet backend and the reactive module
+ * and prints throughput and latency percentiles for each.
+ *
+ * Both applications must be running against the same database. Usage:
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.booking.reactive.load.LoadComparison \
+ *     -Dexec.args="http://localhost:8080 http://localhost:8081 /api/timeslots 20000 2000"
+ * </pre>
+ * Arguments: servlet base URL, reactive base URL, path, total requests,
+ * concurrent in-flight requests. A GET path is used so repeated runs do not
+ * consume slots.
+ */
+public class LoadComparison {
+
+    public static void main(String[] args) {
+        String servletUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String reactiveUrl = args.length > 1 ? args[1] : "http://localhost:8081";
+        String path = args.length > 2 ? args[2] : "/api/timeslots";
+        int requests = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : 2_000;
+
+        run("servlet", servletUrl, path, requests, concurrency);
+        run("reactive", reactiveUrl, path, requests, concurrency);
+    }
+
+    private static void run(String label, String baseUrl, String path, int requests, int concurrency) {
+        WebClient client = WebClient.builder().baseUrl(baseUrl).build();
+
+        // Warm up JIT and connection pools before measuring
+        fire(client, path, Math.min(requests, 1_000), Math.min(concurrency, 100));
+
+        long start = System.nanoTime();
+        Result result = fire(client, path, requests, concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> latencies = result.latenciesMicros;
+        Collections.sort(latencies);
+        System.out.printf("%-9s %6d ok %5d failed  %8.1f req/s  p50 %7.2f ms  p99 %7.2f ms%n",
+                label, latencies.size(), result.failures, latencies.size() / seconds,
+                percentile(latencies, 0.50) / 1000.0, percentile(latencies, 0.99) / 1000.0);
+    }
+
+    private static Result fire(WebClient client, String path, int requests, int concurrency) {
+        Result result = new Result();
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long sent = System.nanoTime();
+                    return client.get().uri(path).retrieve().toBodilessEntity()
+                            .timeout(Duration.ofSeconds(30))
+                            .map(response -> (System.nanoTime() - sent) / 1_000)
+                            .onErrorResume(e -> {
+                                result.recordFailure();
+                                return Mono.empty();
+                            });
+                }, concurrency)
+                .doOnNext(result::record)
+                .blockLast();
+        return result;
+    }
+
+    private static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1));
+    }
+
+    private static final class Result {
+        private final List<Long> latenciesMicros = Collections.synchronizedList(new ArrayList<>());
+        private int failures;
+
+        private void record(long micros) {
+            latenciesMicros.add(micros);
+        }
+
+        private synchronized void recordFailure() {
+            failures++;
+        }
+    }
+}
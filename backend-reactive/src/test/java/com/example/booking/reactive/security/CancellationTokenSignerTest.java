@@ -0,0 +1,58 @@
+package com.example.booking.reactive.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the reactive CancellationTokenSigner.
+ * Tests that it issues and accepts the same tokens as the servlet backend.
+ */
+public class CancellationTokenSignerTest {
+
+    @Test
+    void testMatchesSharedVector() throws IOException {
+        // Arrange
+        Properties vector = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of("..", "testdata", "cancellation-token.properties"))) {
+            vector.load(reader);
+        }
+        Instant expiresAt = Instant.parse(vector.getProperty("expires-at"));
+        long appointmentId = Long.parseLong(vector.getProperty("appointment-id"));
+        CancellationTokenSigner signer = new CancellationTokenSigner(vector.getProperty("secret"),
+                Clock.fixed(expiresAt.minusSeconds(60), ZoneOffset.UTC));
+
+        // Act
+        String token = signer.sign(appointmentId, OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC));
+
+        // Assert
+        assertEquals(vector.getProperty("token"), token);
+        assertEquals(appointmentId, signer.verify(vector.getProperty("token")));
+    }
+
+    @Test
+    void testRejectsForgedAndExpiredTokens() {
+        // Arrange
+        Instant now = Instant.parse("2030-01-01T10:00:00Z");
+        CancellationTokenSigner signer = new CancellationTokenSigner("cancel-secret",
+                Clock.fixed(now, ZoneOffset.UTC));
+        String token = signer.sign(42L, OffsetDateTime.ofInstant(now.plusSeconds(60), ZoneOffset.UTC));
+
+        // Act & Assert
+        assertNull(signer.verify("43" + token.substring(token.indexOf('.'))));
+        assertNull(new CancellationTokenSigner("other-secret", Clock.fixed(now, ZoneOffset.UTC)).verify(token));
+        assertNull(signer.verify(signer.sign(42L, OffsetDateTime.ofInstant(now.minusSeconds(1), ZoneOffset.UTC))));
+        assertNull(signer.verify("42.abc.def"));
+        assertNull(signer.verify(null));
+    }
+}
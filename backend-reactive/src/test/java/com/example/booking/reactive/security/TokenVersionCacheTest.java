@@ -0,0 +1,68 @@
+package com.example.booking.reactive.security;
+
+import com.example.booking.reactive.repository.UserAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenVersionCache.
+ * Tests version checks, expiry of cached versions and the size bound.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenVersionCacheTest {
+
+    @Mock
+    private UserAccountRepository userAccountRepository;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void testRevocationIsSeenAfterTtl() {
+        // Arrange
+        TokenVersionCache cache = new TokenVersionCache(userAccountRepository, 60, 100, nanos::get);
+        when(userAccountRepository.findTokenVersionById(7L)).thenReturn(Mono.just(0), Mono.just(1));
+
+        // Act & Assert - cached within the TTL, reloaded after it
+        assertTrue(cache.isCurrent(7L, 0).block());
+        assertTrue(cache.isCurrent(7L, 0).block());
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertFalse(cache.isCurrent(7L, 0).block());
+        assertTrue(cache.isCurrent(7L, 1).block());
+        verify(userAccountRepository, times(2)).findTokenVersionById(7L);
+    }
+
+    @Test
+    void testMissingUserIsRejected() {
+        // Arrange
+        TokenVersionCache cache = new TokenVersionCache(userAccountRepository, 60, 100, nanos::get);
+        when(userAccountRepository.findTokenVersionById(9L)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        assertFalse(cache.isCurrent(9L, 0).block());
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        // Arrange
+        TokenVersionCache cache = new TokenVersionCache(userAccountRepository, 60, 2, nanos::get);
+        when(userAccountRepository.findTokenVersionById(anyLong())).thenReturn(Mono.just(0));
+
+        // Act
+        for (long id = 1; id <= 5; id++) {
+            cache.isCurrent(id, 0).block();
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 2);
+    }
+}
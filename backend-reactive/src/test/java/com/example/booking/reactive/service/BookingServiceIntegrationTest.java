@@ -0,0 +1,182 @@
+package com.example.booking.reactive.service;
+
+import com.example.booking.reactive.model.Appointment;
+import com.example.booking.reactive.model.AppointmentStatus;
+import com.example.booking.reactive.model.TimeSlot;
+import com.example.booking.reactive.repository.AppointmentRepository;
+import com.example.booking.reactive.repository.TimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the reactive BookingService against H2 over R2DBC.
+ * Tests the atomic check-and-set on booking and slot reopening on cancel.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+public class BookingServiceIntegrationTest {
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private Long slotId;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository.deleteAll()
+                .then(timeSlotRepository.deleteAll())
+                .then(databaseClient.sql("DELETE FROM users").then())
+                .then(databaseClient.sql("INSERT INTO users (username, password, email, phone) "
+                        + "VALUES ('testuser', 'x', 'test@example.com', '1234567890')").then())
+                .block();
+
+        TimeSlot slot = new TimeSlot();
+        slot.setStartTime(OffsetDateTime.now().plusDays(1));
+        slot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
+        slotId = timeSlotRepository.save(slot).block().getId();
+    }
+
+    @Test
+    void testBookAppointment_Success() {
+        // Act & Assert
+        StepVerifier.create(bookingService.bookAppointment(new Appointment(), slotId, "testuser"))
+                .assertNext(appointment -> {
+                    assertNotNull(appointment.getId());
+                    assertEquals("testuser", appointment.getCustomerName());
+                    assertEquals("test@example.com", appointment.getCustomerEmail());
+                    assertNotNull(appointment.getCancellationToken());
+                })
+                .verifyComplete();
+        assertFalse(timeSlotRepository.findById(slotId).block().isAvailable());
+    }
+
+    @Test
+    void testBookAppointment_SlotTaken() {
+        // Arrange
+        bookingService.bookAppointment(new Appointment(), slotId, "testuser").block();
+
+        // Act & Assert
+        StepVerifier.create(bookingService.bookAppointment(new Appointment(), slotId, "testuser"))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void testBookAppointment_SlotNotFound() {
+        StepVerifier.create(bookingService.bookAppointment(new Appointment(), 999999L, "testuser"))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void testBookAppointment_ConcurrentRequestsBookOnce() {
+        // Arrange
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // Act - 20 bookings for the same slot, subscribed in parallel
+        Long booked = Flux.range(0, 20)
+                .flatMap(i -> bookingService.bookAppointment(new Appointment(), slotId, "testuser")
+                        .subscribeOn(Schedulers.parallel())
+                        .onErrorResume(IllegalStateException.class, e -> {
+                            conflicts.incrementAndGet();
+                            return Mono.empty();
+                        }))
+                .count()
+                .block();
+
+        // Assert
+        assertEquals(1L, booked);
+        assertEquals(19, conflicts.get());
+        assertEquals(1L, appointmentRepository.count().block());
+    }
+
+    @Test
+    void testBookAppointment_GroupSlotFillsCapacity() {
+        // Arrange
+        TimeSlot group = new TimeSlot();
+        group.setStartTime(OffsetDateTime.now().plusDays(2));
+        group.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
+        group.setCapacity(3);
+        Long groupId = timeSlotRepository.save(group).block().getId();
+
+        // Act
+        Long booked = Flux.range(0, 10)
+                .flatMap(i -> bookingService.bookAppointment(new Appointment(), groupId, "testuser")
+                        .subscribeOn(Schedulers.parallel())
+                        .onErrorResume(IllegalStateException.class, e -> Mono.empty()))
+                .count()
+                .block();
+
+        // Assert
+        assertEquals(3L, booked);
+        assertEquals(3, timeSlotRepository.findById(groupId).block().getBookedCount());
+    }
+
+    @Test
+    void testCancelAppointmentByToken_ReopensSlot() {
+        // Arrange
+        Appointment appointment = bookingService.bookAppointment(new Appointment(), slotId, "testuser").block();
+
+        // Act & Assert
+        StepVerifier.create(bookingService.cancelAppointmentByToken(appointment.getCancellationToken()))
+                .expectNext(true)
+                .verifyComplete();
+        assertTrue(timeSlotRepository.findById(slotId).block().isAvailable());
+        StepVerifier.create(bookingService.cancelAppointmentByToken(appointment.getCancellationToken()))
+                .expectNext(false)
+                .verifyComplete();
+    }
+
+    @Test
+    void testCancelAppointmentByToken_RejectsForgedToken() {
+        // Arrange - swap the appointment ID while keeping the signature
+        Appointment appointment = bookingService.bookAppointment(new Appointment(), slotId, "testuser").block();
+        String token = appointment.getCancellationToken();
+        String forged = (appointment.getId() + 1) + token.substring(token.indexOf('.'));
+
+        // Act & Assert
+        StepVerifier.create(bookingService.cancelAppointmentByToken(forged))
+                .expectNext(false)
+                .verifyComplete();
+        assertFalse(timeSlotRepository.findById(slotId).block().isAvailable());
+    }
+
+    @Test
+    void testCancelAppointment_ReopensSlot() {
+        // Arrange
+        Appointment appointment = bookingService.bookAppointment(new Appointment(), slotId, "testuser").block();
+
+        // Act
+        Boolean cancelled = bookingService.cancelAppointment(appointment.getId()).block();
+        Boolean cancelledAgain = bookingService.cancelAppointment(appointment.getId()).block();
+
+        // Assert - the row is kept as history and the seat is released once
+        assertTrue(cancelled);
+        assertFalse(cancelledAgain);
+        assertTrue(timeSlotRepository.findById(slotId).block().isAvailable());
+        assertEquals(0, timeSlotRepository.findById(slotId).block().getBookedCount());
+        assertEquals(AppointmentStatus.CANCELLED, appointmentRepository.findById(appointment.getId()).block().getStatus());
+    }
+}
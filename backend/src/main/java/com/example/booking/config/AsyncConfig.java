@@ -0,0 +1,90 @@
+package com.example.booking.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for {@code @Async} work.
+ *
+ * Request threads follow {@code spring.threads.virtual.enabled}: on JDK 21 it
+ * switches Tomcat and the default {@code @Async} executor to virtual threads.
+ * The mail executor always uses platform threads (see {@code AppointmentMailer}).
+ * All of them carry the submitting request's log context (its correlation
+ * ID) over to the task.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String SEARCH_EXECUTOR = "searchExecutor";
+
+    /**
+     * Copies the caller's MDC into the task and restores the worker's own
+     * afterwards, which matters when a rejected task runs on the caller.
+     */
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return task -> {
+            Map<String, String> callerContext = MDC.getCopyOfContextMap();
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                setContext(callerContext);
+                try {
+                    task.run();
+                } finally {
+                    setContext(previous);
+                }
+            };
+        };
+    }
+
+    @Bean(name = MAIL_EXECUTOR)
+    public Executor mailExecutor(@Value("${booking.mail.executor.pool-size:4}") int poolSize,
+            @Value("${booking.mail.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        executor.setTaskDecorator(mdcTaskDecorator());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the per-resource queries of a multi-resource availability search.
+     * Sized below the connection pool so searches cannot starve bookings;
+     * when the queue is full the caller runs the query itself.
+     */
+    @Bean(name = SEARCH_EXECUTOR)
+    public Executor searchExecutor(@Value("${booking.search.executor.pool-size:4}") int poolSize,
+            @Value("${booking.search.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setTaskDecorator(mdcTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
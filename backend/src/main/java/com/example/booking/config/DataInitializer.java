@@ -2,18 +2,22 @@ package com.example.booking.config;
 
 import com.example.booking.model.User;
 import com.example.booking.repository.UserRepository;
+import com.example.booking.service.PasswordHashingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
 
     @Autowired
     private UserRepository userRepository;
 
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHashingService passwordHashing;
 
     @Override
     public void run(String... args) throws Exception {
@@ -21,17 +25,15 @@ public class DataInitializer implements CommandLineRunner {
         if (userRepository.findByUsername("admin").isEmpty()) {
             User admin = new User();
             admin.setUsername("admin");
-            admin.setPassword(passwordEncoder.encode("admin123"));
+            admin.setPassword(passwordHashing.encode("admin123"));
             admin.setEmail("admin@booking.com");
             admin.setPhone("1234567890");
             admin.setRole("ADMIN");
 
             userRepository.save(admin);
-            System.out.println("✓ Demo admin user created successfully!");
-            System.out.println("  Username: admin");
-            System.out.println("  Password: admin123");
+            log.info("Demo admin user created (username: admin, password: admin123)");
         } else {
-            System.out.println("✓ Demo admin user already exists");
+            log.info("Demo admin user already exists");
         }
     }
 }
@@ -0,0 +1,43 @@
+package com.example.booking.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Latency histograms for the timers we look at under load: requests,
+ * repository calls, and the {@code booking.*} timers (booking, cancellation,
+ * mail, JWT verification, password hashing). Histogram buckets let Prometheus
+ * compute percentiles across instances, which the default count/sum/max
+ * cannot.
+ */
+@Configuration
+public class MetricsConfig {
+    private static final List<String> HISTOGRAM_PREFIXES = List.of(
+            "booking.", "http.server.requests", "spring.data.repository.invocations");
+
+    @Bean
+    public MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER
+                        || HISTOGRAM_PREFIXES.stream().noneMatch(id.getName()::startsWith)) {
+                    return config;
+                }
+                // Overrides the repository timer, which turns histograms off explicitly
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -1,34 +1,69 @@
 package com.example.booking.config;
 
 import com.example.booking.security.JwtAuthenticationFilter;
+import com.example.booking.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    // Comma-separated addresses or CIDR ranges that may scrape /actuator/prometheus without logging in
+    @Value("${booking.metrics.scrape-from:}")
+    private String scrapeFrom;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        List<IpAddressMatcher> scrapers = Arrays.stream(scrapeFrom.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
         http
             .csrf().disable()
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/appointments/cancel/**").permitAll() // allow cancellation by token
+                .requestMatchers("/api/calendar/**").permitAll() // calendar feeds carry their own token
+                .requestMatchers("/api/appointments/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/appointments").authenticated() // require authentication for booking
                 .requestMatchers("/api/appointments/**").authenticated() // require authentication for other appointment operations
+                .requestMatchers(HttpMethod.POST, "/api/resources/**").hasRole("ADMIN") // only operators add calendars
+                .requestMatchers("/api/user/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/user/**").authenticated()
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/prometheus").access((authentication, context) ->
+                        new AuthorizationDecision(isAdmin(authentication.get())
+                                || scrapers.stream().anyMatch(scraper -> scraper.matches(context.getRequest()))))
+                .requestMatchers("/actuator/**").hasRole("ADMIN") // metrics are for operators only
                 .anyRequest().permitAll()
             )
             .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             .and()
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class); // shed excess traffic before controllers
         return http.build();
     }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
 } 
\ No newline at end of file
@@ -1,64 +1,62 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.BulkCancellationResult;
 import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
 import com.example.booking.service.AppointmentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
-import org.springframework.security.core.Authentication;
 import com.example.booking.model.User;
-import com.example.booking.service.UserService;
+import com.example.booking.service.SlotHoldService;
+import com.example.booking.web.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @RestController
 @RequestMapping("/api/appointments")
 public class AppointmentController {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentController.class);
     private final AppointmentService appointmentService;
 
     @Autowired
-    private UserService userService;
+    private SlotHoldService slotHoldService;
 
     public AppointmentController(AppointmentService appointmentService) {
         this.appointmentService = appointmentService;
     }
 
     @GetMapping
-    public List<Appointment> getAllAppointments() {
+    public List<AppointmentView> getAllAppointments() {
         return appointmentService.getAllAppointments();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Appointment> getAppointment(@PathVariable Long id) {
-        Optional<Appointment> appointment = appointmentService.getAppointment(id);
+    public ResponseEntity<AppointmentView> getAppointment(@PathVariable Long id) {
+        Optional<AppointmentView> appointment = appointmentService.getAppointment(id);
         return appointment.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
     public ResponseEntity<?> bookAppointment(@RequestBody AppointmentRequest request,
-            Authentication authentication) {
+            @CurrentUser User user) {
         try {
             // Check if user is authenticated
-            if (authentication == null || !authentication.isAuthenticated()) {
+            if (user == null) {
                 return ResponseEntity.status(401)
                         .body(java.util.Map.of("message", "Authentication required to book appointments", "error", "Please login to book an appointment"));
             }
-            
-            // Get authenticated user
-            User user = userService.getUserByUsername(authentication.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
-            
-            Appointment appointment = new Appointment();
-            // Use authenticated user's information
-            appointment.setCustomerName(user.getUsername());
-            appointment.setCustomerEmail(user.getEmail() != null ? user.getEmail() : request.getCustomerEmail());
-            appointment.setCustomerPhone(user.getPhone() != null ? user.getPhone() : request.getCustomerPhone());
-            appointment.setLocation(request.getLocation());
-            appointment.setService(request.getService());
-            
+
+            Appointment appointment = toAppointment(request, user);
             Appointment booked = appointmentService.bookAppointment(appointment, request.getTimeSlotId(), user);
             return ResponseEntity.ok(booked);
         } catch (IllegalStateException e) {
@@ -70,12 +68,102 @@ public class AppointmentController {
             return ResponseEntity.status(400)
                     .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Booking failed for slot {}", request.getTimeSlotId(), e);
             return ResponseEntity.status(500)
                     .body(java.util.Map.of("message", "Failed to book appointment", "error", e.getMessage()));
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> bookAppointments(@RequestBody BatchAppointmentRequest request,
+            @CurrentUser User user) {
+        try {
+            requireUser(user);
+            List<Appointment> booked = appointmentService.bookAppointments(toAppointment(request, user),
+                    request.getTimeSlotIds(), user);
+            return ResponseEntity.ok(booked);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409)
+                    .body(java.util.Map.of("message", "One or more time slots are not available", "error",
+                            e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> holdTimeSlot(@RequestBody HoldRequest request, @CurrentUser User user) {
+        try {
+            requireUser(user);
+            OffsetDateTime heldUntil = slotHoldService.holdSlot(request.getTimeSlotId(), user);
+            return ResponseEntity.ok(java.util.Map.of("timeSlotId", request.getTimeSlotId(), "heldUntil", heldUntil));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409)
+                    .body(java.util.Map.of("message", "Time slot is not available", "error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/holds/{timeSlotId}/confirm")
+    public ResponseEntity<?> confirmHold(@PathVariable Long timeSlotId, @RequestBody AppointmentRequest request,
+            @CurrentUser User user) {
+        try {
+            requireUser(user);
+            Appointment booked = appointmentService.confirmHeldAppointment(toAppointment(request, user), timeSlotId,
+                    user);
+            return ResponseEntity.ok(booked);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409)
+                    .body(java.util.Map.of("message", "Hold has expired", "error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/holds/{timeSlotId}")
+    public ResponseEntity<Void> releaseHold(@PathVariable Long timeSlotId, @CurrentUser User user) {
+        if (user == null || !slotHoldService.releaseHold(timeSlotId, user)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    // Admin only: cancels every booking in a time range, e.g. when a provider is off sick
+    @PostMapping("/admin/cancellations")
+    public ResponseEntity<?> cancelAppointmentsInRange(@RequestBody BulkCancellationRequest request) {
+        try {
+            BulkCancellationResult result = appointmentService.cancelAppointmentsInRange(request.getFrom(),
+                    request.getTo(), request.getResourceId(), request.isCloseSlots());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    // Admin only: filtered search over all appointments, paged with the returned nextCursor
+    @GetMapping("/admin/search")
+    public ResponseEntity<?> searchAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) String service, @RequestParam(required = false) String location,
+            @RequestParam(required = false) String email, @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) AppointmentStatus status, @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "0") int limit) {
+        try {
+            AppointmentSearch search = new AppointmentSearch(from, to, blankToNull(service), blankToNull(location),
+                    blankToNull(email), userId, status);
+            return ResponseEntity.ok(appointmentService.searchAppointments(search, after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(java.util.Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> cancelAppointment(@PathVariable Long id) {
         appointmentService.cancelAppointment(id);
@@ -92,6 +180,93 @@ public class AppointmentController {
         }
     }
 
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static void requireUser(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User not found");
+        }
+    }
+
+    private Appointment toAppointment(AppointmentRequest request, User user) {
+        Appointment appointment = new Appointment();
+        // Use authenticated user's information
+        appointment.setCustomerName(user.getUsername());
+        appointment.setCustomerEmail(user.getEmail() != null ? user.getEmail() : request.getCustomerEmail());
+        appointment.setCustomerPhone(user.getPhone() != null ? user.getPhone() : request.getCustomerPhone());
+        appointment.setLocation(request.getLocation());
+        appointment.setService(request.getService());
+        return appointment;
+    }
+
+    // DTO for cancelling every appointment in a time range
+    public static class BulkCancellationRequest {
+        private OffsetDateTime from;
+        private OffsetDateTime to;
+        private Long resourceId;
+        private boolean closeSlots;
+
+        public OffsetDateTime getFrom() {
+            return from;
+        }
+
+        public void setFrom(OffsetDateTime from) {
+            this.from = from;
+        }
+
+        public OffsetDateTime getTo() {
+            return to;
+        }
+
+        public void setTo(OffsetDateTime to) {
+            this.to = to;
+        }
+
+        public Long getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(Long resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public boolean isCloseSlots() {
+            return closeSlots;
+        }
+
+        public void setCloseSlots(boolean closeSlots) {
+            this.closeSlots = closeSlots;
+        }
+    }
+
+    // DTO for booking several slots at once
+    public static class BatchAppointmentRequest extends AppointmentRequest {
+        private List<Long> timeSlotIds;
+
+        public List<Long> getTimeSlotIds() {
+            return timeSlotIds;
+        }
+
+        public void setTimeSlotIds(List<Long> timeSlotIds) {
+            this.timeSlotIds = timeSlotIds;
+        }
+    }
+
+    // DTO for hold request
+    public static class HoldRequest {
+        private Long timeSlotId;
+
+        public Long getTimeSlotId() {
+            return timeSlotId;
+        }
+
+        public void setTimeSlotId(Long timeSlotId) {
+            this.timeSlotId = timeSlotId;
+        }
+    }
+
     // DTO for booking request
     public static class AppointmentRequest {
         private String customerName;
@@ -1,16 +1,20 @@
 package com.example.booking.controller;
 
 import com.example.booking.model.User;
+import com.example.booking.service.PasswordHashingService;
 import com.example.booking.service.UserService;
+import com.example.booking.web.CurrentUser;
+import com.example.booking.security.AuthenticatedUser;
 import com.example.booking.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -25,7 +29,8 @@ public class AuthController {
     private UserService userService;
     @Autowired
     private JwtUtil jwtUtil;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHashingService passwordHashing;
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest req) {
@@ -36,7 +41,11 @@ public class AuthController {
 
         User user = new User();
         user.setUsername(req.getUsername());
-        user.setPassword(passwordEncoder.encode(req.getPassword()));
+        try {
+            user.setPassword(passwordHashing.encode(req.getPassword()));
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
         user.setEmail(req.getEmail());
         user.setPhone(req.getPhone());
 
@@ -46,29 +55,50 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest req) {
-        return userService.getUserByUsername(req.getUsername()).map(user -> {
-            if (passwordEncoder.matches(req.getPassword(), user.getPassword())) {
-                String token = jwtUtil.generateToken(user.getUsername());
-
-                ResponseCookie jwtCookie = ResponseCookie.from("jwt", token)
-                        .httpOnly(true)
-                        .path("/")
-                        .maxAge(24 * 60 * 60) // 1 day
-                        .build();
-
-                return ResponseEntity.ok()
-                        .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
-                        .body(Map.of(
-                                "message", "Login successful",
-                                "user", Map.of(
-                                        "username", user.getUsername(),
-                                        "email", user.getEmail(),
-                                        "phone", user.getPhone(),
-                                        "role", user.getRole())));
-            } else {
-                return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
-            }
-        }).orElse(ResponseEntity.status(401).body(Map.of("error", "Invalid credentials")));
+        try {
+            return userService.getUserByUsername(req.getUsername())
+                    .<ResponseEntity<?>>map(user -> login(req, user))
+                    .orElse(ResponseEntity.status(401).body(Map.of("error", "Invalid credentials")));
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
+    }
+
+    private ResponseEntity<?> login(LoginRequest req, User user) {
+        PasswordHashingService.Verification verification = passwordHashing.verify(req.getPassword(),
+                user.getPassword());
+        if (!verification.matches()) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
+        }
+        if (verification.rehashed() != null) {
+            // The cost factor changed since this hash was stored
+            userService.replacePasswordHash(user.getId(), user.getPassword(), verification.rehashed());
+        }
+        String token = jwtUtil.generateToken(user);
+
+        ResponseCookie jwtCookie = ResponseCookie.from("jwt", token)
+                .httpOnly(true)
+                .path("/")
+                .maxAge(24 * 60 * 60) // 1 day
+                .build();
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
+                .body(Map.of(
+                        "message", "Login successful",
+                        "user", Map.of(
+                                "username", user.getUsername(),
+                                "email", user.getEmail(),
+                                "phone", user.getPhone(),
+                                "role", user.getRole())));
+    }
+
+    // Password hashing is saturated; tell the client when to come back instead of queueing
+    private ResponseEntity<?> busy() {
+        String message = "Too many sign-in attempts right now. Please try again shortly.";
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(passwordHashing.retryAfterSeconds()))
+                .body(Map.of("message", message, "error", message));
     }
 
     @PostMapping("/logout")
@@ -83,16 +113,29 @@ public class AuthController {
                 .body(Map.of("message", "Logout successful"));
     }
 
+    // Logs the caller out on every device by invalidating all tokens issued so far
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            return ResponseEntity.status(401).build();
+        }
+        userService.revokeTokens(user.getId());
+        return logout();
+    }
+
     @GetMapping("/me")
-    public ResponseEntity<?> me(Principal principal) {
+    public ResponseEntity<?> me(Principal principal, @CurrentUser User user) {
         if (principal == null) {
             return ResponseEntity.status(401).build();
         }
-        return userService.getUserByUsername(principal.getName()).map(user -> ResponseEntity.ok(Map.of(
+        if (user == null) {
+            return ResponseEntity.status(404).build();
+        }
+        return ResponseEntity.ok(Map.of(
                 "username", user.getUsername(),
                 "email", user.getEmail(),
                 "phone", user.getPhone(),
-                "role", user.getRole()))).orElse(ResponseEntity.status(404).build());
+                "role", user.getRole()));
     }
 
     public static class RegisterRequest {
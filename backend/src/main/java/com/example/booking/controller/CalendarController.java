@@ -0,0 +1,53 @@
+package com.example.booking.controller;
+
+import com.example.booking.security.CalendarFeedTokenSigner;
+import com.example.booking.security.CalendarFeedTokenSigner.FeedToken;
+import com.example.booking.service.CalendarFeedService;
+import com.example.booking.service.CalendarFeedService.CalendarFeed;
+import com.example.booking.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/calendar")
+public class CalendarController {
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    @Autowired
+    private CalendarFeedTokenSigner feedTokenSigner;
+    @Autowired
+    private CalendarFeedService calendarFeedService;
+    @Autowired
+    private UserService userService;
+
+    // Subscribed to by calendar apps; the token in the URL stands in for the login cookie
+    @GetMapping("/{token}.ics")
+    public ResponseEntity<byte[]> getFeed(@PathVariable String token, WebRequest request) {
+        FeedToken feedToken = feedTokenSigner.verify(token);
+        // Served from the token version cache, so polls stay off the database
+        if (feedToken == null
+                || !userService.isTokenVersionCurrent(feedToken.userId(), feedToken.tokenVersion())) {
+            return ResponseEntity.notFound().build();
+        }
+        CalendarFeed feed = calendarFeedService.getFeed(feedToken.userId());
+        // Answers 304 with the validators when the client's copy is current
+        if (request.checkNotModified(feed.etag(), feed.lastModified().toEpochMilli())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .eTag(feed.etag())
+                .lastModified(feed.lastModified())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(feed.body());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.booking.controller;
+
+import com.example.booking.dto.TimeSlotDTO;
+import com.example.booking.mapper.TimeSlotMapper;
+import com.example.booking.model.Resource;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.service.ResourceService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/resources")
+public class ResourceController {
+    // Default search window when no end is given
+    private static final long DEFAULT_SEARCH_DAYS = 7;
+
+    private final ResourceService resourceService;
+
+    public ResourceController(ResourceService resourceService) {
+        this.resourceService = resourceService;
+    }
+
+    @GetMapping
+    public List<Resource> getAllResources() {
+        return resourceService.getAllResources();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createResource(@RequestBody Resource resource) {
+        try {
+            return ResponseEntity.ok(resourceService.createResource(resource));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}/timeslots")
+    public ResponseEntity<?> getAvailableTimeSlots(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        if (resourceService.getResource(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        OffsetDateTime start = from != null ? from : OffsetDateTime.now();
+        try {
+            return ResponseEntity.ok(toDTOs(resourceService.getAvailableTimeSlots(id, start,
+                    to != null ? to : start.plusDays(DEFAULT_SEARCH_DAYS))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Free slots across several resources, merged by start time
+    @GetMapping("/availability")
+    public ResponseEntity<?> searchAvailability(@RequestParam List<Long> resourceIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+        OffsetDateTime start = from != null ? from : OffsetDateTime.now();
+        try {
+            return ResponseEntity.ok(toDTOs(resourceService.searchAvailableTimeSlots(resourceIds, start,
+                    to != null ? to : start.plusDays(DEFAULT_SEARCH_DAYS))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private static List<TimeSlotDTO> toDTOs(List<TimeSlot> slots) {
+        return slots.stream()
+                .map(TimeSlotMapper::toAvailabilityDTO)
+                .collect(Collectors.toList());
+    }
+}
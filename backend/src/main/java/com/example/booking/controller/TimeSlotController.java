@@ -9,11 +9,14 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import com.example.booking.mapper.TimeSlotMapper;
 import com.example.booking.dto.TimeSlotDTO;
 import com.example.booking.dto.TimeSlotDTO;
 import com.example.booking.mapper.TimeSlotMapper;
 import com.example.booking.model.TimeSlot;
+import com.example.booking.model.Resource;
+import com.example.booking.repository.ResourceRepository;
 import com.example.booking.repository.TimeSlotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -27,6 +30,8 @@ import java.util.stream.Collectors;
 public class TimeSlotController {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
+    @Autowired
+    private ResourceRepository resourceRepository;
     private final TimeSlotService timeSlotService;
 
     public TimeSlotController(TimeSlotService timeSlotService) {
@@ -35,7 +40,7 @@ public class TimeSlotController {
 
     @GetMapping
     public List<TimeSlotDTO> getAllTimeSlots() {
-        List<TimeSlotDTO> dtos = timeSlotRepository.findAll().stream()
+        List<TimeSlotDTO> dtos = timeSlotRepository.findAllWithAppointments().stream()
                 .map(TimeSlotMapper::toDTO)
                 .collect(Collectors.toList());
         return dtos;
@@ -43,7 +48,7 @@ public class TimeSlotController {
 
     @GetMapping("/{id}")
     public ResponseEntity<TimeSlotDTO> getTimeSlot(@PathVariable Long id) {
-        TimeSlot timeSlot = timeSlotRepository.findById(id)
+        TimeSlot timeSlot = timeSlotRepository.findWithAppointmentsById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "TimeSlot not found"));
 
         TimeSlotDTO dto = TimeSlotMapper.toDTO(timeSlot);
@@ -55,7 +60,14 @@ public class TimeSlotController {
         TimeSlot timeSlot = new TimeSlot();
         timeSlot.setStartTime(OffsetDateTime.parse(request.getStartTime()));
         timeSlot.setEndTime(OffsetDateTime.parse(request.getEndTime()));
-        timeSlot.setAvailable(request.isAvailable());
+        timeSlot.setCapacity(request.getCapacity() != null ? request.getCapacity() : 1);
+        if (request.getResourceId() != null) {
+            Optional<Resource> resource = resourceRepository.findById(request.getResourceId());
+            if (resource.isEmpty()) {
+                return ResponseEntity.badRequest().body("Resource not found.");
+            }
+            timeSlot.setResource(resource.get());
+        }
 
         timeSlotService.validateTimeSlot(timeSlot);
 
@@ -67,17 +79,28 @@ public class TimeSlotController {
     }
 
     @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> updateTimeSlot(@PathVariable Long id, @RequestBody TimeSlot timeSlot) {
-        timeSlotService.validateTimeSlot(timeSlot);
+    public ResponseEntity<?> updateTimeSlot(@PathVariable Long id, @RequestBody TimeSlotRequest request) {
+        // Edits replace the whole schedule and must say which version of the schedule they are based on
+        if (request.getCapacity() == null || request.getScheduleVersion() == null) {
+            return ResponseEntity.badRequest().body("Capacity and scheduleVersion are required.");
+        }
+        TimeSlot timeSlot = new TimeSlot();
+        timeSlot.setStartTime(OffsetDateTime.parse(request.getStartTime()));
+        timeSlot.setEndTime(OffsetDateTime.parse(request.getEndTime()));
+        timeSlot.setCapacity(request.getCapacity());
+        timeSlot.setScheduleVersion(request.getScheduleVersion());
 
-        if (timeSlotService.isOverlapping(timeSlot, id)) {
-            return ResponseEntity.badRequest().body("Updated time slot overlaps with an existing slot.");
+        if (timeSlotService.getTimeSlot(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
 
+        // The service validates the slot and checks overlaps
         try {
-            return ResponseEntity.ok(timeSlotService.updateTimeSlot(id, timeSlot));
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.ok(TimeSlotMapper.toAvailabilityDTO(timeSlotService.updateTimeSlot(id, timeSlot)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -87,14 +110,21 @@ public class TimeSlotController {
             return ResponseEntity.badRequest().body("Cannot delete a time slot that is already booked.");
         }
 
-        timeSlotService.deleteTimeSlot(id);
+        try {
+            timeSlotService.deleteTimeSlot(id);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
         return ResponseEntity.noContent().build();
     }
 
     public static class TimeSlotRequest {
         private String startTime;
         private String endTime;
-        private boolean available;
+        private Integer capacity;
+        private Long resourceId;
+        // Schedule version the client read; only used by updates
+        private Long scheduleVersion;
 
         public TimeSlotRequest() {
         }
@@ -115,12 +145,28 @@ public class TimeSlotController {
             this.endTime = endTime;
         }
 
-        public boolean isAvailable() {
-            return available;
+        public Integer getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(Integer capacity) {
+            this.capacity = capacity;
+        }
+
+        public Long getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(Long resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public Long getScheduleVersion() {
+            return scheduleVersion;
         }
 
-        public void setAvailable(boolean available) {
-            this.available = available;
+        public void setScheduleVersion(Long scheduleVersion) {
+            this.scheduleVersion = scheduleVersion;
         }
     }
 
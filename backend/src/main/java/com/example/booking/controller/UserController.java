@@ -1,21 +1,24 @@
 package com.example.booking.controller;
 
-import com.example.booking.model.Appointment;
+import com.example.booking.dto.AppointmentPage;
 import com.example.booking.model.User;
-import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.security.AuthenticatedUser;
+import com.example.booking.security.CalendarFeedTokenSigner;
+import com.example.booking.service.AppointmentService;
+import com.example.booking.service.CustomerSearchService;
+import com.example.booking.service.UserImportService;
 import com.example.booking.service.UserService;
+import com.example.booking.web.CurrentUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
-import java.time.ZoneOffset;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/user")
@@ -23,14 +26,18 @@ public class UserController {
     @Autowired
     private UserService userService;
     @Autowired
-    private AppointmentRepository appointmentRepository;
+    private AppointmentService appointmentService;
+    @Autowired
+    private UserImportService userImportService;
+    @Autowired
+    private CustomerSearchService customerSearchService;
+    @Autowired
+    private CalendarFeedTokenSigner feedTokenSigner;
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(Authentication auth) {
-        Optional<User> optionalUser = userService.getUserByUsername(auth.getName());
-        if (optionalUser.isEmpty())
+    public ResponseEntity<?> getProfile(@CurrentUser User user) {
+        if (user == null)
             return ResponseEntity.status(404).body("User not found");
-        User user = optionalUser.get();
         return ResponseEntity.ok(Map.of(
                 "username", user.getUsername(),
                 "email", user.getEmail(),
@@ -38,33 +45,90 @@ public class UserController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateProfile(Authentication auth, @RequestBody Map<String, String> req) {
-        Optional<User> optionalUser = userService.getUserByUsername(auth.getName());
-        if (optionalUser.isEmpty())
+    public ResponseEntity<?> updateProfile(@CurrentUser User user, @RequestBody Map<String, String> req) {
+        if (user == null)
             return ResponseEntity.status(404).body("User not found");
-        User user = optionalUser.get();
         user.setEmail(req.getOrDefault("email", user.getEmail()));
         user.setPhone(req.getOrDefault("phone", user.getPhone()));
         userService.updateUser(user);
         return ResponseEntity.ok().build();
     }
 
+    // First page of both lists for the dashboard; the cursors fetch more from the endpoints below
     @GetMapping("/appointments")
-    public ResponseEntity<?> getUserAppointments(Authentication auth) {
-        Optional<User> optionalUser = userService.getUserByUsername(auth.getName());
-        if (optionalUser.isEmpty())
+    public ResponseEntity<?> getUserAppointments(@CurrentUser AuthenticatedUser user,
+            @RequestParam(defaultValue = "0") int limit) {
+        // Only the ID is needed, which the token already carries
+        if (user == null)
             return ResponseEntity.status(404).body("User not found");
-        User user = optionalUser.get();
-        List<Appointment> all = appointmentRepository.findByUserId(user.getId());
-        if (all.isEmpty())
-            return ResponseEntity.ok(Map.of("upcoming", List.of(), "history", List.of()));
-        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
-        List<Appointment> upcoming = all.stream().filter(a -> a.getStartTime().isAfter(now))
-                .collect(Collectors.toList());
-        List<Appointment> history = all.stream().filter(a -> a.getStartTime().isBefore(now))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(Map.of(
-                "upcoming", upcoming,
-                "history", history));
+        AppointmentPage upcoming = appointmentService.getUpcomingAppointments(user.getId(), null, limit);
+        AppointmentPage history = appointmentService.getAppointmentHistory(user.getId(), null, limit);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("upcoming", upcoming.getAppointments());
+        body.put("history", history.getAppointments());
+        body.put("upcomingCursor", upcoming.getNextCursor());
+        body.put("historyCursor", history.getNextCursor());
+        return ResponseEntity.ok(body);
+    }
+
+    // Subscription URL of the user's upcoming appointments for calendar apps.
+    // It carries the token version, so logging out everywhere replaces it.
+    @GetMapping("/calendar-feed")
+    public ResponseEntity<?> getCalendarFeedUrl(@CurrentUser AuthenticatedUser user) {
+        if (user == null)
+            return ResponseEntity.status(404).body("User not found");
+        String token = feedTokenSigner.sign(user.getId(), user.getTokenVersion());
+        return ResponseEntity.ok(Map.of("url", "/api/calendar/" + token + ".ics"));
+    }
+
+    @GetMapping("/appointments/upcoming")
+    public ResponseEntity<?> getUpcomingAppointments(@CurrentUser AuthenticatedUser user,
+            @RequestParam(required = false) String after, @RequestParam(defaultValue = "0") int limit) {
+        if (user == null)
+            return ResponseEntity.status(404).body("User not found");
+        try {
+            return ResponseEntity.ok(appointmentService.getUpcomingAppointments(user.getId(), after, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/appointments/history")
+    public ResponseEntity<?> getAppointmentHistory(@CurrentUser AuthenticatedUser user,
+            @RequestParam(required = false) String before, @RequestParam(defaultValue = "0") int limit) {
+        if (user == null)
+            return ResponseEntity.status(404).body("User not found");
+        try {
+            return ResponseEntity.ok(appointmentService.getAppointmentHistory(user.getId(), before, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    // Admin: type-ahead lookup of customers by part of their name, email or phone
+    @GetMapping("/admin/customers")
+    public ResponseEntity<?> searchCustomers(@RequestParam String q, @RequestParam(defaultValue = "0") int limit) {
+        try {
+            return ResponseEntity.ok(customerSearchService.search(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
+    }
+
+    // Admin: import existing customers from a JSON array or, with Content-Type text/csv, a CSV file
+    @PostMapping(value = "/admin/import", consumes = { "application/json", "text/csv" })
+    public ResponseEntity<?> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try {
+            return ResponseEntity.ok(contentType.startsWith("text/csv")
+                    ? userImportService.importCsv(body)
+                    : userImportService.importJson(body));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "message", "Could not read the import: " + e.getMessage(),
+                    "error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("message", e.getMessage(), "error", e.getMessage()));
+        }
     }
-}
\ No newline at end of file
+}
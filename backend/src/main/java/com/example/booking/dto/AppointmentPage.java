@@ -0,0 +1,20 @@
+package com.example.booking.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's appointments. {@code nextCursor} is passed back to
+ * get the following page and is null on the last one.
+ */
+public class AppointmentPage {
+    private final List<AppointmentView> appointments;
+    private final String nextCursor;
+
+    public AppointmentPage(List<AppointmentView> appointments, String nextCursor) {
+        this.appointments = appointments;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AppointmentView> getAppointments() { return appointments; }
+    public String getNextCursor() { return nextCursor; }
+}
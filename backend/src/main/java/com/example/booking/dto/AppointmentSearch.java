@@ -0,0 +1,38 @@
+package com.example.booking.dto;
+
+import com.example.booking.model.AppointmentStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Filters of the admin appointment search. Every field is optional; null
+ * means the filter is not applied. The email is matched case-insensitively.
+ */
+public class AppointmentSearch {
+    private final OffsetDateTime from;
+    private final OffsetDateTime to;
+    private final String service;
+    private final String location;
+    private final String customerEmail;
+    private final Long userId;
+    private final AppointmentStatus status;
+
+    public AppointmentSearch(OffsetDateTime from, OffsetDateTime to, String service, String location,
+            String customerEmail, Long userId, AppointmentStatus status) {
+        this.from = from;
+        this.to = to;
+        this.service = service;
+        this.location = location;
+        this.customerEmail = customerEmail;
+        this.userId = userId;
+        this.status = status;
+    }
+
+    public OffsetDateTime getFrom() { return from; }
+    public OffsetDateTime getTo() { return to; }
+    public String getService() { return service; }
+    public String getLocation() { return location; }
+    public String getCustomerEmail() { return customerEmail; }
+    public Long getUserId() { return userId; }
+    public AppointmentStatus getStatus() { return status; }
+}
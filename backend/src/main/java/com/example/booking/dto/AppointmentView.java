@@ -0,0 +1,52 @@
+package com.example.booking.dto;
+
+import com.example.booking.model.AppointmentStatus;
+
+import java.time.OffsetDateTime;
+
+/**
+ * An appointment as returned by the read endpoints, loaded with a constructor
+ * projection so neither the user nor the time slot is fetched. The
+ * cancellation token is signed after the query, and only for the owner.
+ */
+public class AppointmentView {
+    private final Long id;
+    private final String customerName;
+    private final String customerEmail;
+    private final String customerPhone;
+    private final String location;
+    private final String service;
+    private final AppointmentStatus status;
+    private final OffsetDateTime startTime;
+    private final OffsetDateTime endTime;
+    private final Long timeSlotId;
+    private String cancellationToken;
+
+    public AppointmentView(Long id, String customerName, String customerEmail, String customerPhone,
+            String location, String service, AppointmentStatus status, OffsetDateTime startTime, OffsetDateTime endTime,
+            Long timeSlotId) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.customerPhone = customerPhone;
+        this.location = location;
+        this.service = service;
+        this.status = status;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.timeSlotId = timeSlotId;
+    }
+
+    public Long getId() { return id; }
+    public String getCustomerName() { return customerName; }
+    public String getCustomerEmail() { return customerEmail; }
+    public String getCustomerPhone() { return customerPhone; }
+    public String getLocation() { return location; }
+    public String getService() { return service; }
+    public AppointmentStatus getStatus() { return status; }
+    public OffsetDateTime getStartTime() { return startTime; }
+    public OffsetDateTime getEndTime() { return endTime; }
+    public Long getTimeSlotId() { return timeSlotId; }
+    public String getCancellationToken() { return cancellationToken; }
+    public void setCancellationToken(String cancellationToken) { this.cancellationToken = cancellationToken; }
+}
@@ -0,0 +1,21 @@
+package com.example.booking.dto;
+
+public class BulkCancellationResult {
+    private final int cancelledAppointments;
+    private final int affectedSlots;
+    private final int notifiedCustomers;
+    private final boolean slotsClosed;
+
+    public BulkCancellationResult(int cancelledAppointments, int affectedSlots, int notifiedCustomers,
+            boolean slotsClosed) {
+        this.cancelledAppointments = cancelledAppointments;
+        this.affectedSlots = affectedSlots;
+        this.notifiedCustomers = notifiedCustomers;
+        this.slotsClosed = slotsClosed;
+    }
+
+    public int getCancelledAppointments() { return cancelledAppointments; }
+    public int getAffectedSlots() { return affectedSlots; }
+    public int getNotifiedCustomers() { return notifiedCustomers; }
+    public boolean isSlotsClosed() { return slotsClosed; }
+}
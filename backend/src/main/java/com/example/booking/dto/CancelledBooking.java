@@ -0,0 +1,40 @@
+package com.example.booking.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The fields of a cancelled appointment needed to notify its customer and
+ * refresh their calendar feed,
+ * loaded with a constructor projection instead of full entities.
+ */
+public class CancelledBooking {
+    private final Long id;
+    private final String customerName;
+    private final String customerEmail;
+    private final OffsetDateTime startTime;
+    private final OffsetDateTime endTime;
+    private final Long userId;
+
+    public CancelledBooking(Long id, String customerName, String customerEmail, OffsetDateTime startTime,
+            OffsetDateTime endTime, Long userId) {
+        this.id = id;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.userId = userId;
+    }
+
+    // Guest booking
+    public CancelledBooking(Long id, String customerName, String customerEmail, OffsetDateTime startTime,
+            OffsetDateTime endTime) {
+        this(id, customerName, customerEmail, startTime, endTime, null);
+    }
+
+    public Long getId() { return id; }
+    public String getCustomerName() { return customerName; }
+    public String getCustomerEmail() { return customerEmail; }
+    public OffsetDateTime getStartTime() { return startTime; }
+    public OffsetDateTime getEndTime() { return endTime; }
+    public Long getUserId() { return userId; }
+}
@@ -0,0 +1,35 @@
+package com.example.booking.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A customer found by the admin lookup, either from their bookings or from
+ * their account. {@code userId} is null for guests; {@code appointmentTime}
+ * is the customer's next or latest booking, or null for account matches.
+ */
+public class CustomerMatch {
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final Long userId;
+    private final OffsetDateTime appointmentTime;
+
+    public CustomerMatch(String name, String email, String phone, Long userId, OffsetDateTime appointmentTime) {
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.userId = userId;
+        this.appointmentTime = appointmentTime;
+    }
+
+    // Account matches have no booking
+    public CustomerMatch(String name, String email, String phone, Long userId) {
+        this(name, email, phone, userId, null);
+    }
+
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public String getPhone() { return phone; }
+    public Long getUserId() { return userId; }
+    public OffsetDateTime getAppointmentTime() { return appointmentTime; }
+}
@@ -8,6 +8,10 @@ public class TimeSlotDTO {
     private OffsetDateTime startTime;
     private OffsetDateTime endTime;
     private boolean available;
+    private int capacity;
+    private int bookedCount;
+    private Long resourceId;
+    private long scheduleVersion;
     private List<AppointmentDTO> appointments;
 
     public Long getId() { return id; }
@@ -22,6 +26,18 @@ public class TimeSlotDTO {
     public boolean isAvailable() { return available; }
     public void setAvailable(boolean available) { this.available = available; }
 
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public int getBookedCount() { return bookedCount; }
+    public void setBookedCount(int bookedCount) { this.bookedCount = bookedCount; }
+
+    public Long getResourceId() { return resourceId; }
+    public void setResourceId(Long resourceId) { this.resourceId = resourceId; }
+
+    public long getScheduleVersion() { return scheduleVersion; }
+    public void setScheduleVersion(long scheduleVersion) { this.scheduleVersion = scheduleVersion; }
+
     public List<AppointmentDTO> getAppointments() { return appointments; }
     public void setAppointments(List<AppointmentDTO> appointments) { this.appointments = appointments; }
 }
@@ -0,0 +1,50 @@
+package com.example.booking.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk user import: totals plus one entry per input row, in
+ * input order.
+ */
+public class UserImportResult {
+    public static final String IMPORTED = "IMPORTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String INVALID = "INVALID";
+
+    private final int imported;
+    private final int duplicates;
+    private final int invalid;
+    private final List<Row> rows;
+
+    public UserImportResult(List<Row> rows) {
+        this.rows = rows;
+        this.imported = (int) rows.stream().filter(r -> IMPORTED.equals(r.getStatus())).count();
+        this.duplicates = (int) rows.stream().filter(r -> DUPLICATE.equals(r.getStatus())).count();
+        this.invalid = rows.size() - imported - duplicates;
+    }
+
+    public int getTotal() { return rows.size(); }
+    public int getImported() { return imported; }
+    public int getDuplicates() { return duplicates; }
+    public int getInvalid() { return invalid; }
+    public List<Row> getRows() { return rows; }
+
+    public static class Row {
+        private final int row;
+        private final String username;
+        private final String status;
+        private final String message;
+
+        public Row(int row, String username, String status, String message) {
+            this.row = row;
+            this.username = username;
+            this.status = status;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getUsername() { return username; }
+        public String getStatus() { return status; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.booking.dto;
+
+/**
+ * One user in a bulk import, read from a JSON array element or a CSV line.
+ */
+public class UserImportRow {
+    private String username;
+    private String password;
+    private String email;
+    private String phone;
+
+    public UserImportRow() {
+    }
+
+    public UserImportRow(String username, String password, String email, String phone) {
+        this.username = username;
+        this.password = password;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+}
@@ -11,11 +11,7 @@ import java.util.stream.Collectors;
 public class TimeSlotMapper {
 
     public static TimeSlotDTO toDTO(TimeSlot timeSlot) {
-        TimeSlotDTO dto = new TimeSlotDTO();
-        dto.setId(timeSlot.getId());
-        dto.setStartTime(timeSlot.getStartTime());
-        dto.setEndTime(timeSlot.getEndTime());
-        dto.setAvailable(timeSlot.isAvailable());
+        TimeSlotDTO dto = toAvailabilityDTO(timeSlot);
 
         List<AppointmentDTO> appointments = timeSlot.getAppointments()
             .stream()
@@ -26,6 +22,20 @@ public class TimeSlotMapper {
         return dto;
     }
 
+    // Public availability view: slot fields only, no customer details
+    public static TimeSlotDTO toAvailabilityDTO(TimeSlot timeSlot) {
+        TimeSlotDTO dto = new TimeSlotDTO();
+        dto.setId(timeSlot.getId());
+        dto.setStartTime(timeSlot.getStartTime());
+        dto.setEndTime(timeSlot.getEndTime());
+        dto.setAvailable(timeSlot.isAvailable());
+        dto.setCapacity(timeSlot.getCapacity());
+        dto.setBookedCount(timeSlot.getBookedCount());
+        dto.setResourceId(timeSlot.getResourceId());
+        dto.setScheduleVersion(timeSlot.getScheduleVersion());
+        return dto;
+    }
+
     private static AppointmentDTO mapAppointment(Appointment appointment) {
         AppointmentDTO dto = new AppointmentDTO();
         dto.setId(appointment.getId());
@@ -1,6 +1,7 @@
 package com.example.booking.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import java.time.OffsetDateTime;
 
@@ -13,22 +14,32 @@ public class Appointment {
     private String customerName;
     private String customerEmail;
     private String customerPhone;
+    // Signed on the way out (see CancellationTokenSigner), never stored
+    @Transient
     private String cancellationToken;
     private String location;
     private String service;
 
+    // Changed only through the conditional updates in AppointmentRepository,
+    // so saving a stale entity cannot bring a cancelled appointment back
+    @ColumnDefault("'BOOKED'")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 16)
+    private AppointmentStatus status = AppointmentStatus.BOOKED;
+
     @Column(columnDefinition = "timestamp with time zone")
     private OffsetDateTime startTime;
 
     @Column(columnDefinition = "timestamp with time zone")
     private OffsetDateTime endTime;
 
-    @ManyToOne
+    // Lazy so reads that only need the IDs never join or select the user and slot
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonBackReference("user-appointments") // Added unique name
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "time_slot_id") // This creates the foreign key column in your DB
     @JsonBackReference("timeslot-appointments")
     private TimeSlot timeSlot;
@@ -121,4 +132,12 @@ public class Appointment {
     public void setTimeSlot(TimeSlot timeSlot) {
         this.timeSlot = timeSlot;
     }
-}
\ No newline at end of file
+
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AppointmentStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.booking.model;
+
+/**
+ * Lifecycle of an {@link Appointment}. Stored by name, so the values must not
+ * be renamed without migrating the appointment table.
+ */
+public enum AppointmentStatus {
+    BOOKED,
+    CANCELLED,
+    COMPLETED
+}
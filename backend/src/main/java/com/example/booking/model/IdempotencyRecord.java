@@ -0,0 +1,97 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.time.OffsetDateTime;
+
+/**
+ * Stored response for a request carrying an {@code Idempotency-Key} header.
+ * Retries with the same key are answered from this record instead of running
+ * the request again. The row is inserted as pending before the request runs,
+ * so the primary key is the claim on the key across all instances.
+ */
+@Entity
+public class IdempotencyRecord {
+    // Idempotency key scoped to the caller, e.g. "alice:3f2c..."
+    @Id
+    private String scopedKey;
+
+    // Method, path and body hash of the original request; a key may not be reused for another request
+    @Column(nullable = false)
+    private String requestFingerprint;
+
+    private int statusCode;
+    private String contentType;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @Column(columnDefinition = "timestamp with time zone", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    // The request is still running; there is no response to replay yet
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean pending;
+
+    public boolean isExpired(OffsetDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    // Getters and setters
+    public String getScopedKey() {
+        return scopedKey;
+    }
+
+    public void setScopedKey(String scopedKey) {
+        this.scopedKey = scopedKey;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public void setRequestFingerprint(String requestFingerprint) {
+        this.requestFingerprint = requestFingerprint;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public void setPending(boolean pending) {
+        this.pending = pending;
+    }
+
+    public OffsetDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(OffsetDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
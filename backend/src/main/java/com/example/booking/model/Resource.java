@@ -0,0 +1,46 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A bookable resource with its own calendar, e.g. a staff member or a room.
+ * Overlap checks and availability queries are scoped to one resource.
+ */
+@Entity
+public class Resource {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ResourceType type = ResourceType.STAFF;
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public ResourceType getType() {
+        return type;
+    }
+
+    public void setType(ResourceType type) {
+        this.type = type;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.booking.model;
+
+/**
+ * What kind of calendar a {@link Resource} represents.
+ */
+public enum ResourceType {
+    STAFF,
+    ROOM
+}
@@ -0,0 +1,68 @@
+package com.example.booking.model;
+
+import jakarta.persistence.*;
+import java.time.OffsetDateTime;
+
+/**
+ * A seat held on a time slot while the customer fills in the booking form.
+ * The held seat is already counted in {@link TimeSlot#getBookedCount()}; the
+ * hold is deleted when it is confirmed, released or expires.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "time_slot_id", "user_id" }))
+public class SlotHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "time_slot_id", nullable = false)
+    private Long timeSlotId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(columnDefinition = "timestamp with time zone", nullable = false)
+    private OffsetDateTime heldUntil;
+
+    public SlotHold() {
+    }
+
+    public SlotHold(Long timeSlotId, Long userId, OffsetDateTime heldUntil) {
+        this.timeSlotId = timeSlotId;
+        this.userId = userId;
+        this.heldUntil = heldUntil;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTimeSlotId() {
+        return timeSlotId;
+    }
+
+    public void setTimeSlotId(Long timeSlotId) {
+        this.timeSlotId = timeSlotId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public OffsetDateTime getHeldUntil() {
+        return heldUntil;
+    }
+
+    public void setHeldUntil(OffsetDateTime heldUntil) {
+        this.heldUntil = heldUntil;
+    }
+}
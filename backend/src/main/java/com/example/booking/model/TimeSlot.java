@@ -1,8 +1,11 @@
 package com.example.booking.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.OffsetDateTime;
 import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
@@ -15,9 +18,38 @@ public class TimeSlot {
     private OffsetDateTime startTime;
     @Column(columnDefinition = "timestamp with time zone")
     private OffsetDateTime endTime;
-    private boolean available = true;
 
+    // Seat counters only change through the conditional updates in
+    // TimeSlotRepository, never by saving a (possibly stale) entity
+    @ColumnDefault("1")
+    @Column(nullable = false, updatable = false)
+    private int capacity = 1;
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private int bookedCount;
+
+    // Bumped by every write to the row, seat updates included, so a change
+    // based on a stale read matches no row instead of overwriting newer data
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Bumped only by admin edits of the schedule or capacity. Edits are checked
+    // against it, so seats booked after the admin loaded the slot are no conflict
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long scheduleVersion;
+
+    // Owning calendar; slots without a resource share one global timeline
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id")
+    @JsonIgnore
+    private Resource resource;
+
+    // Cancelled appointments stay in the table as history but not on the slot
     @OneToMany(mappedBy = "timeSlot")
+    @SQLRestriction("status <> 'CANCELLED'")
     @JsonManagedReference("timeslot-appointments")
     private List<Appointment> appointments;
 
@@ -46,12 +78,54 @@ public class TimeSlot {
         this.endTime = endTime;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBookedCount() {
+        return bookedCount;
+    }
+
+    public void setBookedCount(int bookedCount) {
+        this.bookedCount = bookedCount;
+    }
+
+    // Booked seats include seats held during checkout
     public boolean isAvailable() {
-        return available;
+        return bookedCount < capacity;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getScheduleVersion() {
+        return scheduleVersion;
+    }
+
+    public void setScheduleVersion(long scheduleVersion) {
+        this.scheduleVersion = scheduleVersion;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
     }
 
-    public void setAvailable(boolean available) {
-        this.available = available;
+    // Exposed instead of the lazy association
+    public Long getResourceId() {
+        return resource != null ? resource.getId() : null;
     }
 
     public List<Appointment> getAppointments() {
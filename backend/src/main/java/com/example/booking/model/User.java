@@ -1,6 +1,7 @@
 package com.example.booking.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.List;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
@@ -20,6 +21,11 @@ public class User {
     @Column(nullable = false)
     private String role = "USER"; // USER or ADMIN
 
+    // Tokens issued with an older version are rejected; bump to log the user out everywhere
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int tokenVersion;
+
     @OneToMany(mappedBy = "user")
     @JsonManagedReference("user-appointments")
     private List<Appointment> appointments;
@@ -73,6 +79,14 @@ public class User {
         this.role = role;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public List<Appointment> getAppointments() {
         return appointments;
     }
@@ -1,10 +1,125 @@
 package com.example.booking.repository;
 
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.CancelledBooking;
+import com.example.booking.dto.CustomerMatch;
 import com.example.booking.model.Appointment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    Appointment findByCancellationToken(String token);
-    List<Appointment> findByUserId(Long userId);
-} 
\ No newline at end of file
+public interface AppointmentRepository extends JpaRepository<Appointment, Long>, AppointmentRepositoryCustom {
+    // Constructor projection for the read endpoints; a.timeSlot.id is the foreign key column, not a join
+    String VIEW = "new com.example.booking.dto.AppointmentView(a.id, a.customerName, a.customerEmail, "
+            + "a.customerPhone, a.location, a.service, a.status, a.startTime, a.endTime, a.timeSlot.id)";
+    // AppointmentStatus literals for the queries below
+    String BOOKED = "com.example.booking.model.AppointmentStatus.BOOKED";
+    String CANCELLED = "com.example.booking.model.AppointmentStatus.CANCELLED";
+    String COMPLETED = "com.example.booking.model.AppointmentStatus.COMPLETED";
+
+    @Query("SELECT " + VIEW + " FROM Appointment a ORDER BY a.id")
+    List<AppointmentView> findAllViews();
+
+    @Query("SELECT " + VIEW + " FROM Appointment a WHERE a.id = :id")
+    Optional<AppointmentView> findViewById(@Param("id") Long id);
+
+    /**
+     * First page of a user's upcoming appointments: booked and starting at or
+     * after {@code now}, soonest first. Uses idx_appointment_user_booked.
+     */
+    @Query("SELECT " + VIEW + " FROM Appointment a WHERE a.user.id = :userId AND a.status = " + BOOKED + " "
+            + "AND a.startTime >= :now ORDER BY a.startTime ASC, a.id ASC")
+    List<AppointmentView> findUpcoming(@Param("userId") Long userId, @Param("now") OffsetDateTime now, Limit limit);
+
+    // Next page after the keyset cursor (afterStart, afterId)
+    @Query("SELECT " + VIEW + " FROM Appointment a WHERE a.user.id = :userId AND a.status = " + BOOKED + " "
+            + "AND a.startTime >= :now AND (a.startTime > :afterStart "
+            + "OR (a.startTime = :afterStart AND a.id > :afterId)) ORDER BY a.startTime ASC, a.id ASC")
+    List<AppointmentView> findUpcomingAfter(@Param("userId") Long userId, @Param("now") OffsetDateTime now,
+            @Param("afterStart") OffsetDateTime afterStart, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * First page of a user's history: everything that is not upcoming, most
+     * recent first. Uses idx_appointment_user_start.
+     */
+    @Query("SELECT " + VIEW + " FROM Appointment a WHERE a.user.id = :userId "
+            + "AND (a.status <> " + BOOKED + " OR a.startTime < :now) ORDER BY a.startTime DESC, a.id DESC")
+    List<AppointmentView> findHistory(@Param("userId") Long userId, @Param("now") OffsetDateTime now, Limit limit);
+
+    // Next page before the keyset cursor (beforeStart, beforeId)
+    @Query("SELECT " + VIEW + " FROM Appointment a WHERE a.user.id = :userId "
+            + "AND (a.status <> " + BOOKED + " OR a.startTime < :now) AND (a.startTime < :beforeStart "
+            + "OR (a.startTime = :beforeStart AND a.id < :beforeId)) ORDER BY a.startTime DESC, a.id DESC")
+    List<AppointmentView> findHistoryBefore(@Param("userId") Long userId, @Param("now") OffsetDateTime now,
+            @Param("beforeStart") OffsetDateTime beforeStart, @Param("beforeId") Long beforeId, Limit limit);
+
+    /**
+     * Distinct customers with a booking whose name, email or phone contains
+     * {@code pattern} (a lower-case LIKE pattern), most recently booked
+     * first. The trigram indexes on these columns serve the infix match.
+     */
+    @Query("SELECT new com.example.booking.dto.CustomerMatch(a.customerName, a.customerEmail, a.customerPhone, "
+            + "MAX(a.user.id), MAX(a.startTime)) FROM Appointment a WHERE LOWER(a.customerName) LIKE :pattern "
+            + "ESCAPE '!' OR LOWER(a.customerEmail) LIKE :pattern ESCAPE '!' "
+            + "OR a.customerPhone LIKE :pattern ESCAPE '!' "
+            + "GROUP BY a.customerName, a.customerEmail, a.customerPhone ORDER BY MAX(a.startTime) DESC")
+    List<CustomerMatch> findCustomersMatching(@Param("pattern") String pattern, Limit limit);
+
+    // Customers booked within [from, to), with their next appointment, for the in-memory lookup index
+    @Query("SELECT new com.example.booking.dto.CustomerMatch(a.customerName, a.customerEmail, a.customerPhone, "
+            + "MAX(a.user.id), MIN(a.startTime)) FROM Appointment a WHERE a.status = " + BOOKED + " "
+            + "AND a.startTime >= :from AND a.startTime < :to "
+            + "GROUP BY a.customerName, a.customerEmail, a.customerPhone")
+    List<CustomerMatch> findCustomersBookedBetween(@Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to);
+
+    // Owner of an appointment, to refresh their calendar feed after a cancellation
+    @Query("SELECT a.user.id FROM Appointment a WHERE a.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
+
+    /**
+     * Marks a booked appointment as cancelled. Conditional on the current
+     * status, so repeated or concurrent cancellations succeed only once.
+     *
+     * @return 1 if the appointment was cancelled, 0 if it does not exist or is
+     *         no longer booked
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = " + CANCELLED + " WHERE a.id = :id AND a.status = " + BOOKED)
+    int cancelIfBooked(@Param("id") Long id);
+
+    /**
+     * Booked appointments on the slots starting within [from, to), optionally
+     * of one resource, with just the fields needed for notifications.
+     */
+    @Query("SELECT new com.example.booking.dto.CancelledBooking(a.id, a.customerName, a.customerEmail, "
+            + "a.startTime, a.endTime, a.user.id) FROM Appointment a JOIN a.timeSlot t WHERE a.status = " + BOOKED + " "
+            + "AND t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId)")
+    List<CancelledBooking> findBookedInSlotsStartingBetween(@Param("from") OffsetDateTime from,
+            @Param("to") OffsetDateTime to, @Param("resourceId") Long resourceId);
+
+    /**
+     * Cancels every booked appointment on the slots starting within [from, to)
+     * with one statement.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Appointment a SET a.status = " + CANCELLED + " WHERE a.status = " + BOOKED + " AND a.timeSlot.id IN "
+            + "(SELECT t.id FROM TimeSlot t WHERE t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId))")
+    int cancelBookedInSlotsStartingBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+            @Param("resourceId") Long resourceId);
+
+    /**
+     * Marks booked appointments that have ended as completed, which keeps the
+     * partial indexes on booked appointments small. Uses idx_appointment_booked_end.
+     */
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = " + COMPLETED + " WHERE a.status = " + BOOKED + " AND a.endTime < :now")
+    int completeEndedAppointments(@Param("now") OffsetDateTime now);
+}
@@ -0,0 +1,32 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.Appointment;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.List;
+
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Inserts all appointments with a single JDBC batch and assigns the
+     * generated IDs back onto them. Runs in the caller's transaction.
+     *
+     * Hibernate cannot batch inserts for IDENTITY keys, hence plain JDBC.
+     */
+    void batchInsert(List<Appointment> appointments);
+
+    /**
+     * Appointments matching the specification as projections, ordered by
+     * (startTime, id), at most {@code limit} of them. No count query is run,
+     * so the cost depends on the page, not on the number of matches.
+     */
+    List<AppointmentView> findViews(Specification<Appointment> spec, int limit);
+
+    /**
+     * Distinct customers with a booking whose name, email or phone contains a
+     * word similar to {@code term} (pg_trgm {@code <%}), best match first.
+     * Needs PostgreSQL with pg_trgm; elsewhere the query fails.
+     */
+    List<CustomerMatch> findCustomersSimilar(String term, int limit);
+}
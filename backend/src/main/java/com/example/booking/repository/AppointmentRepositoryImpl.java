@@ -0,0 +1,109 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.Appointment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+public class AppointmentRepositoryImpl implements AppointmentRepositoryCustom {
+    private static final String INSERT_SQL = "INSERT INTO appointment "
+            + "(customer_name, customer_email, customer_phone, location, service, status, "
+            + "start_time, end_time, user_id, time_slot_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // <% is pg_trgm's word similarity operator, which the trigram indexes serve
+    private static final String SIMILAR_CUSTOMERS_SQL = "SELECT customer_name, customer_email, customer_phone, "
+            + "MAX(user_id) AS user_id, MAX(start_time) AS start_time FROM appointment "
+            + "WHERE ? <% lower(customer_name) OR ? <% lower(customer_email) OR ? <% customer_phone "
+            + "GROUP BY customer_name, customer_email, customer_phone "
+            + "ORDER BY MAX(GREATEST(word_similarity(?, lower(customer_name)), "
+            + "word_similarity(?, lower(customer_email)), word_similarity(?, customer_phone))) DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public AppointmentRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(List<Appointment> appointments) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Appointment a = appointments.get(i);
+                        ps.setString(1, a.getCustomerName());
+                        ps.setString(2, a.getCustomerEmail());
+                        ps.setString(3, a.getCustomerPhone());
+                        ps.setString(4, a.getLocation());
+                        ps.setString(5, a.getService());
+                        ps.setString(6, a.getStatus().name());
+                        ps.setObject(7, a.getStartTime());
+                        ps.setObject(8, a.getEndTime());
+                        setNullableId(ps, 9, a.getUser() != null ? a.getUser().getId() : null);
+                        setNullableId(ps, 10, a.getTimeSlot() != null ? a.getTimeSlot().getId() : null);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return appointments.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < appointments.size(); i++) {
+            appointments.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
+    }
+
+    @Override
+    public List<CustomerMatch> findCustomersSimilar(String term, int limit) {
+        return jdbcTemplate.query(SIMILAR_CUSTOMERS_SQL, (rs, row) -> new CustomerMatch(
+                rs.getString("customer_name"), rs.getString("customer_email"), rs.getString("customer_phone"),
+                rs.getObject("user_id", Long.class), rs.getObject("start_time", OffsetDateTime.class)),
+                term, term, term, term, term, term, limit);
+    }
+
+    @Override
+    public List<AppointmentView> findViews(Specification<Appointment> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentView> query = cb.createQuery(AppointmentView.class);
+        Root<Appointment> a = query.from(Appointment.class);
+        query.select(cb.construct(AppointmentView.class, a.get("id"), a.get("customerName"),
+                a.get("customerEmail"), a.get("customerPhone"), a.get("location"), a.get("service"),
+                a.get("status"), a.get("startTime"), a.get("endTime"), a.get("timeSlot").get("id")));
+        Predicate predicate = spec.toPredicate(a, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(a.get("startTime")), cb.asc(a.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static void setNullableId(PreparedStatement ps, int index, Long id) throws SQLException {
+        if (id == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, id);
+        }
+    }
+}
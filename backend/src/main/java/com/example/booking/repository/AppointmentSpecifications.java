@@ -0,0 +1,86 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Predicates for the admin appointment search. Each filter maps onto the
+ * leading column of one of the composite indexes in indexes.sql, with
+ * (start_time, id) after it for the range and the keyset order.
+ */
+public final class AppointmentSpecifications {
+
+    private AppointmentSpecifications() {
+    }
+
+    /**
+     * All filters of the search that are set, combined with AND.
+     */
+    public static Specification<Appointment> matching(AppointmentSearch search) {
+        Specification<Appointment> spec = Specification.where(null);
+        if (search.getFrom() != null) {
+            spec = spec.and(startingFrom(search.getFrom()));
+        }
+        if (search.getTo() != null) {
+            spec = spec.and(startingBefore(search.getTo()));
+        }
+        if (search.getService() != null) {
+            spec = spec.and(hasService(search.getService()));
+        }
+        if (search.getLocation() != null) {
+            spec = spec.and(hasLocation(search.getLocation()));
+        }
+        if (search.getCustomerEmail() != null) {
+            spec = spec.and(hasCustomerEmail(search.getCustomerEmail()));
+        }
+        if (search.getUserId() != null) {
+            spec = spec.and(ofUser(search.getUserId()));
+        }
+        if (search.getStatus() != null) {
+            spec = spec.and(hasStatus(search.getStatus()));
+        }
+        return spec;
+    }
+
+    public static Specification<Appointment> startingFrom(OffsetDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("startTime"), from);
+    }
+
+    public static Specification<Appointment> startingBefore(OffsetDateTime to) {
+        return (root, query, cb) -> cb.lessThan(root.get("startTime"), to);
+    }
+
+    public static Specification<Appointment> hasService(String service) {
+        return (root, query, cb) -> cb.equal(root.get("service"), service);
+    }
+
+    public static Specification<Appointment> hasLocation(String location) {
+        return (root, query, cb) -> cb.equal(root.get("location"), location);
+    }
+
+    // Matches idx_appointment_email_start, which is on lower(customer_email)
+    public static Specification<Appointment> hasCustomerEmail(String email) {
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("customerEmail")), email.toLowerCase());
+    }
+
+    public static Specification<Appointment> ofUser(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Appointment> hasStatus(AppointmentStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * Rows after the keyset cursor (startTime, id) in ascending order.
+     */
+    public static Specification<Appointment> after(OffsetDateTime startTime, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("startTime"), startTime),
+                cb.and(cb.equal(root.get("startTime"), startTime), cb.greaterThan(root.get("id"), id)));
+    }
+}
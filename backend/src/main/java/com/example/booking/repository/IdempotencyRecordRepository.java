@@ -0,0 +1,54 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.OffsetDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims a key by inserting a pending record. Unlike {@code save()}, which
+     * merges, a plain INSERT fails with a duplicate key if any instance holds
+     * the key already.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key exists
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_record (scoped_key, request_fingerprint, status_code, expires_at, pending) "
+            + "VALUES (:scopedKey, :fingerprint, 0, :expiresAt, TRUE)", nativeQuery = true)
+    int insertPending(@Param("scopedKey") String scopedKey, @Param("fingerprint") String fingerprint,
+            @Param("expiresAt") OffsetDateTime expiresAt);
+
+    // Stores the response on a claimed key
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.pending = false, r.statusCode = :statusCode, "
+            + "r.contentType = :contentType, r.responseBody = :responseBody, r.expiresAt = :expiresAt "
+            + "WHERE r.scopedKey = :scopedKey")
+    int complete(@Param("scopedKey") String scopedKey, @Param("statusCode") int statusCode,
+            @Param("contentType") String contentType, @Param("responseBody") String responseBody,
+            @Param("expiresAt") OffsetDateTime expiresAt);
+
+    // Releases a claim that got no response stored, so a retry runs again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :scopedKey AND r.pending = true")
+    int deletePending(@Param("scopedKey") String scopedKey);
+
+    // An abandoned claim or an expired response must not block the key until the next purge
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :scopedKey AND r.expiresAt <= :now")
+    int deleteExpired(@Param("scopedKey") String scopedKey, @Param("now") OffsetDateTime now);
+
+    // Uses idx_idempotency_expires_at
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
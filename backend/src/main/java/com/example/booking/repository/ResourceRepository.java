@@ -0,0 +1,7 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.Resource;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ResourceRepository extends JpaRepository<Resource, Long> {
+}
@@ -0,0 +1,48 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.SlotHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface SlotHoldRepository extends JpaRepository<SlotHold, Long>, SlotHoldRepositoryCustom {
+
+    boolean existsByTimeSlotIdAndUserId(Long timeSlotId, Long userId);
+
+    /**
+     * Turns a live hold owned by the given user into a booking. The held seat
+     * stays counted on the slot; only the hold is removed.
+     *
+     * @return number of holds removed (1 if the hold was still valid, 0 otherwise)
+     */
+    @Modifying
+    @Query("DELETE FROM SlotHold h WHERE h.timeSlotId = :timeSlotId AND h.userId = :userId AND h.heldUntil > :now")
+    int confirmHold(@Param("timeSlotId") Long timeSlotId, @Param("userId") Long userId,
+            @Param("now") OffsetDateTime now);
+
+    /**
+     * Removes the user's hold on the slot. Callers give the seat back with
+     * {@link TimeSlotRepository#releaseSeats} when a hold was removed.
+     */
+    @Modifying
+    @Query("DELETE FROM SlotHold h WHERE h.timeSlotId = :timeSlotId AND h.userId = :userId")
+    int deleteHold(@Param("timeSlotId") Long timeSlotId, @Param("userId") Long userId);
+
+    /**
+     * Deletes all holds on the slots starting within [from, to), optionally of
+     * one resource. Only used when those slots are closed, which zeroes their
+     * seat counts, so no seats are given back here.
+     */
+    @Modifying
+    @Query("DELETE FROM SlotHold h WHERE h.timeSlotId IN (SELECT t.id FROM TimeSlot t "
+            + "WHERE t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId))")
+    int deleteHoldsOnSlotsStartingBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+            @Param("resourceId") Long resourceId);
+
+    // Uses idx_slot_hold_held_until
+    List<SlotHold> findByHeldUntilAfter(OffsetDateTime now);
+}
@@ -0,0 +1,22 @@
+package com.example.booking.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+public interface SlotHoldRepositoryCustom {
+
+    /**
+     * Deletes the listed holds whose deadline has passed and gives their seats
+     * back to the slots. Holds that were confirmed or released in the meantime
+     * no longer exist and are skipped.
+     *
+     * @return number of holds released
+     */
+    int releaseExpiredHolds(Collection<Long> holdIds, OffsetDateTime now);
+
+    /**
+     * Same as {@link #releaseExpiredHolds(Collection, OffsetDateTime)} for every
+     * hold whose deadline has passed.
+     */
+    int releaseAllExpiredHolds(OffsetDateTime now);
+}
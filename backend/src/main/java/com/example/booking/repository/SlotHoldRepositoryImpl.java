@@ -0,0 +1,69 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.SlotHold;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class SlotHoldRepositoryImpl implements SlotHoldRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int releaseExpiredHolds(Collection<Long> holdIds, OffsetDateTime now) {
+        return release(entityManager.createQuery(
+                "SELECT h FROM SlotHold h WHERE h.id IN :ids AND h.heldUntil <= :now", SlotHold.class)
+                .setParameter("ids", holdIds)
+                .setParameter("now", now));
+    }
+
+    // Uses idx_slot_hold_held_until
+    @Override
+    @Transactional
+    public int releaseAllExpiredHolds(OffsetDateTime now) {
+        return release(entityManager.createQuery(
+                "SELECT h FROM SlotHold h WHERE h.heldUntil <= :now", SlotHold.class)
+                .setParameter("now", now));
+    }
+
+    private int release(TypedQuery<SlotHold> expiredHolds) {
+        // Locking the holds makes a concurrent confirm or release wait, so a
+        // seat is never both booked and given back
+        List<SlotHold> expired = expiredHolds.setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(expired.size());
+        // Sorted so concurrent sweeps update slot rows in the same order
+        Map<Long, Integer> seatsPerSlot = new TreeMap<>();
+        for (SlotHold hold : expired) {
+            ids.add(hold.getId());
+            seatsPerSlot.merge(hold.getTimeSlotId(), 1, Integer::sum);
+        }
+
+        entityManager.createQuery("DELETE FROM SlotHold h WHERE h.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        for (Map.Entry<Long, Integer> entry : seatsPerSlot.entrySet()) {
+            entityManager.createQuery("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount - :seats, t.version = t.version + 1 "
+                    + "WHERE t.id = :id AND t.bookedCount >= :seats")
+                    .setParameter("seats", entry.getValue())
+                    .setParameter("id", entry.getKey())
+                    .executeUpdate();
+        }
+        entityManager.clear();
+        return expired.size();
+    }
+}
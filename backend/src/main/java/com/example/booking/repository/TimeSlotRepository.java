@@ -1,42 +1,175 @@
 package com.example.booking.repository;
 
 import com.example.booking.model.TimeSlot;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import com.example.booking.model.Appointment;
 
 public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
 
     /**
-     * Atomically marks a time slot as unavailable if it is currently available.
-     * This prevents race conditions where two users try to book the same slot.
+     * Atomically takes one seat on a time slot if it still has a free seat.
+     * This prevents race conditions where two users try to book the last seat.
      * 
      * @param id the time slot ID
-     * @return number of rows updated (1 if successful, 0 if slot was already
-     *         unavailable)
+     * @return number of rows updated (1 if successful, 0 if the slot was full)
      */
     @Modifying(clearAutomatically = true)
-    @Query("UPDATE TimeSlot t SET t.available = false WHERE t.id = :id AND t.available = true")
-    int markAsUnavailableIfAvailable(@Param("id") Long id);
+    @Query("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount + 1, t.version = t.version + 1 WHERE t.id = :id AND t.bookedCount < t.capacity")
+    int reserveSeatIfAvailable(@Param("id") Long id);
 
-    // Uses idx_timeslot_available
-    List<TimeSlot> findByAvailableTrue();
+    /**
+     * Atomically takes one seat on every listed time slot, but only on the ones
+     * that still have a free seat. Callers compare the row count with the
+     * number of IDs and roll back when some slots could not be claimed.
+     *
+     * @param ids the time slot IDs (without duplicates)
+     * @return number of slots claimed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount + 1, t.version = t.version + 1 WHERE t.id IN :ids AND t.bookedCount < t.capacity")
+    int reserveSeatsIfAvailable(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Gives seats back to a time slot, e.g. when an appointment is cancelled.
+     * Never takes the count below zero.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount - :seats, t.version = t.version + 1 WHERE t.id = :id AND t.bookedCount >= :seats")
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    /**
+     * Gives back the seat taken by an appointment; the slot is found through
+     * the appointment's foreign key in the same statement. Never takes the
+     * count below zero.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount - 1, t.version = t.version + 1 WHERE t.bookedCount > 0 "
+            + "AND t.id = (SELECT a.timeSlot.id FROM Appointment a WHERE a.id = :appointmentId)")
+    int releaseSeatOfAppointment(@Param("appointmentId") Long appointmentId);
+
+    /**
+     * Reschedules a slot and changes its number of seats, but only if the row
+     * is still at the given version and no more seats than the new capacity
+     * are booked or held. Bumps the schedule version as well.
+     *
+     * @return number of rows updated (1 if successful, 0 otherwise)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.startTime = :startTime, t.endTime = :endTime, t.capacity = :capacity, "
+            + "t.version = t.version + 1, t.scheduleVersion = t.scheduleVersion + 1 "
+            + "WHERE t.id = :id AND t.version = :version AND t.bookedCount <= :capacity")
+    int updateIfUnchanged(@Param("id") Long id, @Param("version") long version,
+            @Param("startTime") OffsetDateTime startTime, @Param("endTime") OffsetDateTime endTime,
+            @Param("capacity") int capacity);
+
+    /**
+     * Locks the slot an appointment is booked on. Cancellation takes this lock
+     * before touching the appointment row, the same slot-then-appointment
+     * order as the bulk path, so the two cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TimeSlot t WHERE t.id = (SELECT a.timeSlot.id FROM Appointment a WHERE a.id = :appointmentId)")
+    Optional<TimeSlot> lockSlotOfAppointment(@Param("appointmentId") Long appointmentId);
+
+    /**
+     * Locks the slots starting within [from, to), optionally of one resource,
+     * so no seat can be taken or released on them until the transaction ends.
+     * Rows are locked in id order, so overlapping ranges cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TimeSlot t WHERE t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId) ORDER BY t.id")
+    List<TimeSlot> lockSlotsStartingBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+            @Param("resourceId") Long resourceId);
 
-    // Uses idx_timeslot_time_range
-    @Query("SELECT t FROM TimeSlot t WHERE t.startTime < :end AND t.endTime > :start")
+    /**
+     * Gives back the seats of every booked appointment on the slots starting
+     * within [from, to). Must run before those appointments are cancelled.
+     * Seats taken by checkout holds stay counted.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.bookedCount = t.bookedCount - "
+            + "(SELECT COUNT(a) FROM Appointment a WHERE a.timeSlot.id = t.id AND a.status = " + AppointmentRepository.BOOKED + "), "
+            + "t.version = t.version + 1 "
+            + "WHERE t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId)")
+    int releaseBookedSeatsStartingBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+            @Param("resourceId") Long resourceId);
+
+    /**
+     * Closes the slots starting within [from, to) by taking all their seats
+     * away. Callers cancel the appointments and delete the holds on them in the
+     * same transaction.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TimeSlot t SET t.capacity = 0, t.bookedCount = 0, t.version = t.version + 1 "
+            + "WHERE t.startTime >= :from AND t.startTime < :to "
+            + "AND (:resourceId IS NULL OR t.resource.id = :resourceId)")
+    int closeSlotsStartingBetween(@Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to,
+            @Param("resourceId") Long resourceId);
+
+    long countByIdIn(Collection<Long> ids);
+
+    // Admin view: every slot with its live appointments in one query
+    @Query("SELECT t FROM TimeSlot t LEFT JOIN FETCH t.appointments ORDER BY t.startTime, t.id")
+    List<TimeSlot> findAllWithAppointments();
+
+    @Query("SELECT t FROM TimeSlot t LEFT JOIN FETCH t.appointments WHERE t.id = :id")
+    Optional<TimeSlot> findWithAppointmentsById(@Param("id") Long id);
+
+    // Uses idx_timeslot_open
+    @Query("SELECT t FROM TimeSlot t WHERE t.bookedCount < t.capacity")
+    List<TimeSlot> findAvailable();
+
+    // Slots without a resource; uses idx_timeslot_time_range
+    @Query("SELECT t FROM TimeSlot t WHERE t.resource IS NULL AND t.startTime < :end AND t.endTime > :start")
     List<TimeSlot> findOverlappingSlots(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
 
-    // Uses idx_timeslot_time_range
-    @Query("SELECT t FROM TimeSlot t WHERE t.id != :excludeId AND t.startTime < :end AND t.endTime > :start")
+    // Slots without a resource; uses idx_timeslot_time_range
+    @Query("SELECT t FROM TimeSlot t WHERE t.resource IS NULL AND t.id != :excludeId "
+            + "AND t.startTime < :end AND t.endTime > :start")
     List<TimeSlot> findOverlappingSlotsExcluding(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end,
             @Param("excludeId") Long excludeId);
 
-    @Query("SELECT t FROM TimeSlot t WHERE t.startTime = :start AND t.endTime = :end")
-    TimeSlot findByTime(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+    // Uses idx_timeslot_resource_start
+    @Query("SELECT t FROM TimeSlot t WHERE t.resource.id = :resourceId AND t.startTime < :end AND t.endTime > :start")
+    List<TimeSlot> findOverlappingSlotsForResource(@Param("resourceId") Long resourceId,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    // Uses idx_timeslot_resource_start
+    @Query("SELECT t FROM TimeSlot t WHERE t.resource.id = :resourceId AND t.id != :excludeId "
+            + "AND t.startTime < :end AND t.endTime > :start")
+    List<TimeSlot> findOverlappingSlotsForResourceExcluding(@Param("resourceId") Long resourceId,
+            @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end,
+            @Param("excludeId") Long excludeId);
+
+    /**
+     * Slots of one resource that still have a free seat and start within
+     * [from, to), ordered by start time. Uses idx_timeslot_resource_open.
+     */
+    @Query("SELECT t FROM TimeSlot t WHERE t.resource.id = :resourceId AND t.bookedCount < t.capacity "
+            + "AND t.startTime >= :from AND t.startTime < :to ORDER BY t.startTime")
+    List<TimeSlot> findAvailableForResource(@Param("resourceId") Long resourceId,
+            @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Unlinks the slot's cancelled appointments, which stay in the table as
+     * history but are hidden from {@link TimeSlot#getAppointments()}, so the
+     * slot can be deleted. They keep their own start and end times.
+     */
+    @Modifying
+    @Query("UPDATE Appointment a SET a.timeSlot = NULL WHERE a.timeSlot.id = :timeSlotId "
+            + "AND a.status = " + AppointmentRepository.CANCELLED)
+    int detachCancelledAppointments(@Param("timeSlotId") Long timeSlotId);
 
     @Query("SELECT a FROM Appointment a WHERE a.timeSlot.id = :timeSlotId")
     List<Appointment> findAppointmentsByTimeSlotId(@Param("timeSlotId") Long timeSlotId);
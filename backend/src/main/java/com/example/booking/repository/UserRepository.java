@@ -1,10 +1,47 @@
 package com.example.booking.repository;
 
+import com.example.booking.dto.CustomerMatch;
 import com.example.booking.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
+
+    // Used by the bulk import to skip hashing passwords of users that already exist
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Accounts whose username, email or phone contains the lower-case LIKE pattern; trigram-indexed
+    @Query("SELECT new com.example.booking.dto.CustomerMatch(u.username, u.email, u.phone, u.id) FROM User u "
+            + "WHERE LOWER(u.username) LIKE :pattern ESCAPE '!' OR LOWER(u.email) LIKE :pattern ESCAPE '!' "
+            + "OR u.phone LIKE :pattern ESCAPE '!' ORDER BY u.username")
+    List<CustomerMatch> findCustomersMatching(@Param("pattern") String pattern, Limit limit);
+
+    // Primary-key lookup of one column, for the token revocation check
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // Only replaces the hash that was verified, so a concurrent password change wins
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash,
+            @Param("newHash") String newHash);
 } 
\ No newline at end of file
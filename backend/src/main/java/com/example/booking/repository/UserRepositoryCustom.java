@@ -0,0 +1,25 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.User;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserts the users with one JDBC batch in its own transaction, skipping
+     * any whose username or email is already taken. The unique constraints
+     * decide, so concurrent registrations are handled too: if the batch hits
+     * one, it is rolled back and the users are inserted one at a time.
+     *
+     * @return per user, whether it was inserted
+     */
+    boolean[] insertSkippingDuplicates(List<User> users);
+
+    /**
+     * Accounts whose username, email or phone contains a word similar to
+     * {@code term} (pg_trgm {@code <%}), best match first. Needs PostgreSQL
+     * with pg_trgm; elsewhere the query fails.
+     */
+    List<CustomerMatch> findCustomersSimilar(String term, int limit);
+}
@@ -0,0 +1,81 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.User;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    private static final String INSERT_SQL = "INSERT INTO users "
+            + "(username, password, email, phone, role, token_version) VALUES (?, ?, ?, ?, ?, 0)";
+    // <% is pg_trgm's word similarity operator, which the trigram indexes serve
+    private static final String SIMILAR_CUSTOMERS_SQL = "SELECT id, username, email, phone FROM users "
+            + "WHERE ? <% lower(username) OR ? <% lower(email) OR ? <% phone "
+            + "ORDER BY GREATEST(word_similarity(?, lower(username)), word_similarity(?, lower(email)), "
+            + "word_similarity(?, phone)) DESC, username LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public boolean[] insertSkippingDuplicates(List<User> users) {
+        boolean[] inserted = new boolean[users.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setUser(ps, users.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }));
+            Arrays.fill(inserted, true);
+        } catch (DuplicateKeyException e) {
+            // Someone took one of these usernames or emails after the import checked;
+            // the batch was rolled back, so find the taken ones row by row
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(
+                            status -> jdbcTemplate.update(INSERT_SQL, ps -> setUser(ps, user)));
+                    inserted[i] = true;
+                } catch (DuplicateKeyException duplicate) {
+                    inserted[i] = false;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public List<CustomerMatch> findCustomersSimilar(String term, int limit) {
+        return jdbcTemplate.query(SIMILAR_CUSTOMERS_SQL, (rs, row) -> new CustomerMatch(rs.getString("username"),
+                rs.getString("email"), rs.getString("phone"), rs.getLong("id")),
+                term, term, term, term, term, term, limit);
+    }
+
+    private static void setUser(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getUsername());
+        ps.setString(2, user.getPassword());
+        ps.setString(3, user.getEmail());
+        ps.setString(4, user.getPhone());
+        ps.setString(5, user.getRole());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.booking.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * The caller as described by a verified JWT: user ID, username, role and the
+ * token version the JWT was issued with. Stored as the principal of the
+ * SecurityContext, so {@code Authentication.getName()} is still the username.
+ */
+public final class AuthenticatedUser implements AuthenticatedPrincipal {
+    private final Long id;
+    private final String username;
+    private final String role;
+    private final int tokenVersion;
+
+    public AuthenticatedUser(Long id, String username, String role, int tokenVersion) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.booking.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Tokens in calendar feed URLs, of the form
+ * {@code <userId>.<tokenVersion>.<signature>} with an HMAC-SHA256 signature
+ * of the user ID and token version. Calendar apps cannot send the JWT cookie,
+ * so the URL itself is the credential; it only grants reading the feed.
+ *
+ * The feed is only served while the version is the user's current one, so
+ * logging out everywhere ({@link com.example.booking.service.UserService#revokeTokens})
+ * also revokes a leaked feed URL. Changing {@code booking.calendar.secret}
+ * revokes every feed URL.
+ */
+@Component
+public class CalendarFeedTokenSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    // Keeps these signatures distinct from anything else signed with the same secret
+    private static final String DOMAIN = "calendar:";
+    // User ID as a decimal long, token version as a decimal int and an unpadded base64url SHA-256 MAC
+    private static final int MAX_TOKEN_LENGTH = 19 + 1 + 11 + 1 + 43;
+
+    private final ThreadLocal<Mac> macs;
+
+    public CalendarFeedTokenSigner(@Value("${booking.calendar.secret:${jwt.secret}}") String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
+
+    /**
+     * The user and token version a feed token was issued for. The caller
+     * still has to check that the version is current.
+     */
+    public record FeedToken(Long userId, int tokenVersion) {
+    }
+
+    public String sign(Long userId, int tokenVersion) {
+        String payload = userId + "." + tokenVersion;
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(mac(payload));
+    }
+
+    /**
+     * Returns the user and token version the token was issued for, or null if
+     * the token is malformed or forged.
+     */
+    public FeedToken verify(String token) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (first <= 0 || second <= first + 1) {
+            return null;
+        }
+
+        long userId;
+        int tokenVersion;
+        byte[] signature;
+        try {
+            userId = Long.parseLong(token, 0, first, 10);
+            tokenVersion = Integer.parseInt(token, first + 1, second, 10);
+            signature = Base64.getUrlDecoder().decode(token.substring(second + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        byte[] expected = mac(token.substring(0, second));
+        return MessageDigest.isEqual(expected, signature) ? new FeedToken(userId, tokenVersion) : null;
+    }
+
+    private byte[] mac(String payload) {
+        Mac mac = macs.get();
+        mac.update(DOMAIN.getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.booking.security;
 
+import com.example.booking.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -9,53 +15,118 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
+/**
+ * Issues and verifies the login JWTs.
+ * The signing key and parser are built once; both are immutable and shared
+ * by all request threads. Tokens carry the user's ID, role and token version
+ * next to the username, so a request can be authenticated without loading
+ * the user. Principals of verified tokens are cached until the token
+ * expires, so the cookie a browser sends on every request is verified once.
+ * Signature checks are timed as {@code booking.jwt.verify}, tagged with
+ * whether the token was valid; cache hits are counted as
+ * {@code booking.jwt.cache.hits}.
+ */
 @Component
 public class JwtUtil {
+    private final long EXPIRATION_TIME = 1000 * 60 * 60; // 1 hour
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String TOKEN_VERSION_CLAIM = "tv";
+    private static final int DEFAULT_VERIFIED_TOKEN_CACHE_SIZE = 100000;
 
-    @Value("${jwt.secret}")
-    private String secretString;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheHits;
 
-    private final long EXPIRATION_TIME = 1000 * 60 * 60; // 1 hour
+    public JwtUtil(String secretString) {
+        this(secretString, DEFAULT_VERIFIED_TOKEN_CACHE_SIZE, new SimpleMeterRegistry());
+    }
 
-    private SecretKey getSigningKey() {
+    @Autowired
+    public JwtUtil(@Value("${jwt.secret}") String secretString,
+            @Value("${booking.auth.verified-token-cache-size:" + DEFAULT_VERIFIED_TOKEN_CACHE_SIZE + "}") int cacheSize,
+            MeterRegistry meterRegistry) {
         // Ensure the secret is converted to bytes correctly
-        byte[] keyBytes = secretString.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.signingKey = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokens = new VerifiedTokenCache(cacheSize, System::currentTimeMillis);
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = Counter.builder("booking.jwt.cache.hits")
+                .description("Requests whose token was already verified").register(meterRegistry);
     }
 
-    public String generateToken(String username) {
+    public String generateToken(User user) {
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String extractUsername(String token) {
+    /**
+     * Verifies the token's signature and expiry once and returns its claims,
+     * or null if the token is malformed, expired, or invalid.
+     */
+    public Claims parseClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
+            return parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            // Returns null if the token is malformed, expired, or invalid
             return null;
         }
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token and returns the caller it was issued to, or null if
+     * the token is invalid or lacks the user claims (issued before they were
+     * added). A token seen before is answered from the cache without
+     * checking its signature again.
+     */
+    public AuthenticatedUser parsePrincipal(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        AuthenticatedUser cached = verifiedTokens.get(token);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Claims claims = parseClaims(token);
+        sample.stop(meterRegistry.timer("booking.jwt.verify", "valid", String.valueOf(claims != null)));
+        if (claims == null || claims.getExpiration() == null) {
+            return null;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            // This is where 'MalformedJwt' is caught and turned into a simple 'false'
-            return false;
+            Long userId = claims.get(USER_ID_CLAIM, Long.class);
+            String role = claims.get(ROLE_CLAIM, String.class);
+            Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+            if (userId == null || role == null || tokenVersion == null || claims.getSubject() == null) {
+                return null;
+            }
+            AuthenticatedUser principal = new AuthenticatedUser(userId, claims.getSubject(), role, tokenVersion);
+            verifiedTokens.put(token, principal, claims.getExpiration().getTime());
+            return principal;
+        } catch (RequiredTypeException e) {
+            return null;
         }
     }
-}
\ No newline at end of file
+
+    int cachedTokens() {
+        return verifiedTokens.size();
+    }
+
+    public String extractUsername(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+}
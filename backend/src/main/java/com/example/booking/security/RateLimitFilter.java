@@ -0,0 +1,185 @@
+package com.example.booking.security;
+
+import com.example.booking.web.CachedBodyRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-endpoint rate limits, checked before a request reaches a controller.
+ * Rules come from {@code booking.rate-limit.rules} as a comma-separated list
+ * of {@code METHOD PATH-PATTERN KEY BURST PER-MINUTE}, where the method may be
+ * {@code *} and the key is {@code ip} or {@code user}. A {@code user} key is the
+ * authenticated username, the {@code username} field of a login request, or
+ * the client IP otherwise. A body too large or too malformed to look for the
+ * username in counts against one bucket shared by all such requests, so
+ * padding a login cannot dodge the per-account limit. Every matching rule must
+ * have a token; if one does not, the request is answered with 429 and a
+ * {@code Retry-After} header.
+ *
+ * Runs right after {@link JwtAuthenticationFilter} so that limits can be
+ * scoped to the caller.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String DEFAULT_RULES = "GET /api/timeslots/** ip 60 600,"
+            + "GET /api/resources/** ip 60 600,"
+            + "POST /api/appointments/** user 30 60,"
+            + "POST /api/auth/login ip 20 30,"
+            + "POST /api/auth/login user 5 10,"
+            + "POST /api/auth/register ip 5 10";
+    // Login and registration bodies are tiny; anything larger is not parsed
+    private static final int MAX_PARSED_BODY = 4096;
+    // Bucket for user-keyed requests whose body could not be searched for a username
+    private static final String UNREADABLE_BODY_KEY = "body:unreadable";
+
+    private final List<Rule> rules;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    public RateLimitFilter(@Value("${booking.rate-limit.rules:" + DEFAULT_RULES + "}") String rules,
+            @Value("${booking.rate-limit.max-keys:100000}") int maxKeys, ObjectMapper objectMapper) {
+        this(rules, maxKeys, objectMapper, System::nanoTime);
+    }
+
+    RateLimitFilter(String rules, int maxKeys, ObjectMapper objectMapper, LongSupplier nanoTime) {
+        this.rules = parseRules(rules, maxKeys, nanoTime);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String username = authenticatedUsername();
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (!rule.matches(request.getMethod(), path, pathMatcher)) {
+                continue;
+            }
+            if (rule.byUser && username == null && !(request instanceof CachedBodyRequest)) {
+                CachedBodyRequest cached = CachedBodyRequest.read(request, MAX_PARSED_BODY);
+                if (cached == null && request.getContentLengthLong() < 0) {
+                    // Part of a chunked body was consumed, so it cannot be passed on
+                    writeError(response, 413, "Request body is too large");
+                    return;
+                }
+                if (cached != null) {
+                    request = cached;
+                }
+            }
+            long waitNanos = rule.limiter.tryAcquire(i + ":" + key(rule, username, request));
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Drops buckets that have refilled, keeping memory proportional to the
+     * number of recently active clients.
+     */
+    @Scheduled(fixedDelayString = "${booking.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        for (Rule rule : rules) {
+            rule.limiter.evictIdle();
+        }
+    }
+
+    private String key(Rule rule, String username, HttpServletRequest request) {
+        if (rule.byUser) {
+            if (username != null) {
+                return "user:" + username;
+            }
+            if (!(request instanceof CachedBodyRequest cached)) {
+                return UNREADABLE_BODY_KEY;
+            }
+            if (cached.getBody().length > 0) {
+                try {
+                    JsonNode user = objectMapper.readTree(cached.getBody()).get("username");
+                    if (user != null && user.isTextual()) {
+                        return "user:" + user.asText();
+                    }
+                } catch (IOException e) {
+                    return UNREADABLE_BODY_KEY; // Malformed bodies are rejected by the controller
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static String authenticatedUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        writeError(response, 429, "Too many requests. Try again in " + retryAfter + " seconds.");
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"message\":\"" + message + "\",\"error\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Rule> parseRules(String spec, int maxKeys, LongSupplier nanoTime) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split("\\s+");
+            if (parts.length != 5 || !("ip".equals(parts[2]) || "user".equals(parts[2]))) {
+                throw new IllegalArgumentException("Invalid rate limit rule: " + entry.trim());
+            }
+            String method = "*".equals(parts[0]) ? null : parts[0].toUpperCase();
+            RateLimiter limiter = new RateLimiter(Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), maxKeys,
+                    nanoTime);
+            parsed.add(new Rule(method, parts[1], "user".equals(parts[2]), limiter));
+        }
+        return List.copyOf(parsed);
+    }
+
+    private record Rule(String method, String pattern, boolean byUser, RateLimiter limiter) {
+        boolean matches(String requestMethod, String path, AntPathMatcher pathMatcher) {
+            return (method == null || method.equals(requestMethod)) && pathMatcher.match(pattern, path);
+        }
+    }
+}
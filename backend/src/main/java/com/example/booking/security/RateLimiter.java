@@ -0,0 +1,115 @@
+package com.example.booking.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by an arbitrary string, e.g. a client IP or username.
+ * Each bucket is a single {@link AtomicLong} holding the time at which it
+ * will be full again (the GCRA form of a token bucket), so taking a token is
+ * one compare-and-set and a bucket whose time has passed carries no state and
+ * can be dropped.
+ */
+public class RateLimiter {
+    private final long refillNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    // A full map is shrunk to this size, so the next shrink is maxKeys / 4 new keys away
+    private final int lowWaterKeys;
+    private final LongSupplier nanoTime;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock shrinking = new ReentrantLock();
+
+    /**
+     * @param burst     tokens a full bucket holds
+     * @param perMinute tokens added back per minute
+     * @param maxKeys   number of buckets kept before idle ones are evicted early
+     */
+    public RateLimiter(int burst, int perMinute, int maxKeys, LongSupplier nanoTime) {
+        if (burst < 1 || perMinute < 1) {
+            throw new IllegalArgumentException("Burst and rate must be at least 1");
+        }
+        this.refillNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.burstNanos = refillNanos * burst;
+        this.maxKeys = maxKeys;
+        this.lowWaterKeys = maxKeys - Math.max(1, maxKeys / 4);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is
+     *         available
+     */
+    public long tryAcquire(String key) {
+        long now = nanoTime.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                shrink(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + refillNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely. A caller racing with the
+     * eviction may get one extra token, never fewer.
+     *
+     * @return number of buckets dropped
+     */
+    public int evictIdle() {
+        long now = nanoTime.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Frees a quarter of the map in one pass, so the cost of scanning it is
+     * spread over the new keys that fill it up again. Callers that find a
+     * shrink already running go ahead and insert; the map may briefly hold a
+     * few keys more than maxKeys.
+     */
+    private void shrink(long now) {
+        if (!shrinking.tryLock()) {
+            return;
+        }
+        try {
+            if (buckets.size() < maxKeys) {
+                return; // another caller has just shrunk it
+            }
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            // Still mostly active keys: drop arbitrary ones, which only makes the
+            // limit more lenient for them
+            Iterator<String> keys = buckets.keySet().iterator();
+            while (buckets.size() > lowWaterKeys && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            shrinking.unlock();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.booking.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Principals of tokens whose signature has already been verified, keyed by
+ * the SHA-256 digest of the whole token (signature included), so a hit means
+ * the exact same token was verified before. Entries are dropped once the
+ * token's {@code exp} has passed.
+ *
+ * The map is bounded: when it grows past {@code maxEntries}, one thread drops
+ * expired entries and then the least recently used tenth. Lookups only
+ * update a timestamp, so hits never contend on a lock.
+ */
+public class VerifiedTokenCache {
+    private final int maxEntries;
+    private final LongSupplier currentTimeMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public VerifiedTokenCache(int maxEntries, LongSupplier currentTimeMillis) {
+        this.maxEntries = maxEntries;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * @return the principal the token was verified as, or null if it is not
+     *         cached or has expired
+     */
+    public AuthenticatedUser get(String token) {
+        if (maxEntries <= 0) {
+            return null;
+        }
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = currentTimeMillis.getAsLong();
+        if (now >= entry.expiresAt) {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastUsed = now;
+        return entry.principal;
+    }
+
+    public void put(String token, AuthenticatedUser principal, long expiresAt) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long now = currentTimeMillis.getAsLong();
+        if (now >= expiresAt) {
+            return;
+        }
+        entries.put(digest(token), new Entry(principal, expiresAt, now));
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        // Other writers keep inserting meanwhile; the map may overshoot briefly
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> now >= entry.expiresAt);
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            // Evict a batch so the sort is paid for once per maxEntries / 10 inserts
+            int toRemove = Math.min(entries.size(), excess + Math.max(1, maxEntries / 10));
+            // Read lastUsed once per entry; hits keep updating it during the sort
+            List<Candidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, entry) -> candidates.add(new Candidate(key, entry, entry.lastUsed)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (int i = 0; i < toRemove && i < candidates.size(); i++) {
+                entries.remove(candidates.get(i).key, candidates.get(i).entry);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            // One char per byte keeps the key at 32 bytes in a Latin-1 string
+            return new String(hash, StandardCharsets.ISO_8859_1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Candidate(String key, Entry entry, long lastUsed) {
+    }
+
+    private static final class Entry {
+        final AuthenticatedUser principal;
+        final long expiresAt;
+        volatile long lastUsed;
+
+        Entry(AuthenticatedUser principal, long expiresAt, long lastUsed) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.booking.service;
+
+import com.example.booking.config.AsyncConfig;
+import com.example.booking.dto.CancelledBooking;
+import com.example.booking.model.Appointment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends appointment emails off the request thread.
+ * Runs on the bounded platform-thread mail executor even in virtual-thread
+ * mode: the SMTP transport does its network I/O inside synchronized methods,
+ * which would pin a virtual thread's carrier for the whole send.
+ *
+ * Time spent talking to the SMTP server is published as
+ * {@code booking.mail.send} and failed sends as {@code booking.mail.failed},
+ * both tagged with the kind of email.
+ */
+@Component
+public class AppointmentMailer {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentMailer.class);
+    static final int NOTICE_CHUNK_SIZE = 100;
+
+    private final JavaMailSender mailSender;
+    private final Timer confirmationTimer;
+    private final Timer cancellationTimer;
+    private final Counter confirmationFailures;
+    private final Counter cancellationFailures;
+
+    public AppointmentMailer(JavaMailSender mailSender, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.confirmationTimer = Timer.builder("booking.mail.send").tag("type", "confirmation")
+                .register(meterRegistry);
+        this.cancellationTimer = Timer.builder("booking.mail.send").tag("type", "cancellation")
+                .register(meterRegistry);
+        this.confirmationFailures = Counter.builder("booking.mail.failed").tag("type", "confirmation")
+                .register(meterRegistry);
+        this.cancellationFailures = Counter.builder("booking.mail.failed").tag("type", "cancellation")
+                .register(meterRegistry);
+    }
+
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    public void sendConfirmation(Appointment appointment) {
+        String to = appointment.getCustomerEmail();
+        String subject = "Appointment Confirmation & Cancellation Link";
+        String cancelUrl = "http://localhost:8080/api/appointments/cancel/" + appointment.getCancellationToken();
+        String text = String.format(
+                "Dear %s,\n\nYour appointment is confirmed for %s - %s.\n\nIf you wish to cancel, click here: %s\n\nThank you!",
+                appointment.getCustomerName(),
+                appointment.getStartTime().toString(),
+                appointment.getEndTime().toString(),
+                cancelUrl);
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(text);
+            confirmationTimer.record(() -> mailSender.send(message));
+        } catch (MessagingException | MailException e) {
+            confirmationFailures.increment();
+            log.warn("Email failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends one cancellation notice per customer, listing all of their
+     * cancelled appointments. Messages go out in chunks over one SMTP
+     * connection each instead of one connection per message.
+     */
+    @Async(AsyncConfig.MAIL_EXECUTOR)
+    public void sendCancellationNotices(List<CancelledBooking> bookings) {
+        Map<String, List<CancelledBooking>> byCustomer = new LinkedHashMap<>();
+        for (CancelledBooking booking : bookings) {
+            if (booking.getCustomerEmail() != null) {
+                byCustomer.computeIfAbsent(booking.getCustomerEmail(), email -> new ArrayList<>()).add(booking);
+            }
+        }
+
+        List<MimeMessage> chunk = new ArrayList<>(NOTICE_CHUNK_SIZE);
+        for (Map.Entry<String, List<CancelledBooking>> customer : byCustomer.entrySet()) {
+            try {
+                chunk.add(cancellationNotice(customer.getKey(), customer.getValue()));
+            } catch (MessagingException e) {
+                cancellationFailures.increment();
+                log.warn("Email failed: {}", e.getMessage());
+            }
+            if (chunk.size() == NOTICE_CHUNK_SIZE) {
+                sendChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            sendChunk(chunk);
+        }
+    }
+
+    private MimeMessage cancellationNotice(String to, List<CancelledBooking> bookings) throws MessagingException {
+        StringBuilder times = new StringBuilder();
+        for (CancelledBooking booking : bookings) {
+            times.append("  - ").append(booking.getStartTime()).append(" - ").append(booking.getEndTime()).append('\n');
+        }
+        String text = String.format(
+                "Dear %s,\n\nWe are sorry, but the following appointments had to be cancelled:\n%s\nPlease book a new time at your convenience.\n\nThank you!",
+                bookings.get(0).getCustomerName(),
+                times);
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo(to);
+        helper.setSubject("Appointment Cancelled");
+        helper.setText(text);
+        return message;
+    }
+
+    private void sendChunk(List<MimeMessage> messages) {
+        try {
+            cancellationTimer.record(() -> mailSender.send(messages.toArray(new MimeMessage[0])));
+        } catch (MailException e) {
+            cancellationFailures.increment();
+            log.warn("Cancellation notices failed: {}", e.getMessage());
+        }
+    }
+}
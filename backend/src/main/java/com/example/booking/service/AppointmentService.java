@@ -1,53 +1,170 @@
 package com.example.booking.service;
 
+import com.example.booking.dto.AppointmentPage;
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.BulkCancellationResult;
+import com.example.booking.dto.CancelledBooking;
 import com.example.booking.model.Appointment;
 import com.example.booking.model.TimeSlot;
 import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.repository.AppointmentSpecifications;
+import com.example.booking.repository.SlotHoldRepository;
 import com.example.booking.repository.TimeSlotRepository;
+import com.example.booking.security.CancellationTokenSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import java.util.UUID;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import com.example.booking.model.User;
 
+/**
+ * Booking, cancellation and reads of appointments.
+ *
+ * Bookings are timed as {@code booking.appointment.book}, tagged with the
+ * operation and its outcome; {@code outcome=conflict} is a slot that was
+ * already full, i.e. the rate of 409 answers. Cancellations are timed as
+ * {@code booking.appointment.cancel}. Both timers cover the work inside the
+ * transaction, not the commit.
+ */
 @Service
 public class AppointmentService {
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+    static final int MAX_BATCH_SIZE = 50;
+    static final int MAX_BULK_CANCEL_DAYS = 31;
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
     private final AppointmentRepository appointmentRepository;
     private final TimeSlotRepository timeSlotRepository;
-    private final JavaMailSender mailSender;
+    private final SlotHoldRepository slotHoldRepository;
+    private final AppointmentMailer appointmentMailer;
+    private final CancellationTokenSigner cancellationTokenSigner;
+    private final CalendarFeedService calendarFeedService;
+    private final MeterRegistry meterRegistry;
+    private final Timer cancelTimer;
+    private final Timer bulkCancelTimer;
 
     public AppointmentService(AppointmentRepository appointmentRepository, TimeSlotRepository timeSlotRepository,
-            JavaMailSender mailSender) {
+            SlotHoldRepository slotHoldRepository, AppointmentMailer appointmentMailer,
+            CancellationTokenSigner cancellationTokenSigner, CalendarFeedService calendarFeedService,
+            MeterRegistry meterRegistry) {
         this.appointmentRepository = appointmentRepository;
         this.timeSlotRepository = timeSlotRepository;
-        this.mailSender = mailSender;
+        this.slotHoldRepository = slotHoldRepository;
+        this.appointmentMailer = appointmentMailer;
+        this.cancellationTokenSigner = cancellationTokenSigner;
+        this.calendarFeedService = calendarFeedService;
+        this.meterRegistry = meterRegistry;
+        this.cancelTimer = Timer.builder("booking.appointment.cancel").tag("operation", "single")
+                .register(meterRegistry);
+        this.bulkCancelTimer = Timer.builder("booking.appointment.cancel").tag("operation", "bulk")
+                .register(meterRegistry);
+    }
+
+    public List<AppointmentView> getAllAppointments() {
+        return appointmentRepository.findAllViews();
+    }
+
+    /**
+     * A page of the user's upcoming appointments (booked, starting now or
+     * later), soonest first.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     */
+    public AppointmentPage getUpcomingAppointments(Long userId, String after, int limit) {
+        int size = pageSize(limit);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<AppointmentView> rows;
+        if (after == null) {
+            rows = appointmentRepository.findUpcoming(userId, now, Limit.of(size + 1));
+        } else {
+            PageCursor cursor = PageCursor.decode(after);
+            rows = appointmentRepository.findUpcomingAfter(userId, now, cursor.startTime, cursor.id,
+                    Limit.of(size + 1));
+        }
+        return signCancellationTokens(page(rows, size));
     }
 
-    public List<Appointment> getAllAppointments() {
-        return appointmentRepository.findAll();
+    /**
+     * A page of the user's past, cancelled and completed appointments, most
+     * recent first.
+     *
+     * @param before cursor from the previous page, or null for the first page
+     */
+    public AppointmentPage getAppointmentHistory(Long userId, String before, int limit) {
+        int size = pageSize(limit);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<AppointmentView> rows;
+        if (before == null) {
+            rows = appointmentRepository.findHistory(userId, now, Limit.of(size + 1));
+        } else {
+            PageCursor cursor = PageCursor.decode(before);
+            rows = appointmentRepository.findHistoryBefore(userId, now, cursor.startTime, cursor.id,
+                    Limit.of(size + 1));
+        }
+        return signCancellationTokens(page(rows, size));
     }
 
-    public List<Appointment> getAppointmentsForUser(Long userId) {
-        return appointmentRepository.findByUserId(userId);
+    /**
+     * Admin search over all appointments, ordered by start time. Every filter
+     * is optional and pages are read with a keyset cursor, so deep pages cost
+     * the same as the first one. No cancellation tokens are issued.
+     *
+     * @param after cursor from the previous page, or null for the first page
+     * @throws IllegalArgumentException if the range is inverted or the cursor
+     *                                  is malformed
+     */
+    public AppointmentPage searchAppointments(AppointmentSearch search, String after, int limit) {
+        if (search.getFrom() != null && search.getTo() != null && !search.getFrom().isBefore(search.getTo())) {
+            throw new IllegalArgumentException("Range start must be before range end");
+        }
+        int size = pageSize(limit);
+        Specification<Appointment> spec = AppointmentSpecifications.matching(search);
+        if (after != null) {
+            PageCursor cursor = PageCursor.decode(after);
+            spec = spec.and(AppointmentSpecifications.after(cursor.startTime, cursor.id));
+        }
+        return page(appointmentRepository.findViews(spec, size + 1), size);
     }
 
-    public Optional<Appointment> getAppointment(Long id) {
-        return appointmentRepository.findById(id);
+    public Optional<AppointmentView> getAppointment(Long id) {
+        return appointmentRepository.findViewById(id);
     }
 
     @Transactional
     public Appointment bookAppointment(Appointment appointment, Long timeSlotId, User user) {
-        System.out.println("Booking appointment for slot ID: " + timeSlotId
-                + (user != null ? " for user: " + user.getUsername() : " as Guest"));
+        return timeBooking("single", () -> book(appointment, timeSlotId, user));
+    }
+
+    private Appointment book(Appointment appointment, Long timeSlotId, User user) {
+        log.debug("Booking appointment for slot ID: {} for user: {}", timeSlotId,
+                user != null ? user.getUsername() : "Guest");
 
-        // Atomic check-and-set: mark as unavailable only if currently available
-        int updated = timeSlotRepository.markAsUnavailableIfAvailable(timeSlotId);
+        // Atomic check-and-set: take a seat only if one is still free
+        int updated = timeSlotRepository.reserveSeatIfAvailable(timeSlotId);
 
         if (updated == 0) {
             if (!timeSlotRepository.existsById(timeSlotId)) {
@@ -56,6 +173,120 @@ public class AppointmentService {
             throw new IllegalStateException("Time slot is not available");
         }
 
+        return completeBooking(appointment, timeSlotId, user);
+    }
+
+    /**
+     * Books the slot held by the user through {@link SlotHoldService#holdSlot}.
+     * Fails if the hold has expired or belongs to someone else.
+     */
+    @Transactional
+    public Appointment confirmHeldAppointment(Appointment appointment, Long timeSlotId, User user) {
+        return timeBooking("hold", () -> confirmHold(appointment, timeSlotId, user));
+    }
+
+    private Appointment confirmHold(Appointment appointment, Long timeSlotId, User user) {
+        int updated = slotHoldRepository.confirmHold(timeSlotId, user.getId(), OffsetDateTime.now());
+
+        if (updated == 0) {
+            if (!timeSlotRepository.existsById(timeSlotId)) {
+                throw new IllegalArgumentException("Time slot not found");
+            }
+            throw new IllegalStateException("Hold has expired or is not held by this user");
+        }
+
+        return completeBooking(appointment, timeSlotId, user);
+    }
+
+    /**
+     * Books several time slots for one customer as a single unit: either every
+     * slot is claimed and booked, or none is.
+     * Seats are claimed with one set-based conditional update and the
+     * appointments are inserted with one JDBC batch.
+     *
+     * @param template    customer and service details copied onto each appointment
+     * @param timeSlotIds the slots to book
+     * @throws IllegalArgumentException if the list is empty, too large, has
+     *                                  duplicates or references unknown slots
+     * @throws IllegalStateException    if any of the slots is full
+     */
+    @Transactional
+    public List<Appointment> bookAppointments(Appointment template, List<Long> timeSlotIds, User user) {
+        return timeBooking("batch", () -> bookAll(template, timeSlotIds, user));
+    }
+
+    private List<Appointment> bookAll(Appointment template, List<Long> timeSlotIds, User user) {
+        if (timeSlotIds == null || timeSlotIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one time slot is required");
+        }
+        if (timeSlotIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot book more than " + MAX_BATCH_SIZE + " time slots at once");
+        }
+        Set<Long> ids = new LinkedHashSet<>(timeSlotIds);
+        if (ids.contains(null) || ids.size() != timeSlotIds.size()) {
+            throw new IllegalArgumentException("Time slot IDs must be unique");
+        }
+
+        int claimed = timeSlotRepository.reserveSeatsIfAvailable(ids);
+
+        if (claimed != ids.size()) {
+            // Throwing rolls back the seats that were claimed
+            if (timeSlotRepository.countByIdIn(ids) != ids.size()) {
+                throw new IllegalArgumentException("Time slot not found");
+            }
+            throw new IllegalStateException("One or more time slots are not available");
+        }
+
+        List<TimeSlot> slots = new ArrayList<>(timeSlotRepository.findAllById(ids));
+        slots.sort(Comparator.comparing(TimeSlot::getStartTime));
+
+        List<Appointment> appointments = new ArrayList<>(slots.size());
+        for (TimeSlot slot : slots) {
+            Appointment appointment = new Appointment();
+            appointment.setCustomerName(template.getCustomerName());
+            appointment.setCustomerEmail(template.getCustomerEmail());
+            appointment.setCustomerPhone(template.getCustomerPhone());
+            appointment.setLocation(template.getLocation());
+            appointment.setService(template.getService());
+            appointment.setTimeSlot(slot);
+            appointment.setStartTime(slot.getStartTime());
+            appointment.setEndTime(slot.getEndTime());
+            appointment.setUser(user);
+            appointments.add(appointment);
+        }
+
+        appointmentRepository.batchInsert(appointments);
+        if (user != null) {
+            invalidateCalendarFeed(user.getId());
+        }
+
+        for (Appointment appointment : appointments) {
+            issueCancellationToken(appointment);
+            sendAppointmentEmail(appointment);
+        }
+        return appointments;
+    }
+
+    // IllegalStateException is a full slot or lost hold (409), IllegalArgumentException a bad request (400)
+    private <T> T timeBooking(String operation, Supplier<T> booking) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = booking.get();
+            outcome = "booked";
+            return result;
+        } catch (IllegalStateException e) {
+            outcome = "conflict";
+            throw e;
+        } catch (IllegalArgumentException e) {
+            outcome = "invalid";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("booking.appointment.book", "operation", operation, "outcome", outcome));
+        }
+    }
+
+    private Appointment completeBooking(Appointment appointment, Long timeSlotId, User user) {
         // Slot is now reserved for this booking, complete the appointment
         TimeSlot timeSlot = timeSlotRepository.findById(timeSlotId).orElseThrow();
         appointment.setTimeSlot(timeSlot); // Link the association (Owning side)
@@ -72,74 +303,216 @@ public class AppointmentService {
             appointment.setUser(user);
         }
 
-        // Generate cancellation token
-        String token = UUID.randomUUID().toString();
-        appointment.setCancellationToken(token);
-
         Appointment saved = appointmentRepository.save(appointment);
-        System.out.println("Saved appointment ID: " + saved.getId() + " with TimeSlot ID: "
-                + (saved.getTimeSlot() != null ? saved.getTimeSlot().getId() : "NULL"));
+        log.debug("Saved appointment ID: {} with TimeSlot ID: {}", saved.getId(), timeSlotId);
+
+        // The token encodes the generated ID, so it can only be signed after the insert
+        issueCancellationToken(saved);
 
         // Send email
         sendAppointmentEmail(saved);
+        if (user != null) {
+            invalidateCalendarFeed(user.getId());
+        }
         return saved;
     }
 
+    // One row more than the page size is read to tell whether another page follows
+    private AppointmentPage page(List<AppointmentView> rows, int size) {
+        List<AppointmentView> appointments = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = rows.size() > size ? PageCursor.encode(appointments.get(size - 1)) : null;
+        return new AppointmentPage(appointments, nextCursor);
+    }
+
+    // Only for the owner's own pages; see issueCancellationToken
+    private AppointmentPage signCancellationTokens(AppointmentPage page) {
+        for (AppointmentView appointment : page.getAppointments()) {
+            if (appointment.getStartTime() != null) {
+                appointment.setCancellationToken(
+                        cancellationTokenSigner.sign(appointment.getId(), appointment.getStartTime()));
+            }
+        }
+        return page;
+    }
+
+    private static int pageSize(int limit) {
+        return limit < 1 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Keyset position (start time, ID) of the last appointment on a page,
+     * passed to clients as an opaque base64url string.
+     */
+    record PageCursor(OffsetDateTime startTime, Long id) {
+        static String encode(AppointmentView appointment) {
+            String key = appointment.getStartTime().toInstant() + "," + appointment.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) {
+            try {
+                String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = key.indexOf(',');
+                return new PageCursor(Instant.parse(key.substring(0, comma)).atOffset(ZoneOffset.UTC),
+                        Long.parseLong(key.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+        }
+    }
+
+    /**
+     * Signs a cancellation token for the appointment. The token stops working
+     * once the appointment has started; appointments without a start time get
+     * no token.
+     */
+    public Appointment issueCancellationToken(Appointment appointment) {
+        if (appointment.getId() != null && appointment.getStartTime() != null) {
+            appointment.setCancellationToken(
+                    cancellationTokenSigner.sign(appointment.getId(), appointment.getStartTime()));
+        }
+        return appointment;
+    }
+
     private void sendAppointmentEmail(Appointment appointment) {
-        String to = appointment.getCustomerEmail();
-        String subject = "Appointment Confirmation & Cancellation Link";
-        String cancelUrl = "http://localhost:8080/api/appointments/cancel/" + appointment.getCancellationToken();
-        String text = String.format(
-                "Dear %s,\n\nYour appointment is confirmed for %s - %s.\n\nIf you wish to cancel, click here: %s\n\nThank you!",
-                appointment.getCustomerName(),
-                appointment.getStartTime().toString(),
-                appointment.getEndTime().toString(),
-                cancelUrl);
+        afterCommit(() -> queueMail("confirmation", () -> appointmentMailer.sendConfirmation(appointment)));
+    }
+
+    private void sendCancellationNotices(List<CancelledBooking> bookings) {
+        afterCommit(() -> queueMail("cancellation", () -> appointmentMailer.sendCancellationNotices(bookings)));
+    }
+
+    // The change has committed by now, so a full mail queue drops the email instead of failing the request
+    private void queueMail(String type, Runnable send) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(text);
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            System.err.println("Email failed: " + e.getMessage());
+            send.run();
+        } catch (TaskRejectedException e) {
+            meterRegistry.counter("booking.mail.failed", "type", type).increment();
+            log.warn("Mail queue is full, dropped a {} email", type);
         }
     }
 
-    @Transactional
-    public void cancelAppointment(Long id) {
-        appointmentRepository.findById(id).ifPresent(appointment -> {
-            TimeSlot slot = appointment.getTimeSlot();
-            if (slot == null) {
-                // Fallback for appointments where the FK was null
-                slot = timeSlotRepository.findByTime(appointment.getStartTime(), appointment.getEndTime());
-            }
+    // After commit, so a poll cannot re-cache the feed from the old rows
+    private void invalidateCalendarFeed(Long userId) {
+        afterCommit(() -> calendarFeedService.invalidate(userId));
+    }
+
+    /**
+     * Hands email to the mail executor once the transaction has committed, so
+     * SMTP latency never holds a request thread, a database connection or the
+     * slot row locks, and nothing is sent for a rolled-back change.
+     */
+    private static void afterCommit(Runnable send) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
+        } else {
+            send.run();
+        }
+    }
 
-            if (slot != null) {
-                slot.setAvailable(true);
-                timeSlotRepository.save(slot);
+    /**
+     * Cancels a booked appointment and gives its seat back with two conditional
+     * updates. Only the call that flips the status releases the seat, so
+     * repeated cancellations never free a seat twice. The slot is locked first,
+     * in the same order as {@link #cancelAppointmentsInRange}, so a single and
+     * a bulk cancellation cannot deadlock. The appointment row is kept as
+     * history.
+     *
+     * @return true if the appointment was booked and is now cancelled
+     */
+    @Transactional
+    public boolean cancelAppointment(Long id) {
+        return cancelTimer.record(() -> {
+            timeSlotRepository.lockSlotOfAppointment(id);
+            if (appointmentRepository.cancelIfBooked(id) == 0) {
+                return false;
             }
-            appointmentRepository.delete(appointment);
+            timeSlotRepository.releaseSeatOfAppointment(id);
+            appointmentRepository.findUserIdById(id).ifPresent(this::invalidateCalendarFeed);
+            return true;
         });
     }
 
+    /**
+     * Cancels the appointment a signed token was issued for. Forged, malformed
+     * and expired tokens are rejected before any database access.
+     */
     @Transactional
     public boolean cancelAppointmentByToken(String token) {
-        Appointment appointment = appointmentRepository.findByCancellationToken(token);
-        if (appointment == null)
-            return false;
+        Long appointmentId = cancellationTokenSigner.verify(token);
+        return appointmentId != null && cancelAppointment(appointmentId);
+    }
+
+    /**
+     * Cancels every booked appointment on the slots starting within [from, to),
+     * e.g. when a provider is off sick, and notifies each affected customer
+     * once after commit.
+     * The slots are locked first, so no booking can slip in between the steps;
+     * everything else is a handful of set-based statements regardless of how
+     * many appointments are affected.
+     *
+     * @param resourceId only cancel on this resource's calendar; null for all
+     * @param closeSlots take all seats away from the slots instead of reopening
+     *                   them; holds on the slots are dropped as well
+     * @throws IllegalArgumentException if the range is empty, inverted or
+     *                                  longer than {@link #MAX_BULK_CANCEL_DAYS} days
+     */
+    @Transactional
+    public BulkCancellationResult cancelAppointmentsInRange(OffsetDateTime from, OffsetDateTime to, Long resourceId,
+            boolean closeSlots) {
+        return bulkCancelTimer.record(() -> cancelInRange(from, to, resourceId, closeSlots));
+    }
 
-        TimeSlot slot = appointment.getTimeSlot();
-        if (slot == null) {
-            slot = timeSlotRepository.findByTime(appointment.getStartTime(), appointment.getEndTime());
+    private BulkCancellationResult cancelInRange(OffsetDateTime from, OffsetDateTime to, Long resourceId,
+            boolean closeSlots) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before range end");
+        }
+        if (from.plusDays(MAX_BULK_CANCEL_DAYS).isBefore(to)) {
+            throw new IllegalArgumentException("Cannot cancel more than " + MAX_BULK_CANCEL_DAYS + " days at once");
         }
 
-        if (slot != null) {
-            slot.setAvailable(true);
-            timeSlotRepository.save(slot);
+        int slots = timeSlotRepository.lockSlotsStartingBetween(from, to, resourceId).size();
+        List<CancelledBooking> bookings = appointmentRepository.findBookedInSlotsStartingBetween(from, to,
+                resourceId);
+
+        if (closeSlots) {
+            slotHoldRepository.deleteHoldsOnSlotsStartingBetween(from, to, resourceId);
+            timeSlotRepository.closeSlotsStartingBetween(from, to, resourceId);
+        } else if (!bookings.isEmpty()) {
+            timeSlotRepository.releaseBookedSeatsStartingBetween(from, to, resourceId);
         }
-        appointmentRepository.delete(appointment);
-        return true;
+        int cancelled = bookings.isEmpty() ? 0
+                : appointmentRepository.cancelBookedInSlotsStartingBetween(from, to, resourceId);
+        log.info("Cancelled {} appointments on {} slots between {} and {}", cancelled, slots, from, to);
+
+        long customers = bookings.stream()
+                .map(CancelledBooking::getCustomerEmail)
+                .filter(Objects::nonNull)
+                .distinct()
+                .count();
+        if (!bookings.isEmpty()) {
+            sendCancellationNotices(bookings);
+            bookings.stream()
+                    .map(CancelledBooking::getUserId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(this::invalidateCalendarFeed);
+        }
+        return new BulkCancellationResult(cancelled, slots, (int) customers, closeSlots);
+    }
+
+    /**
+     * Moves appointments that have ended from BOOKED to COMPLETED.
+     */
+    @Scheduled(fixedDelayString = "${booking.appointment.complete-interval-ms:300000}")
+    @Transactional
+    public int completeEndedAppointments() {
+        return appointmentRepository.completeEndedAppointments(OffsetDateTime.now());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user iCalendar feeds of upcoming appointments, for calendar apps that
+ * poll the same URL every few minutes.
+ *
+ * Rendered feeds are cached per user until a booking or cancellation of
+ * theirs commits, or for at most {@code booking.calendar.max-age-seconds} so
+ * past appointments drop off. A poll that finds a cached feed does no
+ * database work. A re-render that produces the same events keeps the
+ * previous body, ETag and Last-Modified, so clients keep getting 304s.
+ */
+@Service
+public class CalendarFeedService {
+    static final int MAX_EVENTS = 500;
+    private static final DateTimeFormatter UTC_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+    // RFC 5545 content lines are at most 75 octets before folding
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final AppointmentRepository appointmentRepository;
+    private final Clock clock;
+    private final Map<Long, Entry> feeds = new ConcurrentHashMap<>();
+
+    @Value("${booking.calendar.max-age-seconds:3600}")
+    private long maxAgeSeconds = 3600;
+
+    @Value("${booking.calendar.cache-size:10000}")
+    private int maxEntries = 10000;
+
+    @Autowired
+    public CalendarFeedService(AppointmentRepository appointmentRepository) {
+        this(appointmentRepository, Clock.systemUTC());
+    }
+
+    CalendarFeedService(AppointmentRepository appointmentRepository, Clock clock) {
+        this.appointmentRepository = appointmentRepository;
+        this.clock = clock;
+    }
+
+    /**
+     * A rendered feed. {@code etag} is already quoted.
+     */
+    public record CalendarFeed(byte[] body, String etag, Instant lastModified) {
+    }
+
+    public CalendarFeed getFeed(Long userId) {
+        Instant now = clock.instant();
+        Entry entry = feeds.get(userId);
+        if (entry != null && entry.feed != null && now.isBefore(entry.expiresAt)) {
+            return entry.feed;
+        }
+
+        // Claim the slot before reading, so a booking that commits meanwhile replaces the claim
+        Entry claim = feeds.computeIfAbsent(userId, id -> new Entry(null, Instant.MIN));
+        evictIfFull();
+        List<AppointmentView> appointments = appointmentRepository.findUpcoming(userId,
+                now.atOffset(ZoneOffset.UTC), Limit.of(MAX_EVENTS));
+        String etag = etag(appointments);
+        CalendarFeed feed = claim.feed != null && claim.feed.etag().equals(etag)
+                ? claim.feed
+                : new CalendarFeed(render(appointments, now), etag, now.truncatedTo(ChronoUnit.SECONDS));
+
+        // Only cached if nothing replaced or evicted the claim while rendering
+        feeds.computeIfPresent(userId, (id, current) -> current == claim
+                ? new Entry(feed, now.plusSeconds(maxAgeSeconds)) : current);
+        return feed;
+    }
+
+    /**
+     * Drops the user's cached feed. Called after a booking or cancellation of
+     * theirs has committed. Users without a cached or rendering feed are left
+     * out of the cache.
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            feeds.computeIfPresent(userId, (id, current) -> new Entry(null, Instant.MIN));
+        }
+    }
+
+    int size() {
+        return feeds.size();
+    }
+
+    // A miss only costs one query, so any entry will do; an evicted claim just leaves its render uncached
+    private void evictIfFull() {
+        Iterator<Long> users = feeds.keySet().iterator();
+        while (feeds.size() > maxEntries && users.hasNext()) {
+            users.next();
+            users.remove();
+        }
+    }
+
+    // Hash of the event fields only, so re-rendering unchanged events keeps the ETag
+    private static String etag(List<AppointmentView> appointments) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (AppointmentView a : appointments) {
+                String fields = a.getId() + "|" + a.getStartTime().toInstant() + "|"
+                        + (a.getEndTime() != null ? a.getEndTime().toInstant() : "") + "|" + a.getService() + "|"
+                        + a.getLocation() + "|" + a.getStatus() + "\n";
+                digest.update(fields.getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static byte[] render(List<AppointmentView> appointments, Instant stamp) {
+        StringBuilder out = new StringBuilder(256 + appointments.size() * 256);
+        line(out, "BEGIN:VCALENDAR");
+        line(out, "VERSION:2.0");
+        line(out, "PRODID:-//BookingSystem//Appointments//EN");
+        line(out, "CALSCALE:GREGORIAN");
+        line(out, "METHOD:PUBLISH");
+        line(out, "X-WR-CALNAME:My appointments");
+        String dtstamp = UTC_STAMP.format(stamp);
+        for (AppointmentView a : appointments) {
+            line(out, "BEGIN:VEVENT");
+            line(out, "UID:appointment-" + a.getId() + "@booking-system");
+            line(out, "DTSTAMP:" + dtstamp);
+            line(out, "DTSTART:" + UTC_STAMP.format(a.getStartTime()));
+            OffsetDateTime end = a.getEndTime() != null ? a.getEndTime() : a.getStartTime().plusHours(1);
+            line(out, "DTEND:" + UTC_STAMP.format(end));
+            line(out, "SUMMARY:" + escape(a.getService() != null ? a.getService() : "Appointment"));
+            if (a.getLocation() != null) {
+                line(out, "LOCATION:" + escape(a.getLocation()));
+            }
+            line(out, "STATUS:CONFIRMED");
+            line(out, "END:VEVENT");
+        }
+        line(out, "END:VCALENDAR");
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String escape(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
+    }
+
+    // Appends a CRLF-terminated line, folded so no physical line exceeds 75 octets
+    private static void line(StringBuilder out, String content) {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            out.appendCodePoint(codePoint);
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        out.append("\r\n");
+    }
+
+    // Compared by identity: a render only replaces the exact entry it claimed
+    private static final class Entry {
+        final CalendarFeed feed;
+        final Instant expiresAt;
+
+        Entry(CalendarFeed feed, Instant expiresAt) {
+            this.feed = feed;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Type-ahead customer lookup for the front desk, by part of a name, email or
+ * phone number.
+ *
+ * Customers booked within the next {@code booking.customer-search.window-days}
+ * are answered by prefix from an in-memory index, rebuilt every
+ * {@code booking.customer-search.refresh-ms}. When that gives fewer than the
+ * requested matches, appointments and then accounts are searched with infix
+ * LIKE queries, and if those still come up short, by trigram word similarity
+ * so that a typo still finds the customer. The pg_trgm GIN indexes in
+ * indexes.sql serve both on PostgreSQL; without pg_trgm (H2 in tests) the
+ * query is rejected as bad SQL and the similarity search is switched off.
+ * Any other database error only skips it for that one search.
+ */
+@Service
+public class CustomerSearchService {
+    static final int MIN_QUERY_LENGTH = 2;
+    // Trigram indexes cannot narrow down shorter infix patterns
+    static final int MIN_DATABASE_QUERY_LENGTH = 3;
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchService.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final UserRepository userRepository;
+
+    @Value("${booking.customer-search.window-days:7}")
+    private int windowDays = 7;
+
+    // Replaced as a whole on refresh, so lookups never see a half-built index
+    private volatile PrefixIndex upcoming = PrefixIndex.build(List.of());
+
+    private volatile boolean similarityAvailable = true;
+
+    public CustomerSearchService(AppointmentRepository appointmentRepository, UserRepository userRepository) {
+        this.appointmentRepository = appointmentRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Customers matching the query, upcoming ones first, each at most once.
+     *
+     * @throws IllegalArgumentException if the query is shorter than
+     *                                  {@link #MIN_QUERY_LENGTH} characters
+     */
+    public List<CustomerMatch> search(String query, int limit) {
+        String term = normalize(query);
+        if (term.length() < MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search needs at least " + MIN_QUERY_LENGTH + " characters");
+        }
+        int size = limit < 1 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+
+        Map<String, CustomerMatch> matches = new LinkedHashMap<>();
+        addAll(matches, upcoming.find(term, size));
+        if (matches.size() < size && term.length() >= MIN_DATABASE_QUERY_LENGTH) {
+            String pattern = "%" + escapeLike(term) + "%";
+            addAll(matches, appointmentRepository.findCustomersMatching(pattern, Limit.of(size)));
+            if (matches.size() < size) {
+                addAll(matches, userRepository.findCustomersMatching(pattern, Limit.of(size)));
+            }
+            if (matches.size() < size) {
+                addSimilar(matches, term, size);
+            }
+        }
+        return matches.values().stream().limit(size).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.customer-search.refresh-ms:60000}")
+    public void refreshUpcomingIndex() {
+        OffsetDateTime now = OffsetDateTime.now();
+        upcoming = PrefixIndex.build(appointmentRepository.findCustomersBookedBetween(now, now.plusDays(windowDays)));
+    }
+
+    private void addSimilar(Map<String, CustomerMatch> matches, String term, int size) {
+        if (!similarityAvailable) {
+            return;
+        }
+        try {
+            addAll(matches, appointmentRepository.findCustomersSimilar(term, size));
+            if (matches.size() < size) {
+                addAll(matches, userRepository.findCustomersSimilar(term, size));
+            }
+        } catch (BadSqlGrammarException e) {
+            similarityAvailable = false;
+            log.warn("Similarity search unavailable (is pg_trgm installed?), using infix matches only", e);
+        } catch (DataAccessException e) {
+            log.warn("Similarity search failed, returning infix matches only", e);
+        }
+    }
+
+    int indexedKeys() {
+        return upcoming.size();
+    }
+
+    // The same person can match as a guest booking, a booking of their account and the account itself
+    private static void addAll(Map<String, CustomerMatch> matches, List<CustomerMatch> found) {
+        for (CustomerMatch match : found) {
+            String key = match.getEmail() != null ? match.getEmail().toLowerCase(Locale.ROOT)
+                    : match.getName() + "|" + match.getPhone();
+            matches.putIfAbsent(key, match);
+        }
+    }
+
+    // Lower case; a phone number typed with separators is reduced to its digits
+    static String normalize(String query) {
+        String term = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        String digits = term.replaceAll("[\\s().+-]", "");
+        return !digits.isEmpty() && digits.chars().allMatch(Character::isDigit) ? digits : term;
+    }
+
+    static String escapeLike(String term) {
+        return term.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Sorted map from lower-case keys (each word of the name, the whole name,
+     * the email and the phone) to customers, so a prefix is a range scan.
+     */
+    static final class PrefixIndex {
+        private final NavigableMap<String, List<CustomerMatch>> keys;
+
+        private PrefixIndex(NavigableMap<String, List<CustomerMatch>> keys) {
+            this.keys = keys;
+        }
+
+        static PrefixIndex build(List<CustomerMatch> customers) {
+            TreeMap<String, List<CustomerMatch>> keys = new TreeMap<>();
+            for (CustomerMatch customer : customers) {
+                for (String key : keysOf(customer)) {
+                    keys.computeIfAbsent(key, k -> new ArrayList<>(1)).add(customer);
+                }
+            }
+            return new PrefixIndex(keys);
+        }
+
+        List<CustomerMatch> find(String prefix, int limit) {
+            Set<CustomerMatch> found = new LinkedHashSet<>();
+            for (List<CustomerMatch> customers : keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    .values()) {
+                for (CustomerMatch customer : customers) {
+                    found.add(customer);
+                    if (found.size() >= limit) {
+                        return new ArrayList<>(found);
+                    }
+                }
+            }
+            return new ArrayList<>(found);
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        private static Set<String> keysOf(CustomerMatch customer) {
+            Set<String> keys = new LinkedHashSet<>();
+            if (customer.getName() != null && !customer.getName().isBlank()) {
+                String name = customer.getName().trim().toLowerCase(Locale.ROOT);
+                keys.add(name);
+                for (String word : name.split("\\s+")) {
+                    keys.add(word);
+                }
+            }
+            if (customer.getEmail() != null) {
+                keys.add(customer.getEmail().toLowerCase(Locale.ROOT));
+            }
+            if (customer.getPhone() != null) {
+                keys.add(customer.getPhone());
+            }
+            return keys;
+        }
+    }
+}
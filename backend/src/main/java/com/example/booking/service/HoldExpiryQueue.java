@@ -0,0 +1,67 @@
+package com.example.booking.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory expiry schedule for slot holds.
+ * Backed by a {@link DelayQueue}, so draining only touches holds whose deadline
+ * has passed (O(log n) each) instead of scanning every live hold per tick.
+ */
+public class HoldExpiryQueue {
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    private final Clock clock;
+
+    public HoldExpiryQueue(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void schedule(Long holdId, Instant deadline) {
+        queue.put(new Expiry(holdId, deadline.toEpochMilli(), clock));
+    }
+
+    /**
+     * Removes and returns up to {@code maxBatch} hold IDs whose deadline has
+     * passed. Returns an empty list when nothing is due.
+     */
+    public List<Long> drainExpired(int maxBatch) {
+        List<Expiry> expired = new ArrayList<>();
+        queue.drainTo(expired, maxBatch);
+        List<Long> ids = new ArrayList<>(expired.size());
+        for (Expiry expiry : expired) {
+            ids.add(expiry.holdId);
+        }
+        return ids;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private static final class Expiry implements Delayed {
+        private final Long holdId;
+        private final long deadlineMillis;
+        private final Clock clock;
+
+        private Expiry(Long holdId, long deadlineMillis, Clock clock) {
+            this.holdId = holdId;
+            this.deadlineMillis = deadlineMillis;
+            this.clock = clock;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineMillis - clock.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadlineMillis, ((Expiry) other).deadlineMillis);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.booking.service;
+
+import com.example.booking.model.IdempotencyRecord;
+import com.example.booking.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Response store for idempotent retries.
+ * Recent responses are kept in a bounded in-memory LRU map; the database table is
+ * the source of truth, so entries evicted from memory (or lost on restart) are
+ * still answered until they expire. A key is claimed by inserting its record
+ * as pending before the request runs, so duplicates are turned away on every
+ * instance, not just the one running the original.
+ */
+@Service
+public class IdempotencyService {
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    // Access-ordered, so a full map drops the least recently used entry in O(1)
+    private final Map<String, IdempotencyRecord> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                    return size() > maxCachedEntries;
+                }
+            });
+
+    @Value("${booking.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    // A claim left by a crashed request stops blocking its key after this long
+    @Value("${booking.idempotency.pending-timeout-seconds:300}")
+    private long pendingTimeoutSeconds;
+
+    @Value("${booking.idempotency.max-cached-entries:10000}")
+    private int maxCachedEntries;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+    }
+
+    /**
+     * Returns the record for the key, if one exists and has not expired: a
+     * stored response, or a pending claim whose request is still running.
+     * Checks memory first and falls back to the database.
+     */
+    public Optional<IdempotencyRecord> find(String scopedKey) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        IdempotencyRecord cached = cache.get(scopedKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return Optional.of(cached);
+            }
+            cache.remove(scopedKey, cached);
+        }
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(scopedKey)
+                .filter(record -> !record.isExpired(now));
+        stored.filter(record -> !record.isPending()).ifPresent(this::cache);
+        return stored;
+    }
+
+    /**
+     * Claims the key for a request about to run.
+     *
+     * @return false if the key is claimed by a running request or already has
+     *         a stored response
+     */
+    public boolean tryBegin(String scopedKey, String requestFingerprint) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        if (insertPending(scopedKey, requestFingerprint, now)) {
+            return true;
+        }
+        // The key may only be held by an expired record that the purge has not removed yet
+        return idempotencyRecordRepository.deleteExpired(scopedKey, now) > 0
+                && insertPending(scopedKey, requestFingerprint, now);
+    }
+
+    /**
+     * Releases the claim on the key unless a response was stored for it, so
+     * that a retry runs the request again.
+     */
+    public void finish(String scopedKey) {
+        idempotencyRecordRepository.deletePending(scopedKey);
+    }
+
+    // Stores the response on a key claimed with tryBegin
+    public IdempotencyRecord store(String scopedKey, String requestFingerprint, int statusCode, String contentType,
+            String responseBody) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopedKey(scopedKey);
+        record.setRequestFingerprint(requestFingerprint);
+        record.setStatusCode(statusCode);
+        record.setContentType(contentType);
+        record.setResponseBody(responseBody);
+        record.setExpiresAt(OffsetDateTime.now(ZoneOffset.UTC).plusSeconds(ttlSeconds));
+
+        idempotencyRecordRepository.complete(scopedKey, statusCode, contentType, responseBody,
+                record.getExpiresAt());
+        cache(record);
+        return record;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        synchronized (cache) {
+            cache.values().removeIf(record -> record.isExpired(now));
+        }
+        idempotencyRecordRepository.deleteExpired(now);
+    }
+
+    private boolean insertPending(String scopedKey, String requestFingerprint, OffsetDateTime now) {
+        try {
+            idempotencyRecordRepository.insertPending(scopedKey, requestFingerprint,
+                    now.plusSeconds(pendingTimeoutSeconds));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    int cachedEntries() {
+        return cache.size();
+    }
+
+    // Evicted entries are still answered from the database
+    private void cache(IdempotencyRecord record) {
+        cache.put(record.getScopedKey(), record);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt hashing on a small dedicated pool, so a burst of logins or
+ * registrations keeps a bounded number of cores busy instead of every Tomcat
+ * thread. When the queue is full, or a hash has waited longer than
+ * {@code booking.auth.hash.timeout-ms}, the call fails fast with
+ * {@link RejectedExecutionException} and the caller answers 503.
+ *
+ * Queue depth, active hashes, queue wait, hash time and rejections are
+ * published as {@code booking.password.hash.*} meters.
+ */
+@Service
+public class PasswordHashingService {
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final int strength;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(@Value("${booking.auth.bcrypt-strength:10}") int strength,
+            @Value("${booking.auth.hash.pool-size:2}") int poolSize,
+            @Value("${booking.auth.hash.queue-capacity:32}") int queueCapacity,
+            @Value("${booking.auth.hash.timeout-ms:5000}") long timeoutMillis,
+            MeterRegistry meterRegistry) {
+        this.strength = strength;
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("booking.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a thread").register(meterRegistry);
+        Gauge.builder("booking.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes in progress").register(meterRegistry);
+        this.encodeTimer = Timer.builder("booking.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.verifyTimer = Timer.builder("booking.password.hash").tag("operation", "verify").register(meterRegistry);
+        this.waitTimer = Timer.builder("booking.password.hash.wait")
+                .description("Time a password hash spent queued").register(meterRegistry);
+        this.rejected = Counter.builder("booking.password.hash.rejected")
+                .description("Password hashes refused because the pool was saturated").register(meterRegistry);
+    }
+
+    /**
+     * The outcome of checking a password. {@code rehashed} is a new hash at
+     * the configured cost when the password matched a hash with another cost,
+     * otherwise null.
+     */
+    public record Verification(boolean matches, String rehashed) {
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * Hashes on the calling thread, for batch jobs that run on their own pool
+     * and so must not queue behind logins.
+     */
+    public String encodeInline(String rawPassword) {
+        return encodeTimer.record(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password and, if it matches a hash created with a different
+     * cost factor, rehashes it in the same task so the caller can store the
+     * new hash.
+     */
+    public Verification verify(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return new Verification(false, null);
+        }
+        return run(() -> {
+            if (!encoder.matches(rawPassword, encodedPassword)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, needsRehash(encodedPassword) ? encoder.encode(rawPassword) : null);
+        }, verifyTimer);
+    }
+
+    /**
+     * Whether the hash was created with a cost factor other than
+     * {@code booking.auth.bcrypt-strength}.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Seconds a rejected caller should wait: roughly the time the pool needs
+     * to work through a full queue, at least one.
+     */
+    public long retryAfterSeconds() {
+        double meanSeconds = Math.max(verifyTimer.mean(TimeUnit.SECONDS), encodeTimer.mean(TimeUnit.SECONDS));
+        int backlog = executor.getQueue().size() + executor.getQueue().remainingCapacity();
+        return Math.max(1, (long) Math.ceil(backlog * meanSeconds / executor.getMaximumPoolSize()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    ThreadPoolExecutor executor() {
+        return executor;
+    }
+
+    private <T> T run(Callable<T> task, Timer timer) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many password checks in progress", e);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Frees the queue slot if the task has not started; a running hash finishes unobserved
+            future.cancel(true);
+            executor.remove((Runnable) future);
+            rejected.increment();
+            throw new RejectedExecutionException("Timed out waiting for a password check", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password check", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
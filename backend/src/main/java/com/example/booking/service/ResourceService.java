@@ -0,0 +1,144 @@
+package com.example.booking.service;
+
+import com.example.booking.config.AsyncConfig;
+import com.example.booking.model.Resource;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.repository.ResourceRepository;
+import com.example.booking.repository.TimeSlotRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+@Service
+public class ResourceService {
+    static final int MAX_SEARCH_RESOURCES = 50;
+
+    private final ResourceRepository resourceRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final Executor searchExecutor;
+
+    public ResourceService(ResourceRepository resourceRepository, TimeSlotRepository timeSlotRepository,
+            @Qualifier(AsyncConfig.SEARCH_EXECUTOR) Executor searchExecutor) {
+        this.resourceRepository = resourceRepository;
+        this.timeSlotRepository = timeSlotRepository;
+        this.searchExecutor = searchExecutor;
+    }
+
+    public List<Resource> getAllResources() {
+        return resourceRepository.findAll();
+    }
+
+    public Optional<Resource> getResource(Long id) {
+        return resourceRepository.findById(id);
+    }
+
+    public Resource createResource(Resource resource) {
+        if (resource.getName() == null || resource.getName().isBlank()) {
+            throw new IllegalArgumentException("Resource name must not be empty.");
+        }
+        if (resource.getType() == null) {
+            throw new IllegalArgumentException("Resource type must be STAFF or ROOM.");
+        }
+        return resourceRepository.save(resource);
+    }
+
+    /**
+     * Free slots of one resource starting within [from, to), ordered by start
+     * time.
+     */
+    public List<TimeSlot> getAvailableTimeSlots(Long resourceId, OffsetDateTime from, OffsetDateTime to) {
+        validateRange(from, to);
+        return timeSlotRepository.findAvailableForResource(resourceId, from, to);
+    }
+
+    /**
+     * Free slots across several resources, ordered by start time.
+     * Each resource is queried on its own index range in parallel on the search
+     * executor, and the already sorted per-resource results are merged.
+     *
+     * @throws IllegalArgumentException if no resource or too many resources are
+     *                                  given, or the range is invalid
+     */
+    public List<TimeSlot> searchAvailableTimeSlots(Collection<Long> resourceIds, OffsetDateTime from,
+            OffsetDateTime to) {
+        if (resourceIds == null || resourceIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one resource is required");
+        }
+        Set<Long> ids = new LinkedHashSet<>(resourceIds);
+        if (ids.size() > MAX_SEARCH_RESOURCES) {
+            throw new IllegalArgumentException("Cannot search more than " + MAX_SEARCH_RESOURCES + " resources at once");
+        }
+        validateRange(from, to);
+
+        List<CompletableFuture<List<TimeSlot>>> searches = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            searches.add(CompletableFuture.supplyAsync(
+                    () -> timeSlotRepository.findAvailableForResource(id, from, to), searchExecutor));
+        }
+
+        List<List<TimeSlot>> results = new ArrayList<>(searches.size());
+        for (CompletableFuture<List<TimeSlot>> search : searches) {
+            results.add(search.join());
+        }
+        return mergeByStartTime(results);
+    }
+
+    /**
+     * Merges lists that are each sorted by start time into one sorted list.
+     */
+    static List<TimeSlot> mergeByStartTime(List<List<TimeSlot>> sortedLists) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(
+                Comparator.comparing((Cursor cursor) -> cursor.current().getStartTime()));
+        int total = 0;
+        for (List<TimeSlot> list : sortedLists) {
+            total += list.size();
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+
+        List<TimeSlot> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static void validateRange(OffsetDateTime from, OffsetDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Search start must be before search end.");
+        }
+    }
+
+    private static final class Cursor {
+        private final List<TimeSlot> list;
+        private int index;
+
+        private Cursor(List<TimeSlot> list) {
+            this.list = list;
+        }
+
+        private TimeSlot current() {
+            return list.get(index);
+        }
+
+        private boolean advance() {
+            return ++index < list.size();
+        }
+    }
+}
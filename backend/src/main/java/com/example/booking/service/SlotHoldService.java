@@ -0,0 +1,134 @@
+package com.example.booking.service;
+
+import com.example.booking.model.SlotHold;
+import com.example.booking.model.User;
+import com.example.booking.repository.SlotHoldRepository;
+import com.example.booking.repository.TimeSlotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Short checkout holds on time slots.
+ * A hold takes one seat for a limited time while the customer fills in the
+ * booking form; it is either confirmed into an appointment
+ * ({@link AppointmentService#confirmHeldAppointment}) or released in batches
+ * once it expires.
+ */
+@Service
+public class SlotHoldService {
+    private final TimeSlotRepository timeSlotRepository;
+    private final SlotHoldRepository slotHoldRepository;
+    private final Clock clock = Clock.systemUTC();
+    private final HoldExpiryQueue expiryQueue = new HoldExpiryQueue(clock);
+
+    @Value("${booking.hold.ttl-seconds:300}")
+    private long holdTtlSeconds;
+
+    @Value("${booking.hold.release-batch-size:500}")
+    private int releaseBatchSize;
+
+    public SlotHoldService(TimeSlotRepository timeSlotRepository, SlotHoldRepository slotHoldRepository) {
+        this.timeSlotRepository = timeSlotRepository;
+        this.slotHoldRepository = slotHoldRepository;
+    }
+
+    /**
+     * Places a hold on the slot for the given user.
+     *
+     * @return the time at which the hold expires
+     * @throws IllegalArgumentException if the slot does not exist
+     * @throws IllegalStateException    if the slot is full or the user already
+     *                                  holds a seat on it
+     */
+    @Transactional
+    public OffsetDateTime holdSlot(Long timeSlotId, User user) {
+        if (slotHoldRepository.existsByTimeSlotIdAndUserId(timeSlotId, user.getId())) {
+            throw new IllegalStateException("Time slot is already held by this user");
+        }
+
+        OffsetDateTime heldUntil = OffsetDateTime.now(clock).plusSeconds(holdTtlSeconds);
+        int updated = timeSlotRepository.reserveSeatIfAvailable(timeSlotId);
+
+        if (updated == 0) {
+            if (!timeSlotRepository.existsById(timeSlotId)) {
+                throw new IllegalArgumentException("Time slot not found");
+            }
+            throw new IllegalStateException("Time slot is not available");
+        }
+
+        SlotHold hold;
+        try {
+            // IDENTITY ids insert on save, so a concurrent hold by the same user fails here
+            hold = slotHoldRepository.save(new SlotHold(timeSlotId, user.getId(), heldUntil));
+        } catch (DataIntegrityViolationException e) {
+            // Rolls back the seat taken above
+            throw new IllegalStateException("Time slot is already held by this user");
+        }
+
+        // A rolled-back hold leaves a harmless entry: the release only matches
+        // holds that still exist.
+        expiryQueue.schedule(hold.getId(), heldUntil.toInstant());
+        return heldUntil;
+    }
+
+    /**
+     * Releases a hold before it expires, e.g. when the customer backs out of the
+     * booking form.
+     *
+     * @return true if a hold owned by the user was released
+     */
+    @Transactional
+    public boolean releaseHold(Long timeSlotId, User user) {
+        int released = slotHoldRepository.deleteHold(timeSlotId, user.getId());
+        if (released == 0) {
+            return false;
+        }
+        timeSlotRepository.releaseSeats(timeSlotId, released);
+        return true;
+    }
+
+    /**
+     * Releases expired holds in batches.
+     * Confirmed or manually released holds still sit in the queue, but their
+     * rows no longer exist, so they are skipped by the database.
+     *
+     * @return number of seats that were given back
+     */
+    @Scheduled(fixedDelayString = "${booking.hold.sweep-interval-ms:1000}")
+    public int releaseExpiredHolds() {
+        int released = 0;
+        List<Long> batch = expiryQueue.drainExpired(releaseBatchSize);
+        while (!batch.isEmpty()) {
+            released += slotHoldRepository.releaseExpiredHolds(batch, OffsetDateTime.now(clock));
+            batch = expiryQueue.drainExpired(releaseBatchSize);
+        }
+        return released;
+    }
+
+    /**
+     * Rebuilds the in-memory expiry schedule after a restart: holds that lapsed
+     * while the application was down are released with one indexed sweep, and
+     * live ones are re-queued.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        slotHoldRepository.releaseAllExpiredHolds(now);
+        for (SlotHold hold : slotHoldRepository.findByHeldUntilAfter(now)) {
+            expiryQueue.schedule(hold.getId(), hold.getHeldUntil().toInstant());
+        }
+    }
+
+    public int pendingExpiries() {
+        return expiryQueue.size();
+    }
+}
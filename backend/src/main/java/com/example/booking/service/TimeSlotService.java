@@ -2,13 +2,19 @@ package com.example.booking.service;
 
 import com.example.booking.model.TimeSlot;
 import com.example.booking.repository.TimeSlotRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class TimeSlotService {
+    // Bounds the retries of an edit that lost its version check to a seat update
+    static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final TimeSlotRepository timeSlotRepository;
 
     public TimeSlotService(TimeSlotRepository timeSlotRepository) {
@@ -20,19 +26,28 @@ public class TimeSlotService {
     }
 
     public List<TimeSlot> getAvailableTimeSlots() {
-        return timeSlotRepository.findByAvailableTrue();
+        return timeSlotRepository.findAvailable();
     }
 
     public Optional<TimeSlot> getTimeSlot(Long id) {
         return timeSlotRepository.findById(id);
     }
 
+    /**
+     * Deletes an unbooked slot. Cancelled appointments on it are kept as
+     * history, unlinked from the slot. The delete is conditional on the
+     * version that was checked, so a seat taken in between makes it fail
+     * instead of removing a booked slot.
+     *
+     * @throws IllegalStateException if the slot is booked or changed meanwhile
+     */
+    @Transactional
     public void deleteTimeSlot(Long id) {
         TimeSlot slot = timeSlotRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
 
-        // Assume slot is booked if not available or has appointments
-        if (!slot.isAvailable()) {
+        // Booked or held seats both count as booked
+        if (slot.getBookedCount() > 0) {
             throw new IllegalStateException("Cannot delete a booked time slot.");
         }
 
@@ -40,24 +55,65 @@ public class TimeSlotService {
             throw new IllegalStateException("Time slot has existing appointments.");
         }
 
-        timeSlotRepository.deleteById(id);
+        try {
+            timeSlotRepository.detachCancelledAppointments(id);
+            timeSlotRepository.delete(slot);
+            timeSlotRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Time slot was changed by someone else. Reload and try again.");
+        } catch (DataIntegrityViolationException e) {
+            // An appointment the collection did not show still references the slot
+            throw new IllegalStateException("Time slot has existing appointments.");
+        }
     }
 
     public TimeSlot createTimeSlot(TimeSlot timeSlot) {
         validateTimeSlot(timeSlot);
-        checkForConflicts(timeSlot, null); // null for new creation
+        checkForConflicts(timeSlot, timeSlot.getResourceId(), null); // null for new creation
         return timeSlotRepository.save(timeSlot);
     }
 
+    /**
+     * Reschedules a slot and changes its capacity with a compare-and-set on the
+     * slot's version. {@code updated} carries the schedule version the caller
+     * read; if another edit has changed the schedule since then, the edit is a
+     * conflict. Seats booked or released since the read are not: when the
+     * version moves only because of them, the edit is reapplied on the fresh
+     * row, up to {@link #MAX_UPDATE_ATTEMPTS} times.
+     *
+     * @throws IllegalArgumentException if the slot does not exist
+     * @throws IllegalStateException    if the capacity is below the booked seats
+     *                                  or the slot was edited concurrently
+     */
+    @Transactional
     public TimeSlot updateTimeSlot(Long id, TimeSlot updated) {
         validateTimeSlot(updated);
-        return timeSlotRepository.findById(id).map(ts -> {
-            checkForConflicts(updated, id); // ignore conflict with itself
-            ts.setStartTime(updated.getStartTime());
-            ts.setEndTime(updated.getEndTime());
-            ts.setAvailable(updated.isAvailable());
-            return timeSlotRepository.save(ts);
-        }).orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
+        TimeSlot base = timeSlotRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
+        if (base.getScheduleVersion() != updated.getScheduleVersion()) {
+            throw new IllegalStateException("Time slot was changed by someone else. Reload and try again.");
+        }
+        checkForConflicts(updated, base.getResourceId(), id); // ignore conflict with itself
+
+        TimeSlot current = base;
+        for (int attempt = 1; attempt <= MAX_UPDATE_ATTEMPTS; attempt++) {
+            if (timeSlotRepository.updateIfUnchanged(id, current.getVersion(), updated.getStartTime(),
+                    updated.getEndTime(), updated.getCapacity()) == 1) {
+                return timeSlotRepository.findById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
+            }
+
+            TimeSlot latest = timeSlotRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("TimeSlot not found"));
+            if (latest.getVersion() == current.getVersion()) {
+                throw new IllegalStateException("Capacity cannot be lower than the number of booked seats.");
+            }
+            if (latest.getScheduleVersion() != base.getScheduleVersion()) {
+                throw new IllegalStateException("Time slot was changed by someone else. Reload and try again.");
+            }
+            current = latest;
+        }
+        throw new IllegalStateException("Time slot is too busy to update right now. Try again.");
     }
 
     public void validateTimeSlot(TimeSlot timeSlot) {
@@ -67,35 +123,45 @@ public class TimeSlotService {
         if (!timeSlot.getStartTime().isBefore(timeSlot.getEndTime())) {
             throw new IllegalArgumentException("Start time must be before end time.");
         }
+        if (timeSlot.getCapacity() < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1.");
+        }
     }
 
-    private void checkForConflicts(TimeSlot newSlot, Long excludeId) {
-        List<TimeSlot> conflicts;
-        if (excludeId == null) {
-            conflicts = timeSlotRepository.findOverlappingSlots(newSlot.getStartTime(), newSlot.getEndTime());
-        } else {
-            conflicts = timeSlotRepository.findOverlappingSlotsExcluding(newSlot.getStartTime(), newSlot.getEndTime(),
-                    excludeId);
+    private void checkForConflicts(TimeSlot newSlot, Long resourceId, Long excludeId) {
+        if (!findOverlaps(newSlot, resourceId, excludeId).isEmpty()) {
+            throw new IllegalArgumentException("Time slot overlaps with an existing slot.");
         }
+    }
 
-        if (!conflicts.isEmpty()) {
-            throw new IllegalArgumentException("Time slot overlaps with an existing slot.");
+    // Overlaps are only checked within the slot's own calendar
+    private List<TimeSlot> findOverlaps(TimeSlot slot, Long resourceId, Long excludeId) {
+        if (resourceId == null) {
+            return excludeId == null
+                    ? timeSlotRepository.findOverlappingSlots(slot.getStartTime(), slot.getEndTime())
+                    : timeSlotRepository.findOverlappingSlotsExcluding(slot.getStartTime(), slot.getEndTime(),
+                            excludeId);
         }
+        return excludeId == null
+                ? timeSlotRepository.findOverlappingSlotsForResource(resourceId, slot.getStartTime(),
+                        slot.getEndTime())
+                : timeSlotRepository.findOverlappingSlotsForResourceExcluding(resourceId, slot.getStartTime(),
+                        slot.getEndTime(), excludeId);
     }
 
     public boolean isOverlapping(TimeSlot newSlot) {
-        return !timeSlotRepository.findOverlappingSlots(newSlot.getStartTime(), newSlot.getEndTime()).isEmpty();
+        return !findOverlaps(newSlot, newSlot.getResourceId(), null).isEmpty();
     }
 
     public boolean isOverlapping(TimeSlot updatedSlot, Long excludeId) {
-        return !timeSlotRepository
-                .findOverlappingSlotsExcluding(updatedSlot.getStartTime(), updatedSlot.getEndTime(), excludeId)
-                .isEmpty();
+        // Updates keep the slot on its existing calendar
+        Long resourceId = timeSlotRepository.findById(excludeId).map(TimeSlot::getResourceId).orElse(null);
+        return !findOverlaps(updatedSlot, resourceId, excludeId).isEmpty();
     }
 
     public boolean isBooked(Long id) {
         return timeSlotRepository.findById(id)
-                .map(slot -> !slot.isAvailable())
+                .map(slot -> slot.getBookedCount() > 0)
                 .orElse(false);
     }
 
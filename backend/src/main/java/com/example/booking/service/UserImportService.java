@@ -0,0 +1,365 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.UserImportResult;
+import com.example.booking.dto.UserImportRow;
+import com.example.booking.model.User;
+import com.example.booking.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import of existing customers, e.g. when onboarding a client.
+ *
+ * Rows are streamed from the request and handled in chunks of
+ * {@code booking.user-import.batch-size}, so only one chunk's passwords are
+ * held at a time. Each row is checked with the registration rules and
+ * de-duplicated within the import (first occurrence wins). Users that already
+ * exist are found with one {@code IN} query per chunk instead of two lookups
+ * per row, so no password is hashed for them. The remaining passwords are
+ * hashed on a ForkJoin pool of {@code booking.user-import.parallelism}
+ * threads, shared by all imports and separate from the pool that serves
+ * logins, and the chunk is inserted in one JDBC batch before the next one is
+ * read. A user registered concurrently is caught by the unique constraints
+ * and reported as a duplicate.
+ *
+ * Only one import runs at a time. Chunks inserted before the import is
+ * rejected, because a later row is malformed or past
+ * {@code booking.user-import.max-rows}, stay imported; re-running the file
+ * reports them as duplicates.
+ */
+@Service
+public class UserImportService {
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern PHONE = Pattern.compile("^\\d{10}$");
+    private static final int MAX_LENGTH = 255;
+    private static final int LOOKUP_CHUNK = 1000;
+    // Rows hashed by one task before it stops splitting
+    private static final int HASH_TASK_SIZE = 8;
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashing;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean importing = new AtomicBoolean();
+    private ForkJoinPool hashPool;
+
+    @Value("${booking.user-import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${booking.user-import.max-rows:100000}")
+    private int maxRows = 100000;
+
+    @Value("${booking.user-import.parallelism:0}")
+    private int parallelism;
+
+    public UserImportService(UserRepository userRepository, PasswordHashingService passwordHashing,
+            ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.passwordHashing = passwordHashing;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads a JSON array of {@code {username, password, email, phone}} objects
+     * one element at a time.
+     *
+     * @throws IllegalStateException if another import is running
+     */
+    public UserImportResult importJson(InputStream in) throws IOException {
+        begin();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of users");
+            }
+            Import rows = new Import();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                rows.add(parser.readValueAs(UserImportRow.class));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON object for each user");
+            }
+            return rows.finish();
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    /**
+     * Reads CSV with a header line naming the {@code username},
+     * {@code password}, {@code email} and {@code phone} columns, in any
+     * order. Fields may be double-quoted.
+     *
+     * @throws IllegalStateException if another import is running
+     */
+    public UserImportResult importCsv(InputStream in) throws IOException {
+        begin();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV header is missing");
+            }
+            List<String> columns = parseCsvLine(header.replace("\uFEFF", "").trim().toLowerCase());
+            int username = columns.indexOf("username");
+            int password = columns.indexOf("password");
+            int email = columns.indexOf("email");
+            int phone = columns.indexOf("phone");
+            if (username < 0 || password < 0 || email < 0 || phone < 0) {
+                throw new IllegalArgumentException("CSV header must name username, password, email and phone");
+            }
+            Import rows = new Import();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                rows.add(new UserImportRow(field(fields, username), field(fields, password), field(fields, email),
+                        field(fields, phone)));
+            }
+            return rows.finish();
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (hashPool != null) {
+            hashPool.shutdown();
+        }
+    }
+
+    private void begin() {
+        if (!importing.compareAndSet(false, true)) {
+            throw new IllegalStateException("Another user import is running. Try again when it has finished.");
+        }
+    }
+
+    private List<Pending> skipExistingUsers(List<Pending> pending, UserImportResult.Row[] results) {
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        for (int from = 0; from < pending.size(); from += LOOKUP_CHUNK) {
+            List<Pending> chunk = pending.subList(from, Math.min(from + LOOKUP_CHUNK, pending.size()));
+            existingUsernames.addAll(userRepository.findExistingUsernames(
+                    chunk.stream().map(p -> p.row.getUsername()).toList()));
+            existingEmails.addAll(userRepository.findExistingEmails(
+                    chunk.stream().map(p -> p.row.getEmail()).toList()));
+        }
+        if (existingUsernames.isEmpty() && existingEmails.isEmpty()) {
+            return pending;
+        }
+        List<Pending> remaining = new ArrayList<>(pending.size());
+        for (Pending p : pending) {
+            if (existingUsernames.contains(p.row.getUsername()) || existingEmails.contains(p.row.getEmail())) {
+                results[p.slot] = duplicate(p.index, p.row, "Username or email already exists");
+            } else {
+                remaining.add(p);
+            }
+        }
+        return remaining;
+    }
+
+    private void hashPasswords(List<Pending> pending) {
+        if (!pending.isEmpty()) {
+            hashPool().invoke(new HashTask(pending, 0, pending.size()));
+        }
+    }
+
+    private synchronized ForkJoinPool hashPool() {
+        if (hashPool == null) {
+            hashPool = new ForkJoinPool(parallelism > 0
+                    ? parallelism
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        }
+        return hashPool;
+    }
+
+    /**
+     * One running import: collects rows into a chunk and writes the chunk out
+     * when it is full. Only the usernames and emails seen so far and the
+     * per-row report outlive a chunk.
+     */
+    private final class Import {
+        private final List<UserImportResult.Row> report = new ArrayList<>();
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private final List<UserImportRow> chunk = new ArrayList<>();
+        private int read;
+
+        void add(UserImportRow row) {
+            if (read >= maxRows) {
+                throw new IllegalArgumentException("An import is limited to " + maxRows + " users");
+            }
+            read++;
+            chunk.add(row);
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        UserImportResult finish() {
+            flush();
+            return new UserImportResult(report);
+        }
+
+        private void flush() {
+            int first = read - chunk.size();
+            UserImportResult.Row[] results = new UserImportResult.Row[chunk.size()];
+            List<Pending> pending = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                UserImportRow row = chunk.get(i);
+                int index = first + i;
+                String problem = validate(row);
+                if (problem != null) {
+                    results[i] = new UserImportResult.Row(index + 1, row.getUsername(), UserImportResult.INVALID,
+                            problem);
+                } else if (!usernames.add(row.getUsername())) {
+                    results[i] = duplicate(index, row, "Username appears earlier in the import");
+                } else if (!emails.add(row.getEmail())) {
+                    results[i] = duplicate(index, row, "Email appears earlier in the import");
+                } else {
+                    pending.add(new Pending(index, i, row));
+                }
+            }
+            chunk.clear();
+
+            pending = skipExistingUsers(pending, results);
+            hashPasswords(pending);
+            if (!pending.isEmpty()) {
+                boolean[] inserted = userRepository.insertSkippingDuplicates(
+                        pending.stream().map(p -> p.user).toList());
+                for (int i = 0; i < pending.size(); i++) {
+                    Pending p = pending.get(i);
+                    results[p.slot] = inserted[i]
+                            ? new UserImportResult.Row(p.index + 1, p.row.getUsername(), UserImportResult.IMPORTED,
+                                    null)
+                            : duplicate(p.index, p.row, "Username or email already exists");
+                }
+            }
+            report.addAll(Arrays.asList(results));
+        }
+    }
+
+    // Same rules as registration
+    private static String validate(UserImportRow row) {
+        if (isBlank(row.getUsername()) || isBlank(row.getPassword()) || isBlank(row.getEmail())
+                || isBlank(row.getPhone())) {
+            return "Username, password, email and phone are required";
+        }
+        if (row.getUsername().length() > MAX_LENGTH || row.getPassword().length() > MAX_LENGTH
+                || row.getEmail().length() > MAX_LENGTH) {
+            return "Fields must be at most " + MAX_LENGTH + " characters";
+        }
+        if (row.getPassword().length() < 6) {
+            return "Password must be at least 6 characters";
+        }
+        if (!EMAIL.matcher(row.getEmail()).matches()) {
+            return "Invalid email";
+        }
+        if (!PHONE.matcher(row.getPhone()).matches()) {
+            return "Phone must be 10 digits";
+        }
+        return null;
+    }
+
+    private static UserImportResult.Row duplicate(int index, UserImportRow row, String message) {
+        return new UserImportResult.Row(index + 1, row.getUsername(), UserImportResult.DUPLICATE, message);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static final class Pending {
+        // Position in the whole import and in the current chunk
+        final int index;
+        final int slot;
+        final UserImportRow row;
+        final User user = new User();
+
+        Pending(int index, int slot, UserImportRow row) {
+            this.index = index;
+            this.slot = slot;
+            this.row = row;
+            user.setUsername(row.getUsername());
+            user.setEmail(row.getEmail());
+            user.setPhone(row.getPhone());
+        }
+    }
+
+    private final class HashTask extends RecursiveAction {
+        private final List<Pending> pending;
+        private final int from;
+        private final int to;
+
+        HashTask(List<Pending> pending, int from, int to) {
+            this.pending = pending;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= HASH_TASK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    Pending p = pending.get(i);
+                    p.user.setPassword(passwordHashing.encodeInline(p.row.getPassword()));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HashTask(pending, from, middle), new HashTask(pending, middle, to));
+        }
+    }
+}
@@ -2,14 +2,29 @@ package com.example.booking.service;
 
 import com.example.booking.model.User;
 import com.example.booking.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    // User ID -> current token version; users that no longer exist are cached as null
+    private final Map<Long, CachedTokenVersion> tokenVersions = new ConcurrentHashMap<>();
+
+    @Value("${booking.auth.token-version-ttl-seconds:60}")
+    private long tokenVersionTtlSeconds;
+
+    @Value("${booking.auth.token-version-cache-size:100000}")
+    private int tokenVersionCacheSize;
 
     public UserService(UserRepository userRepository) {
         this.userRepository = userRepository;
@@ -19,6 +34,10 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    public Optional<User> getUserById(Long id) {
+        return userRepository.findById(id);
+    }
+
     public Optional<User> getUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -31,4 +50,69 @@ public class UserService {
     public User updateUser(User user) {
         return userRepository.save(user);
     }
+
+    /**
+     * Stores a rehashed password, unless the password changed since
+     * {@code oldHash} was read.
+     */
+    public boolean replacePasswordHash(Long userId, String oldHash, String newHash) {
+        return userRepository.updatePasswordIfUnchanged(userId, oldHash, newHash) > 0;
+    }
+
+    /**
+     * Whether a JWT issued with the given token version is still accepted for
+     * the user. Versions are cached for {@code booking.auth.token-version-ttl-seconds},
+     * so an authenticated request normally needs no query; revocations made on
+     * another instance take effect once the cached entry expires.
+     */
+    public boolean isTokenVersionCurrent(Long userId, int tokenVersion) {
+        long now = System.nanoTime();
+        CachedTokenVersion cached = tokenVersions.get(userId);
+        if (cached == null || now - cached.loadedAt > TimeUnit.SECONDS.toNanos(tokenVersionTtlSeconds)) {
+            cached = new CachedTokenVersion(userRepository.findTokenVersionById(userId).orElse(null), now);
+            cacheTokenVersion(userId, cached);
+        }
+        return cached.version != null && cached.version == tokenVersion;
+    }
+
+    /**
+     * Invalidates every token issued to the user so far, e.g. to log out all
+     * of their sessions. The cached version is dropped after the update has
+     * committed.
+     */
+    public void revokeTokens(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        // Inside a caller's transaction, a request racing the commit would
+        // otherwise re-cache the old version for a whole TTL
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokenVersions.remove(userId);
+                }
+            });
+        } else {
+            tokenVersions.remove(userId);
+        }
+    }
+
+    int cachedTokenVersions() {
+        return tokenVersions.size();
+    }
+
+    private void cacheTokenVersion(Long userId, CachedTokenVersion cached) {
+        tokenVersions.put(userId, cached);
+        if (tokenVersions.size() <= tokenVersionCacheSize) {
+            return;
+        }
+        // Over the bound: drop arbitrary entries, they are reloaded on next use
+        Iterator<Long> ids = tokenVersions.keySet().iterator();
+        while (tokenVersions.size() > tokenVersionCacheSize && ids.hasNext()) {
+            ids.next();
+            ids.remove();
+        }
+    }
+
+    private record CachedTokenVersion(Integer version, long loadedAt) {
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.booking.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated caller into a controller method, either as the
+ * {@link com.example.booking.model.User} entity or as the
+ * {@link com.example.booking.security.AuthenticatedUser} taken from the JWT.
+ * Resolves to null for anonymous requests or users that no longer exist.
+ *
+ * @see CurrentUserArgumentResolver
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,77 @@
+package com.example.booking.web;
+
+import com.example.booking.model.User;
+import com.example.booking.security.AuthenticatedUser;
+import com.example.booking.service.UserService;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Resolves {@link CurrentUser} parameters.
+ * An {@link AuthenticatedUser} parameter is answered from the principal that
+ * JwtAuthenticationFilter built from the token, without a query. A
+ * {@link User} parameter is loaded by primary key at most once per request;
+ * the result is kept as a request attribute for any later resolution.
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    private static final String USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    private final UserService userService;
+
+    public CurrentUserArgumentResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == User.class || type == AuthenticatedUser.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+
+        if (parameter.getParameterType() == AuthenticatedUser.class
+                && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return principal;
+        }
+
+        User user = loadUser(authentication, webRequest);
+        if (user == null || parameter.getParameterType() == User.class) {
+            return user;
+        }
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole(), user.getTokenVersion());
+    }
+
+    private User loadUser(Authentication authentication, NativeWebRequest webRequest) {
+        Object cached = webRequest.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached != null) {
+            return cached instanceof User user ? user : null;
+        }
+
+        // Principals set by other authentication mechanisms only carry a username
+        Optional<User> user = authentication.getPrincipal() instanceof AuthenticatedUser principal
+                ? userService.getUserById(principal.getId())
+                : userService.getUserByUsername(authentication.getName());
+        // A missing user is remembered too, as a non-User marker
+        webRequest.setAttribute(USER_ATTRIBUTE, user.isPresent() ? user.get() : Boolean.FALSE,
+                RequestAttributes.SCOPE_REQUEST);
+        return user.orElse(null);
+    }
+}
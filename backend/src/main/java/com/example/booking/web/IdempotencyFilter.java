@@ -0,0 +1,138 @@
+package com.example.booking.web;
+
+import com.example.booking.model.IdempotencyRecord;
+import com.example.booking.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Makes booking and cancellation requests safe to retry.
+ * A POST or DELETE under {@code /api/appointments} that carries an
+ * {@code Idempotency-Key} header runs once; later requests with the same key
+ * get the stored response replayed without reaching the controller. A key
+ * reused for a different method, path or body is answered with 422.
+ *
+ * Runs after the Spring Security chain so keys can be scoped to the caller.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 128;
+    // Booking requests are small JSON documents; the body is buffered to be hashed
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final IdempotencyService idempotencyService;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService) {
+        this.idempotencyService = idempotencyService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(HEADER) == null
+                || !request.getRequestURI().startsWith("/api/appointments")
+                || !("POST".equals(method) || "DELETE".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, 400, "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        CachedBodyRequest cached = CachedBodyRequest.read(request, MAX_BODY_BYTES);
+        if (cached == null) {
+            writeError(response, 413, "Request body is too large");
+            return;
+        }
+
+        String scopedKey = callerScope() + ":" + key;
+        String fingerprint = request.getMethod() + " " + request.getRequestURI() + " " + sha256(cached.getBody());
+
+        Optional<IdempotencyRecord> stored = idempotencyService.find(scopedKey);
+        if (stored.isEmpty() && idempotencyService.tryBegin(scopedKey, fingerprint)) {
+            try {
+                ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+                filterChain.doFilter(cached, wrapper);
+
+                // Server errors are not stored so that the client's retry runs again
+                if (wrapper.getStatus() < 500) {
+                    idempotencyService.store(scopedKey, fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+                            new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+                }
+                wrapper.copyBodyToResponse();
+            } finally {
+                idempotencyService.finish(scopedKey);
+            }
+            return;
+        }
+
+        // Another request holds the key; it may have stored its response since the first lookup
+        if (stored.isEmpty()) {
+            stored = idempotencyService.find(scopedKey);
+        }
+        if (stored.isPresent() && !stored.get().getRequestFingerprint().equals(fingerprint)) {
+            writeError(response, 422, "Idempotency-Key was already used for a different request");
+        } else if (stored.isPresent() && !stored.get().isPending()) {
+            replay(stored.get(), response);
+        } else {
+            writeError(response, 409, "A request with this Idempotency-Key is still in progress");
+        }
+    }
+
+    private static void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getStatusCode());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseBody() != null) {
+            response.getOutputStream().write(record.getResponseBody().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String callerScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return "anonymous";
+        }
+        return authentication.getName();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"message\":\"" + message + "\",\"error\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+}
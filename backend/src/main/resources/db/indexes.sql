@@ -6,21 +6,64 @@
 -- TIME_SLOT TABLE INDEXES
 -- ================================================================================
 
--- Index for filtering available slots
-CREATE INDEX idx_timeslot_available ON time_slot(available);
+-- Partial index for slots with free seats (full slots are not indexed)
+CREATE INDEX idx_timeslot_open ON time_slot(start_time) WHERE booked_count < capacity;
 
 -- Index for time range queries
 CREATE INDEX idx_timeslot_time_range ON time_slot(start_time, end_time);
 
+-- Index for per-resource calendars (overlap checks and listings)
+CREATE INDEX idx_timeslot_resource_start ON time_slot(resource_id, start_time);
+
+-- Partial index for per-resource availability searches (full slots are not indexed)
+CREATE INDEX idx_timeslot_resource_open ON time_slot(resource_id, start_time) WHERE booked_count < capacity;
+
+-- ================================================================================
+-- SLOT_HOLD TABLE INDEXES
+-- ================================================================================
+
+-- Index for checkout hold expiry sweeps
+CREATE INDEX idx_slot_hold_held_until ON slot_hold(held_until);
+
 -- ================================================================================
 -- APPOINTMENT TABLE INDEXES
 -- ================================================================================
 
--- Unique index for cancellation tokens
-CREATE UNIQUE INDEX idx_appointment_cancellation_token ON appointment(cancellation_token);
+-- Index for user appointment history, paged by (start_time, id);
+-- replaces idx_appointment_user, which it covers
+DROP INDEX IF EXISTS idx_appointment_user;
+CREATE INDEX idx_appointment_user_start ON appointment(user_id, start_time, id);
+
+-- Partial indexes on booked appointments only; cancelled and completed rows
+-- are kept as history but do not grow these
+CREATE INDEX idx_appointment_user_booked ON appointment(user_id, start_time) WHERE status = 'BOOKED';
+CREATE INDEX idx_appointment_slot_booked ON appointment(time_slot_id) WHERE status = 'BOOKED';
+
+-- Partial index for the sweep that marks ended appointments as completed
+CREATE INDEX idx_appointment_booked_end ON appointment(end_time) WHERE status = 'BOOKED';
+
+-- Indexes for the admin appointment search. Each leads with one equality
+-- filter and ends in (start_time, id), so a date range and the keyset order
+-- are read from the index without sorting; user_id is covered by
+-- idx_appointment_user_start. Status alone is too coarse to index.
+CREATE INDEX idx_appointment_start ON appointment(start_time, id);
+CREATE INDEX idx_appointment_service_start ON appointment(service, start_time, id);
+CREATE INDEX idx_appointment_location_start ON appointment(location, start_time, id);
+CREATE INDEX idx_appointment_email_start ON appointment(lower(customer_email), start_time, id);
+
+-- Trigram indexes for the admin customer lookup, which matches any part of
+-- a name, email or phone with LIKE '%...%'; a B-tree cannot serve that
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_appointment_name_trgm ON appointment USING gin (lower(customer_name) gin_trgm_ops);
+CREATE INDEX idx_appointment_email_trgm ON appointment USING gin (lower(customer_email) gin_trgm_ops);
+CREATE INDEX idx_appointment_phone_trgm ON appointment USING gin (customer_phone gin_trgm_ops);
 
--- Index for user appointment history
-CREATE INDEX idx_appointment_user ON appointment(user_id);
+-- ================================================================================
+-- IDEMPOTENCY_RECORD TABLE INDEXES
+-- ================================================================================
+
+-- Index for purging expired idempotency records (lookups use the primary key)
+CREATE INDEX idx_idempotency_expires_at ON idempotency_record(expires_at);
 
 -- ================================================================================
 -- USER TABLE INDEXES
@@ -32,6 +75,11 @@ CREATE INDEX idx_user_username ON users(username);
 -- Index for email lookups
 CREATE INDEX idx_user_email ON users(email);
 
+-- Trigram indexes for the admin customer lookup (see the appointment ones)
+CREATE INDEX idx_user_username_trgm ON users USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX idx_user_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_user_phone_trgm ON users USING gin (phone gin_trgm_ops);
+
 -- ================================================================================
 -- VERIFICATION QUERIES
 -- ================================================================================
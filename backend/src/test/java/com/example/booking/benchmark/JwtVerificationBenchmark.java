@@ -0,0 +1,86 @@
+package com.example.booking.benchmark;
+
+import com.example.booking.model.User;
+import com.example.booking.security.AuthenticatedUser;
+import com.example.booking.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating the JWT cookie.
+ *
+ * {@code rebuiltKeyTwoParses} is what JwtAuthenticationFilter used to do:
+ * {@code extractUsername} and then {@code validateToken}, each deriving the
+ * HMAC key and building a new parser before verifying the HS512 signature.
+ * {@code cachedParserOneParse} is the current path: one verification with the
+ * parser JwtUtil builds at startup. {@code cachedPrincipal} is a repeat
+ * request with the same cookie, answered from the verified-token cache.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.booking.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+        user.setRole("USER");
+        jwtUtil = new JwtUtil(SECRET);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String rebuiltKeyTwoParses() {
+        String username = legacyParse(token).getSubject();
+        return legacyParse(token) != null ? username : null;
+    }
+
+    @Benchmark
+    public String cachedParserOneParse() {
+        Claims claims = jwtUtil.parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    @Benchmark
+    public AuthenticatedUser cachedPrincipal() {
+        return jwtUtil.parsePrincipal(token);
+    }
+
+    private static Claims legacyParse(String token) {
+        try {
+            return Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
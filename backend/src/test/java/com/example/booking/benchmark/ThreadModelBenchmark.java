@@ -0,0 +1,127 @@
+package com.example.booking.benchmark;
+
+import com.example.booking.BookingSystemApplication;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.repository.TimeSlotRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code GET /api/timeslots} served by the real application:
+ * embedded Tomcat, the Hikari pool and JDBC against the in-memory test
+ * database, with request threads either from Tomcat's platform pool or
+ * virtual ({@code spring.threads.virtual.enabled}).
+ *
+ * Each invocation sends a burst of concurrent requests over loopback HTTP.
+ * With {@code poolSize} below the number of concurrent requests, both modes
+ * queue on the connection pool; virtual threads only help with blocking that
+ * does not hold a connection.
+ *
+ * Only the platform variant runs by default. The virtual variant needs JDK 21
+ * (add {@code -Djmh.threads=platform,virtual}); on older JDKs it fails in
+ * setup instead of silently measuring platform threads. Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.booking.benchmark.ThreadModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ThreadModelBenchmark {
+    private static final String SECRET = "v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp";
+    private static final int REQUESTS_PER_BURST = 500;
+    private static final int SLOTS = 50;
+
+    @Param({ "platform" })
+    public String threads;
+
+    // Matches HikariCP's default maximum-pool-size
+    @Param({ "10" })
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest listSlots;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("The virtual variant needs JDK 21, running on "
+                    + Runtime.version().feature());
+        }
+        context = new SpringApplicationBuilder(BookingSystemApplication.class)
+                .profiles("test")
+                .properties("server.port=0",
+                        "jwt.secret=" + SECRET,
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "spring.jpa.show-sql=false",
+                        // Every request comes from loopback; the limiter would answer most of them with 429
+                        "booking.rate-limit.rules=")
+                .run();
+
+        TimeSlotRepository timeSlots = context.getBean(TimeSlotRepository.class);
+        OffsetDateTime start = OffsetDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < SLOTS; i++) {
+            TimeSlot slot = new TimeSlot();
+            slot.setStartTime(start.plusHours(i));
+            slot.setEndTime(start.plusHours(i + 1));
+            timeSlots.save(slot);
+        }
+
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        clientExecutor = Executors.newFixedThreadPool(16);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+        listSlots = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/timeslots")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS_PER_BURST)
+    public void listSlotsBurst() {
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(REQUESTS_PER_BURST);
+        for (int i = 0; i < REQUESTS_PER_BURST; i++) {
+            responses.add(client.sendAsync(listSlots, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            if (response.join().statusCode() != 200) {
+                throw new IllegalStateException("Unexpected status " + response.join().statusCode());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String variants = System.getProperty("jmh.threads", "platform");
+        new Runner(new OptionsBuilder()
+                .include(ThreadModelBenchmark.class.getSimpleName())
+                .param("threads", variants.split(","))
+                .build()).run();
+    }
+}
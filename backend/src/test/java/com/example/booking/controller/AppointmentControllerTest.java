@@ -1,12 +1,21 @@
 package com.example.booking.controller;
 
+import com.example.booking.dto.AppointmentPage;
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.BulkCancellationResult;
 import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
 import com.example.booking.model.User;
+import com.example.booking.repository.IdempotencyRecordRepository;
 import com.example.booking.security.JwtUtil;
 import com.example.booking.service.AppointmentService;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.SlotHoldService;
 import com.example.booking.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -19,11 +28,18 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,7 +48,7 @@ import com.example.booking.security.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Import;
 
 @WebMvcTest(AppointmentController.class)
-@Import({ SecurityConfig.class, JwtAuthenticationFilter.class })
+@Import({ SecurityConfig.class, JwtAuthenticationFilter.class, IdempotencyService.class })
 public class AppointmentControllerTest {
 
     @Autowired
@@ -44,31 +60,36 @@ public class AppointmentControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private SlotHoldService slotHoldService;
+
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     @WithMockUser(username = "testuser")
     public void testGetAllAppointments() throws Exception {
-        Appointment appt = new Appointment();
-        appt.setId(1L);
-        appt.setCustomerName("Test Customer");
+        AppointmentView appt = new AppointmentView(1L, "Test Customer", null, null, null, null, AppointmentStatus.BOOKED, null,
+                null, 7L);
 
         when(appointmentService.getAllAppointments()).thenReturn(List.of(appt));
 
         mockMvc.perform(get("/api/appointments"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].customerName").value("Test Customer"));
+                .andExpect(jsonPath("$[0].customerName").value("Test Customer"))
+                .andExpect(jsonPath("$[0].timeSlotId").value(7));
     }
 
     @Test
     @WithMockUser(username = "testuser")
     public void testGetAppointment() throws Exception {
-        Appointment appt = new Appointment();
-        appt.setId(1L);
+        AppointmentView appt = new AppointmentView(1L, null, null, null, null, null, AppointmentStatus.BOOKED, null, null, null);
 
         when(appointmentService.getAppointment(1L)).thenReturn(Optional.of(appt));
 
@@ -193,12 +214,98 @@ public class AppointmentControllerTest {
     @Test
     @WithMockUser(username = "testuser")
     public void testDeleteAppointment() throws Exception {
-        doNothing().when(appointmentService).cancelAppointment(1L);
+        when(appointmentService.cancelAppointment(1L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/appointments/1").with(csrf()))
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCancelAppointmentsInRange() throws Exception {
+        when(appointmentService.cancelAppointmentsInRange(any(OffsetDateTime.class), any(OffsetDateTime.class),
+                eq(3L), eq(true))).thenReturn(new BulkCancellationResult(120, 40, 95, true));
+
+        mockMvc.perform(post("/api/appointments/admin/cancellations")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"from\":\"2030-01-01T00:00:00Z\",\"to\":\"2030-01-02T00:00:00Z\","
+                        + "\"resourceId\":3,\"closeSlots\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cancelledAppointments").value(120))
+                .andExpect(jsonPath("$.notifiedCustomers").value(95));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testCancelAppointmentsInRangeRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/api/appointments/admin/cancellations")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"from\":\"2030-01-01T00:00:00Z\",\"to\":\"2030-01-02T00:00:00Z\"}"))
+                .andExpect(status().isForbidden());
+
+        verify(appointmentService, never()).cancelAppointmentsInRange(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testSearchAppointments() throws Exception {
+        AppointmentView appt = new AppointmentView(9L, "Jane", "jane@example.com", null, "Downtown", "Massage",
+                AppointmentStatus.BOOKED, OffsetDateTime.parse("2030-01-01T10:00:00Z"), null, 4L);
+        when(appointmentService.searchAppointments(any(AppointmentSearch.class), eq("abc"), eq(50)))
+                .thenReturn(new AppointmentPage(List.of(appt), "next"));
+
+        mockMvc.perform(get("/api/appointments/admin/search")
+                .param("from", "2030-01-01T00:00:00Z")
+                .param("service", "Massage")
+                .param("email", " ")
+                .param("userId", "7")
+                .param("status", "CANCELLED")
+                .param("after", "abc")
+                .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments[0].customerEmail").value("jane@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        ArgumentCaptor<AppointmentSearch> search = ArgumentCaptor.forClass(AppointmentSearch.class);
+        verify(appointmentService).searchAppointments(search.capture(), eq("abc"), eq(50));
+        assertEquals(OffsetDateTime.parse("2030-01-01T00:00:00Z"), search.getValue().getFrom());
+        assertEquals("Massage", search.getValue().getService());
+        assertNull(search.getValue().getCustomerEmail());
+        assertEquals(7L, search.getValue().getUserId());
+        assertEquals(AppointmentStatus.CANCELLED, search.getValue().getStatus());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testSearchAppointmentsUnknownStatus() throws Exception {
+        mockMvc.perform(get("/api/appointments/admin/search").param("status", "PENDING"))
+                .andExpect(status().isBadRequest());
+
+        verify(appointmentService, never()).searchAppointments(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testSearchAppointmentsInvalidCursor() throws Exception {
+        when(appointmentService.searchAppointments(any(AppointmentSearch.class), eq("bad"), eq(0)))
+                .thenThrow(new IllegalArgumentException("Invalid page cursor"));
+
+        mockMvc.perform(get("/api/appointments/admin/search").param("after", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid page cursor"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testSearchAppointmentsRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/api/appointments/admin/search"))
+                .andExpect(status().isForbidden());
+
+        verify(appointmentService, never()).searchAppointments(any(), any(), anyInt());
+    }
+
     @Test
     public void testCancelByToken() throws Exception {
         when(appointmentService.cancelAppointmentByToken("token123")).thenReturn(true);
@@ -215,4 +322,182 @@ public class AppointmentControllerTest {
         mockMvc.perform(get("/api/appointments/cancel/token123"))
                 .andExpect(status().is(404));
     }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testHoldTimeSlot() throws Exception {
+        User user = new User();
+        user.setUsername("testuser");
+        AppointmentController.HoldRequest req = new AppointmentController.HoldRequest();
+        req.setTimeSlotId(1L);
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(slotHoldService.holdSlot(1L, user)).thenReturn(OffsetDateTime.parse("2030-01-01T10:05:00Z"));
+
+        mockMvc.perform(post("/api/appointments/holds")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeSlotId").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testHoldTimeSlotConflict() throws Exception {
+        User user = new User();
+        user.setUsername("testuser");
+        AppointmentController.HoldRequest req = new AppointmentController.HoldRequest();
+        req.setTimeSlotId(1L);
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(slotHoldService.holdSlot(1L, user)).thenThrow(new IllegalStateException("Time slot is not available"));
+
+        mockMvc.perform(post("/api/appointments/holds")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(409));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testConfirmHold() throws Exception {
+        AppointmentController.AppointmentRequest req = new AppointmentController.AppointmentRequest();
+        req.setService("Consultation");
+        User user = new User();
+        user.setUsername("testuser");
+        Appointment booked = new Appointment();
+        booked.setId(1L);
+        booked.setCustomerName("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.confirmHeldAppointment(any(Appointment.class), eq(1L), eq(user))).thenReturn(booked);
+
+        mockMvc.perform(post("/api/appointments/holds/1/confirm")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerName").value("testuser"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testConfirmExpiredHold() throws Exception {
+        AppointmentController.AppointmentRequest req = new AppointmentController.AppointmentRequest();
+        User user = new User();
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.confirmHeldAppointment(any(Appointment.class), eq(1L), eq(user)))
+                .thenThrow(new IllegalStateException("Hold has expired or is not held by this user"));
+
+        mockMvc.perform(post("/api/appointments/holds/1/confirm")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(409));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testReleaseHold() throws Exception {
+        User user = new User();
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(slotHoldService.releaseHold(1L, user)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/appointments/holds/1").with(csrf()))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testBookAppointmentsBatch() throws Exception {
+        AppointmentController.BatchAppointmentRequest req = new AppointmentController.BatchAppointmentRequest();
+        req.setTimeSlotIds(List.of(1L, 2L));
+        req.setService("Group class");
+        User user = new User();
+        user.setUsername("testuser");
+        Appointment first = new Appointment();
+        first.setId(1L);
+        Appointment second = new Appointment();
+        second.setId(2L);
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.bookAppointments(any(Appointment.class), eq(List.of(1L, 2L)), eq(user)))
+                .thenReturn(List.of(first, second));
+
+        mockMvc.perform(post("/api/appointments/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testBookAppointmentsBatchConflict() throws Exception {
+        AppointmentController.BatchAppointmentRequest req = new AppointmentController.BatchAppointmentRequest();
+        req.setTimeSlotIds(List.of(1L, 2L));
+        User user = new User();
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.bookAppointments(any(Appointment.class), eq(List.of(1L, 2L)), eq(user)))
+                .thenThrow(new IllegalStateException("One or more time slots are not available"));
+
+        mockMvc.perform(post("/api/appointments/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(409));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testBookAppointmentRetryWithIdempotencyKeyIsReplayed() throws Exception {
+        AppointmentController.AppointmentRequest req = new AppointmentController.AppointmentRequest();
+        req.setTimeSlotId(1L);
+        User user = new User();
+        user.setUsername("testuser");
+        Appointment booked = new Appointment();
+        booked.setId(1L);
+        booked.setCustomerName("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.bookAppointment(any(Appointment.class), eq(1L), eq(user))).thenReturn(booked);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/appointments")
+                    .with(csrf())
+                    .header("Idempotency-Key", "retry-key-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(req)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1));
+        }
+
+        verify(appointmentService, times(1)).bookAppointment(any(Appointment.class), eq(1L), eq(user));
+        mockMvc.perform(post("/api/appointments")
+                .with(csrf())
+                .header("Idempotency-Key", "retry-key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testIdempotencyKeyReusedOnDifferentRequest() throws Exception {
+        when(appointmentService.cancelAppointment(1L)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/appointments/1").with(csrf()).header("Idempotency-Key", "reuse-key"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/appointments/2").with(csrf()).header("Idempotency-Key", "reuse-key"))
+                .andExpect(status().is(422));
+    }
 }
@@ -0,0 +1,145 @@
+package com.example.booking.controller;
+
+import com.example.booking.model.Appointment;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.model.User;
+import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.repository.TimeSlotRepository;
+import com.example.booking.repository.UserRepository;
+import com.example.booking.security.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts entity loads on the appointment read endpoints with Hibernate
+ * statistics and open-in-view disabled: appointments are read as projections
+ * without their user or time slot, and the admin slot view fetches the
+ * appointments with the slot instead of lazily during serialization.
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AppointmentReadQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Cookie jwt;
+    private TimeSlot slot;
+    private Appointment appointment;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = userRepository.findByUsername("projected").orElseGet(() -> {
+            User created = new User();
+            created.setUsername("projected");
+            created.setPassword("not-used");
+            created.setEmail("projected@example.com");
+            created.setPhone("1234567890");
+            return userRepository.save(created);
+        });
+        jwt = new Cookie("jwt", jwtUtil.generateToken(user));
+
+        OffsetDateTime start = OffsetDateTime.now().plusDays(30).truncatedTo(ChronoUnit.SECONDS);
+        slot = new TimeSlot();
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusHours(1));
+        slot = timeSlotRepository.save(slot);
+
+        appointment = new Appointment();
+        appointment.setCustomerName("projected");
+        appointment.setService("Consultation");
+        appointment.setUser(user);
+        appointment.setTimeSlot(slot);
+        appointment.setStartTime(slot.getStartTime());
+        appointment.setEndTime(slot.getEndTime());
+        appointment = appointmentRepository.save(appointment);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Warm the token version cache so only the request's own work is counted
+        mockMvc.perform(get("/api/appointments/" + appointment.getId()).cookie(jwt)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAppointmentLoadsNoEntities() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/appointments/" + appointment.getId()).cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.service").value("Consultation"))
+                .andExpect(jsonPath("$.timeSlotId").value(slot.getId()));
+
+        // Assert
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testGetAllAppointmentsLoadsNoEntities() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/appointments").cookie(jwt)).andExpect(status().isOk());
+
+        // Assert
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testUserAppointmentsLoadNoEntities() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/user/appointments").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upcoming[0].cancellationToken").isNotEmpty());
+
+        // Assert
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testTimeSlotViewFetchesAppointmentsInOneQuery() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/timeslots/" + slot.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments[0].id").value(appointment.getId()));
+
+        // Assert - the slot and its appointment come from one statement; nothing is loaded lazily
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+    }
+}
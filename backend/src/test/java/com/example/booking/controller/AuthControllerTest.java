@@ -1,7 +1,10 @@
 package com.example.booking.controller;
 
 import com.example.booking.model.User;
+import com.example.booking.security.AuthenticatedUser;
 import com.example.booking.security.JwtUtil;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.PasswordHashingService;
 import com.example.booking.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -9,18 +12,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.example.booking.config.SecurityConfig;
@@ -40,6 +51,12 @@ public class AuthControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private PasswordHashingService passwordHashing;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,12 +70,38 @@ public class AuthControllerTest {
 
         when(userService.getUserByUsername("newuser")).thenReturn(Optional.empty());
         when(userService.getUserByEmail("new@example.com")).thenReturn(Optional.empty());
+        when(passwordHashing.encode("password123")).thenReturn("$2a$10$hashed");
 
         mockMvc.perform(post("/api/auth/register")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isOk());
+
+        verify(userService).createUser(argThat(user -> "$2a$10$hashed".equals(user.getPassword())));
+    }
+
+    @Test
+    public void testRegisterWhenHashingIsSaturated() throws Exception {
+        AuthController.RegisterRequest req = new AuthController.RegisterRequest();
+        req.setUsername("newuser");
+        req.setPassword("password123");
+        req.setEmail("new@example.com");
+        req.setPhone("1234567890");
+
+        when(userService.getUserByUsername("newuser")).thenReturn(Optional.empty());
+        when(userService.getUserByEmail("new@example.com")).thenReturn(Optional.empty());
+        when(passwordHashing.encode("password123")).thenThrow(new RejectedExecutionException("busy"));
+        when(passwordHashing.retryAfterSeconds()).thenReturn(3L);
+
+        mockMvc.perform(post("/api/auth/register")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(503))
+                .andExpect(header().string("Retry-After", "3"));
+
+        verify(userService, never()).createUser(any());
     }
 
     @Test
@@ -111,7 +154,9 @@ public class AuthControllerTest {
         user.setRole("USER");
 
         when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
-        when(jwtUtil.generateToken("testuser")).thenReturn("fake-jwt-token");
+        when(passwordHashing.verify("password", user.getPassword()))
+                .thenReturn(new PasswordHashingService.Verification(true, null));
+        when(jwtUtil.generateToken(user)).thenReturn("fake-jwt-token");
 
         AuthController.LoginRequest req = new AuthController.LoginRequest();
         req.setUsername("testuser");
@@ -123,6 +168,60 @@ public class AuthControllerTest {
                 .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isOk())
                 .andExpect(cookie().value("jwt", "fake-jwt-token"));
+
+        verify(userService, never()).replacePasswordHash(any(), any(), any());
+    }
+
+    @Test
+    public void testLoginStoresRehashedPassword() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("testuser");
+        user.setPassword("$2a$08$oldcost");
+        user.setEmail("test@example.com");
+        user.setPhone("1234567890");
+        user.setRole("USER");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(passwordHashing.verify("password", "$2a$08$oldcost"))
+                .thenReturn(new PasswordHashingService.Verification(true, "$2a$10$newcost"));
+        when(jwtUtil.generateToken(user)).thenReturn("fake-jwt-token");
+
+        AuthController.LoginRequest req = new AuthController.LoginRequest();
+        req.setUsername("testuser");
+        req.setPassword("password");
+
+        mockMvc.perform(post("/api/auth/login")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk());
+
+        verify(userService).replacePasswordHash(7L, "$2a$08$oldcost", "$2a$10$newcost");
+    }
+
+    @Test
+    public void testLoginWhenHashingIsSaturated() throws Exception {
+        User user = new User();
+        user.setUsername("testuser");
+        user.setPassword("$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(passwordHashing.verify(any(), any())).thenThrow(new RejectedExecutionException("busy"));
+        when(passwordHashing.retryAfterSeconds()).thenReturn(2L);
+
+        AuthController.LoginRequest req = new AuthController.LoginRequest();
+        req.setUsername("testuser");
+        req.setPassword("password");
+
+        mockMvc.perform(post("/api/auth/login")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(503))
+                .andExpect(header().string("Retry-After", "2"));
+
+        verify(jwtUtil, never()).generateToken(any());
     }
 
     @Test
@@ -135,6 +234,8 @@ public class AuthControllerTest {
         user.setRole("USER");
 
         when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(passwordHashing.verify("wrongpassword", user.getPassword()))
+                .thenReturn(new PasswordHashingService.Verification(false, null));
 
         AuthController.LoginRequest req = new AuthController.LoginRequest();
         req.setUsername("testuser");
@@ -154,6 +255,26 @@ public class AuthControllerTest {
                 .andExpect(cookie().maxAge("jwt", 0));
     }
 
+    @Test
+    public void testLogoutAllRevokesTokens() throws Exception {
+        AuthenticatedUser principal = new AuthenticatedUser(7L, "testuser", "USER", 0);
+
+        mockMvc.perform(post("/api/auth/logout-all").with(csrf())
+                .with(authentication(new UsernamePasswordAuthenticationToken(principal, null, List.of()))))
+                .andExpect(status().isOk())
+                .andExpect(cookie().maxAge("jwt", 0));
+
+        verify(userService).revokeTokens(7L);
+    }
+
+    @Test
+    public void testLogoutAllRequiresLogin() throws Exception {
+        mockMvc.perform(post("/api/auth/logout-all").with(csrf()))
+                .andExpect(status().is(401));
+
+        verify(userService, never()).revokeTokens(any());
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     public void testMe() throws Exception {
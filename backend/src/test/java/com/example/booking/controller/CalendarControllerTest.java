@@ -0,0 +1,115 @@
+package com.example.booking.controller;
+
+import com.example.booking.security.CalendarFeedTokenSigner;
+import com.example.booking.security.CalendarFeedTokenSigner.FeedToken;
+import com.example.booking.security.JwtUtil;
+import com.example.booking.service.CalendarFeedService;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.booking.config.SecurityConfig;
+import com.example.booking.security.JwtAuthenticationFilter;
+import org.springframework.context.annotation.Import;
+
+@WebMvcTest(CalendarController.class)
+@Import({ SecurityConfig.class, JwtAuthenticationFilter.class })
+public class CalendarControllerTest {
+    private static final CalendarFeedService.CalendarFeed FEED = new CalendarFeedService.CalendarFeed(
+            "BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8), "\"abc123\"",
+            Instant.parse("2030-01-01T10:00:00Z"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CalendarFeedTokenSigner feedTokenSigner;
+
+    @MockBean
+    private CalendarFeedService calendarFeedService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @Test
+    public void testGetFeed() throws Exception {
+        when(feedTokenSigner.verify("1.0.sig")).thenReturn(new FeedToken(1L, 0));
+        when(userService.isTokenVersionCurrent(1L, 0)).thenReturn(true);
+        when(calendarFeedService.getFeed(1L)).thenReturn(FEED);
+
+        mockMvc.perform(get("/api/calendar/1.0.sig.ics"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/calendar;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Tue, 01 Jan 2030 10:00:00 GMT"))
+                .andExpect(content().string("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n"));
+    }
+
+    @Test
+    public void testGetFeedNotModified() throws Exception {
+        when(feedTokenSigner.verify("1.0.sig")).thenReturn(new FeedToken(1L, 0));
+        when(userService.isTokenVersionCurrent(1L, 0)).thenReturn(true);
+        when(calendarFeedService.getFeed(1L)).thenReturn(FEED);
+
+        mockMvc.perform(get("/api/calendar/1.0.sig.ics").header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetFeedNotModifiedSince() throws Exception {
+        when(feedTokenSigner.verify("1.0.sig")).thenReturn(new FeedToken(1L, 0));
+        when(userService.isTokenVersionCurrent(1L, 0)).thenReturn(true);
+        when(calendarFeedService.getFeed(1L)).thenReturn(FEED);
+
+        mockMvc.perform(get("/api/calendar/1.0.sig.ics")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Tue, 01 Jan 2030 10:00:00 GMT"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testGetFeedInvalidToken() throws Exception {
+        when(feedTokenSigner.verify("forged")).thenReturn(null);
+
+        mockMvc.perform(get("/api/calendar/forged.ics"))
+                .andExpect(status().isNotFound());
+
+        verify(calendarFeedService, never()).getFeed(any());
+    }
+
+    @Test
+    public void testGetFeedRevokedToken() throws Exception {
+        // The user logged out everywhere after subscribing
+        when(feedTokenSigner.verify("1.0.sig")).thenReturn(new FeedToken(1L, 0));
+        when(userService.isTokenVersionCurrent(1L, 0)).thenReturn(false);
+
+        mockMvc.perform(get("/api/calendar/1.0.sig.ics"))
+                .andExpect(status().isNotFound());
+
+        verify(calendarFeedService, never()).getFeed(any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.booking.controller;
+
+import com.example.booking.model.Resource;
+import com.example.booking.model.ResourceType;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.security.JwtUtil;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.ResourceService;
+import com.example.booking.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.booking.config.SecurityConfig;
+import com.example.booking.security.JwtAuthenticationFilter;
+import org.springframework.context.annotation.Import;
+
+@WebMvcTest(ResourceController.class)
+@Import({ SecurityConfig.class, JwtAuthenticationFilter.class })
+public class ResourceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ResourceService resourceService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @Test
+    public void testGetAvailableTimeSlots() throws Exception {
+        TimeSlot slot = new TimeSlot();
+        slot.setId(3L);
+        slot.setStartTime(OffsetDateTime.parse("2030-01-01T10:00:00Z"));
+        slot.setEndTime(OffsetDateTime.parse("2030-01-01T11:00:00Z"));
+
+        when(resourceService.getResource(1L)).thenReturn(Optional.of(new Resource()));
+        when(resourceService.getAvailableTimeSlots(eq(1L), any(), any())).thenReturn(List.of(slot));
+
+        mockMvc.perform(get("/api/resources/1/timeslots"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].available").value(true));
+    }
+
+    @Test
+    public void testGetAvailableTimeSlotsUnknownResource() throws Exception {
+        when(resourceService.getResource(9L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/resources/9/timeslots"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testSearchAvailabilityRejectsInvalidRange() throws Exception {
+        when(resourceService.searchAvailableTimeSlots(any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("Search start must be before search end."));
+
+        mockMvc.perform(get("/api/resources/availability")
+                .param("resourceIds", "1,2")
+                .param("from", "2030-01-02T00:00:00Z")
+                .param("to", "2030-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testCreateResourceRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/api/resources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Room 1\",\"type\":\"ROOM\"}"))
+                .andExpect(status().isForbidden());
+
+        verify(resourceService, never()).createResource(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testCreateResourceForbiddenForUsers() throws Exception {
+        mockMvc.perform(post("/api/resources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Room 1\",\"type\":\"ROOM\"}"))
+                .andExpect(status().isForbidden());
+
+        verify(resourceService, never()).createResource(any());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreateResourceAsAdmin() throws Exception {
+        Resource room = new Resource();
+        room.setId(5L);
+        room.setName("Room 1");
+        room.setType(ResourceType.ROOM);
+        when(resourceService.createResource(any())).thenReturn(room);
+
+        mockMvc.perform(post("/api/resources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Room 1\",\"type\":\"ROOM\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("ROOM"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testCreateResourceRejectsUnknownType() throws Exception {
+        mockMvc.perform(post("/api/resources")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Desk\",\"type\":\"DESK\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(resourceService, never()).createResource(any());
+    }
+}
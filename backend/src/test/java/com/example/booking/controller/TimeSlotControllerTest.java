@@ -1,12 +1,15 @@
 package com.example.booking.controller;
 
 import com.example.booking.model.TimeSlot;
+import com.example.booking.repository.ResourceRepository;
 import com.example.booking.repository.TimeSlotRepository;
 import com.example.booking.security.JwtUtil;
+import com.example.booking.service.IdempotencyService;
 import com.example.booking.service.TimeSlotService;
 import com.example.booking.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -18,9 +21,13 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,6 +41,8 @@ import org.springframework.context.annotation.Import;
 @WebMvcTest(TimeSlotController.class)
 @Import({ SecurityConfig.class, JwtAuthenticationFilter.class })
 public class TimeSlotControllerTest {
+    private static final String UPDATE = "{\"startTime\":\"2024-01-01T10:00:00Z\","
+            + "\"endTime\":\"2024-01-01T11:00:00Z\",\"capacity\":2,\"scheduleVersion\":3}";
 
     @Autowired
     private MockMvc mockMvc;
@@ -41,6 +50,9 @@ public class TimeSlotControllerTest {
     @MockBean
     private TimeSlotRepository timeSlotRepository;
 
+    @MockBean
+    private ResourceRepository resourceRepository;
+
     @MockBean
     private TimeSlotService timeSlotService;
 
@@ -50,6 +62,9 @@ public class TimeSlotControllerTest {
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -59,14 +74,18 @@ public class TimeSlotControllerTest {
         slot.setId(1L);
         slot.setStartTime(OffsetDateTime.parse("2024-01-01T10:00:00Z"));
         slot.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
-        slot.setAvailable(true);
+        slot.setCapacity(20);
+        slot.setBookedCount(5);
         slot.setAppointments(java.util.Collections.emptyList());
 
-        when(timeSlotRepository.findAll()).thenReturn(List.of(slot));
+        when(timeSlotRepository.findAllWithAppointments()).thenReturn(List.of(slot));
 
         mockMvc.perform(get("/api/timeslots"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1));
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].available").value(true))
+                .andExpect(jsonPath("$[0].capacity").value(20))
+                .andExpect(jsonPath("$[0].bookedCount").value(5));
     }
 
     @Test
@@ -77,7 +96,7 @@ public class TimeSlotControllerTest {
         slot.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
         slot.setAppointments(java.util.Collections.emptyList());
 
-        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(slot));
+        when(timeSlotRepository.findWithAppointmentsById(1L)).thenReturn(Optional.of(slot));
 
         mockMvc.perform(get("/api/timeslots/1"))
                 .andExpect(status().isOk())
@@ -86,7 +105,7 @@ public class TimeSlotControllerTest {
 
     @Test
     public void testGetTimeSlotNotFound() throws Exception {
-        when(timeSlotRepository.findById(1L)).thenReturn(Optional.empty());
+        when(timeSlotRepository.findWithAppointmentsById(1L)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/timeslots/1"))
                 .andExpect(status().is(404));
@@ -98,7 +117,7 @@ public class TimeSlotControllerTest {
         TimeSlotController.TimeSlotRequest req = new TimeSlotController.TimeSlotRequest();
         req.setStartTime("2024-01-01T10:00:00Z");
         req.setEndTime("2024-01-01T11:00:00Z");
-        req.setAvailable(true);
+        req.setCapacity(20);
 
         TimeSlot created = new TimeSlot();
         created.setId(1L);
@@ -112,6 +131,8 @@ public class TimeSlotControllerTest {
                 .content(objectMapper.writeValueAsString(req)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1));
+
+        verify(timeSlotService).createTimeSlot(argThat(slot -> slot.getCapacity() == 20));
     }
 
     @Test
@@ -120,7 +141,7 @@ public class TimeSlotControllerTest {
         TimeSlotController.TimeSlotRequest req = new TimeSlotController.TimeSlotRequest();
         req.setStartTime("2024-01-01T10:00:00Z");
         req.setEndTime("2024-01-01T11:00:00Z");
-        req.setAvailable(true);
+        req.setCapacity(1);
 
         TimeSlot created = new TimeSlot();
         created.setId(1L);
@@ -134,65 +155,128 @@ public class TimeSlotControllerTest {
                 .andExpect(status().is(400));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testCreateTimeSlotWithUnknownResource() throws Exception {
+        TimeSlotController.TimeSlotRequest req = new TimeSlotController.TimeSlotRequest();
+        req.setStartTime("2024-01-01T10:00:00Z");
+        req.setEndTime("2024-01-01T11:00:00Z");
+        req.setResourceId(99L);
+
+        when(resourceRepository.findById(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/timeslots")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().is(400));
+
+        verify(timeSlotService, never()).createTimeSlot(any(TimeSlot.class));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     public void testUpdateTimeSlot() throws Exception {
         TimeSlot updated = new TimeSlot();
         updated.setId(1L);
-        updated.setAvailable(false);
+        updated.setBookedCount(1);
+        updated.setScheduleVersion(4L);
         updated.setStartTime(OffsetDateTime.parse("2024-01-01T10:00:00Z"));
         updated.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
         updated.setAppointments(java.util.Collections.emptyList());
 
-        when(timeSlotService.isOverlapping(any(TimeSlot.class), eq(1L))).thenReturn(false);
+        when(timeSlotService.getTimeSlot(1L)).thenReturn(Optional.of(new TimeSlot()));
         when(timeSlotService.updateTimeSlot(eq(1L), any(TimeSlot.class))).thenReturn(updated);
 
         mockMvc.perform(put("/api/timeslots/1")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(updated)))
+                .content(UPDATE))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.available").value(false));
+                .andExpect(jsonPath("$.available").value(false))
+                .andExpect(jsonPath("$.scheduleVersion").value(4));
+
+        ArgumentCaptor<TimeSlot> sent = ArgumentCaptor.forClass(TimeSlot.class);
+        verify(timeSlotService).updateTimeSlot(eq(1L), sent.capture());
+        assertEquals(3L, sent.getValue().getScheduleVersion());
+        assertEquals(2, sent.getValue().getCapacity());
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    public void testUpdateTimeSlotIsOverlapping() throws Exception {
-        TimeSlot updated = new TimeSlot();
-        updated.setId(1L);
-        updated.setAvailable(false);
-        updated.setStartTime(OffsetDateTime.parse("2024-01-01T10:00:00Z"));
-        updated.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
-        updated.setAppointments(java.util.Collections.emptyList());
+    public void testUpdateTimeSlotRequiresCapacityAndScheduleVersion() throws Exception {
+        mockMvc.perform(put("/api/timeslots/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"startTime\":\"2024-01-01T10:00:00Z\",\"endTime\":\"2024-01-01T11:00:00Z\","
+                        + "\"scheduleVersion\":3}"))
+                .andExpect(status().is(400));
+        mockMvc.perform(put("/api/timeslots/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"startTime\":\"2024-01-01T10:00:00Z\",\"endTime\":\"2024-01-01T11:00:00Z\","
+                        + "\"capacity\":2}"))
+                .andExpect(status().is(400));
 
-        when(timeSlotService.isOverlapping(any(TimeSlot.class), eq(1L))).thenReturn(true);
+        verify(timeSlotService, never()).updateTimeSlot(any(), any(TimeSlot.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testUpdateTimeSlotIsOverlapping() throws Exception {
+        when(timeSlotService.getTimeSlot(1L)).thenReturn(Optional.of(new TimeSlot()));
+        when(timeSlotService.updateTimeSlot(eq(1L), any(TimeSlot.class)))
+                .thenThrow(new IllegalArgumentException("Time slot overlaps with an existing slot."));
 
         mockMvc.perform(put("/api/timeslots/1")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(updated)))
+                .content(UPDATE))
                 .andExpect(status().is(400));
+
+        verify(timeSlotService, never()).isOverlapping(any(TimeSlot.class), any());
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    public void testUpdateTimeSlotThrowsAnException() throws Exception {
-        TimeSlot updated = new TimeSlot();
-        updated.setId(1L);
-        updated.setAvailable(false);
-        updated.setStartTime(OffsetDateTime.parse("2024-01-01T10:00:00Z"));
-        updated.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
-        updated.setAppointments(java.util.Collections.emptyList());
+    public void testUpdateTimeSlotNotFound() throws Exception {
+        when(timeSlotService.getTimeSlot(1L)).thenReturn(Optional.empty());
 
-        when(timeSlotService.isOverlapping(any(TimeSlot.class), eq(1L))).thenReturn(false);
+        mockMvc.perform(put("/api/timeslots/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(UPDATE))
+                .andExpect(status().is(404));
+
+        verify(timeSlotService, never()).updateTimeSlot(any(), any(TimeSlot.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testUpdateTimeSlotStaleVersion() throws Exception {
+        when(timeSlotService.getTimeSlot(1L)).thenReturn(Optional.of(new TimeSlot()));
         when(timeSlotService.updateTimeSlot(eq(1L), any(TimeSlot.class)))
-                .thenThrow(new IllegalArgumentException("TimeSlot not found"));
+                .thenThrow(new IllegalStateException("Time slot was changed by someone else. Reload and try again."));
 
         mockMvc.perform(put("/api/timeslots/1")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(updated)))
-                .andExpect(status().is(404));
+                .content(UPDATE))
+                .andExpect(status().is(409));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testUpdateTimeSlotCapacityBelowBookedSeats() throws Exception {
+        when(timeSlotService.getTimeSlot(1L)).thenReturn(Optional.of(new TimeSlot()));
+        when(timeSlotService.updateTimeSlot(eq(1L), any(TimeSlot.class)))
+                .thenThrow(new IllegalStateException("Capacity cannot be lower than the number of booked seats."));
+
+        mockMvc.perform(put("/api/timeslots/1")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(UPDATE))
+                .andExpect(status().is(409));
     }
 
     @Test
@@ -1,9 +1,17 @@
 package com.example.booking.controller;
 
-import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
 import com.example.booking.model.User;
-import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.security.CalendarFeedTokenSigner;
 import com.example.booking.security.JwtUtil;
+import com.example.booking.service.AppointmentService;
+import com.example.booking.service.CustomerSearchService;
+import com.example.booking.dto.AppointmentPage;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.dto.UserImportResult;
+import com.example.booking.service.IdempotencyService;
+import com.example.booking.service.UserImportService;
 import com.example.booking.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,10 +28,14 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -43,11 +55,23 @@ public class UserControllerTest {
     private UserService userService;
 
     @MockBean
-    private AppointmentRepository appointmentRepository;
+    private AppointmentService appointmentService;
 
     @MockBean
     private JwtUtil jwtUtil;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private CustomerSearchService customerSearchService;
+
+    @MockBean
+    private CalendarFeedTokenSigner feedTokenSigner;
+
     @Test
     @WithMockUser(username = "testuser")
     public void testGetProfile() throws Exception {
@@ -109,18 +133,56 @@ public class UserControllerTest {
         user.setId(1L);
         user.setUsername("testuser");
 
-        Appointment appt = new Appointment();
-        appt.setStartTime(OffsetDateTime.now(ZoneOffset.UTC).plusDays(1));
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        AppointmentView appt = new AppointmentView(5L, "testuser", null, null, null, "Consultation", AppointmentStatus.BOOKED,
+                start, start.plusHours(1), 1L);
 
         when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
-        when(appointmentRepository.findByUserId(1L)).thenReturn(List.of(appt));
+        when(appointmentService.getUpcomingAppointments(1L, null, 0))
+                .thenReturn(new AppointmentPage(List.of(appt), "next-upcoming"));
+        when(appointmentService.getAppointmentHistory(1L, null, 0)).thenReturn(new AppointmentPage(List.of(), null));
 
         mockMvc.perform(get("/api/user/appointments"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.upcoming").isArray())
-                .andExpect(jsonPath("$.upcoming[0]").exists())
+                .andExpect(jsonPath("$.upcoming[0].service").value("Consultation"))
+                .andExpect(jsonPath("$.upcomingCursor").value("next-upcoming"))
                 .andExpect(jsonPath("$.history").isArray())
-                .andExpect(jsonPath("$.history").isEmpty());
+                .andExpect(jsonPath("$.history").isEmpty())
+                .andExpect(jsonPath("$.historyCursor").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testGetUpcomingAppointmentsPage() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.getUpcomingAppointments(1L, "abc", 5))
+                .thenReturn(new AppointmentPage(List.of(), null));
+
+        mockMvc.perform(get("/api/user/appointments/upcoming").param("after", "abc").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments").isArray())
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testGetAppointmentHistoryInvalidCursor() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(appointmentService.getAppointmentHistory(1L, "bad", 0))
+                .thenThrow(new IllegalArgumentException("Invalid page cursor"));
+
+        mockMvc.perform(get("/api/user/appointments/history").param("before", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid page cursor"));
     }
 
     @Test
@@ -139,11 +201,9 @@ public class UserControllerTest {
         user.setId(1L);
         user.setUsername("testuser");
 
-        Appointment appt = new Appointment();
-        appt.setStartTime(OffsetDateTime.now(ZoneOffset.UTC).plusDays(1));
-
         when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
-        when(appointmentRepository.findByUserId(1L)).thenReturn(List.of());
+        when(appointmentService.getUpcomingAppointments(1L, null, 0)).thenReturn(new AppointmentPage(List.of(), null));
+        when(appointmentService.getAppointmentHistory(1L, null, 0)).thenReturn(new AppointmentPage(List.of(), null));
 
         mockMvc.perform(get("/api/user/appointments"))
                 .andExpect(status().isOk())
@@ -152,4 +212,103 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.history").isArray())
                 .andExpect(jsonPath("$.history").isEmpty());
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testImportUsersCsv() throws Exception {
+        UserImportResult result = new UserImportResult(List.of(
+                new UserImportResult.Row(1, "alice", UserImportResult.IMPORTED, null),
+                new UserImportResult.Row(2, "bob", UserImportResult.DUPLICATE, "Username or email already exists")));
+        when(userImportService.importCsv(any())).thenReturn(result);
+
+        mockMvc.perform(post("/api/user/admin/import")
+                .contentType("text/csv")
+                .content("username,password,email,phone\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.rows[1].status").value("DUPLICATE"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testImportUsersMalformed() throws Exception {
+        when(userImportService.importJson(any())).thenThrow(new IllegalArgumentException("Expected a JSON array of users"));
+
+        mockMvc.perform(post("/api/user/admin/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Expected a JSON array of users"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testImportUsersWhileAnotherImportRuns() throws Exception {
+        when(userImportService.importJson(any())).thenThrow(
+                new IllegalStateException("Another user import is running. Try again when it has finished."));
+
+        mockMvc.perform(post("/api/user/admin/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testImportUsersRequiresAdmin() throws Exception {
+        mockMvc.perform(post("/api/user/admin/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isForbidden());
+
+        verify(userImportService, never()).importJson(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testGetCalendarFeedUrl() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+
+        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(user));
+        when(feedTokenSigner.sign(1L, 0)).thenReturn("1.0.sig");
+
+        mockMvc.perform(get("/api/user/calendar-feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value("/api/calendar/1.0.sig.ics"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testSearchCustomers() throws Exception {
+        when(customerSearchService.search("jan", 5)).thenReturn(List.of(
+                new CustomerMatch("Jane Smith", "jane@example.com", "5551234567", 3L)));
+
+        mockMvc.perform(get("/api/user/admin/customers").param("q", "jan").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Jane Smith"))
+                .andExpect(jsonPath("$[0].userId").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    public void testSearchCustomersQueryTooShort() throws Exception {
+        when(customerSearchService.search("j", 0))
+                .thenThrow(new IllegalArgumentException("Search needs at least 2 characters"));
+
+        mockMvc.perform(get("/api/user/admin/customers").param("q", "j"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Search needs at least 2 characters"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testSearchCustomersRequiresAdmin() throws Exception {
+        mockMvc.perform(get("/api/user/admin/customers").param("q", "jan"))
+                .andExpect(status().isForbidden());
+
+        verify(customerSearchService, never()).search(anyString(), anyInt());
+    }
 }
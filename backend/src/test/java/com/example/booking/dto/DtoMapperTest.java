@@ -22,12 +22,16 @@ public class DtoMapperTest {
         dto.setStartTime(OffsetDateTime.parse("2024-01-01T10:00:00Z"));
         dto.setEndTime(OffsetDateTime.parse("2024-01-01T11:00:00Z"));
         dto.setAvailable(true);
+        dto.setCapacity(20);
+        dto.setBookedCount(3);
         dto.setAppointments(List.of(new AppointmentDTO()));
 
         assertEquals(1L, dto.getId());
         assertNotNull(dto.getStartTime());
         assertNotNull(dto.getEndTime());
         assertTrue(dto.isAvailable());
+        assertEquals(20, dto.getCapacity());
+        assertEquals(3, dto.getBookedCount());
         assertFalse(dto.getAppointments().isEmpty());
     }
 
@@ -55,7 +59,8 @@ public class DtoMapperTest {
         ts.setId(1L);
         ts.setStartTime(OffsetDateTime.now());
         ts.setEndTime(OffsetDateTime.now().plusHours(1));
-        ts.setAvailable(true);
+        ts.setCapacity(2);
+        ts.setBookedCount(1);
 
         Appointment appt = new Appointment();
         appt.setId(10L);
@@ -67,7 +72,9 @@ public class DtoMapperTest {
         assertEquals(ts.getId(), dto.getId());
         assertEquals(ts.getStartTime(), dto.getStartTime());
         assertEquals(ts.getEndTime(), dto.getEndTime());
-        assertEquals(ts.isAvailable(), dto.isAvailable());
+        assertTrue(dto.isAvailable());
+        assertEquals(2, dto.getCapacity());
+        assertEquals(1, dto.getBookedCount());
         assertEquals(1, dto.getAppointments().size());
         assertEquals("Jane", dto.getAppointments().get(0).getClientName());
     }
@@ -124,10 +131,10 @@ public class DtoMapperTest {
         TimeSlotController.TimeSlotRequest req = new TimeSlotController.TimeSlotRequest();
         req.setStartTime("start");
         req.setEndTime("end");
-        req.setAvailable(true);
+        req.setCapacity(12);
 
         assertEquals("start", req.getStartTime());
         assertEquals("end", req.getEndTime());
-        assertTrue(req.isAvailable());
+        assertEquals(12, req.getCapacity());
     }
 }
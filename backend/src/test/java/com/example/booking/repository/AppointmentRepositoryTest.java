@@ -0,0 +1,312 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.CancelledBooking;
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
+import com.example.booking.model.Resource;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for AppointmentRepository.
+ * Tests the JDBC batch insert used by multi-slot booking and the conditional
+ * status updates used by cancellation, and the keyset pages of a user's
+ * upcoming appointments and history.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class AppointmentRepositoryTest {
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testBatchInsert_AssignsGeneratedIds() {
+        // Arrange
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TimeSlot slot = new TimeSlot();
+            slot.setStartTime(OffsetDateTime.now().plusDays(i + 1));
+            slot.setEndTime(OffsetDateTime.now().plusDays(i + 1).plusHours(1));
+            slot = timeSlotRepository.save(slot);
+
+            Appointment appointment = new Appointment();
+            appointment.setCustomerName("Group " + i);
+            appointment.setCustomerEmail("group@example.com");
+            appointment.setTimeSlot(slot);
+            appointment.setStartTime(slot.getStartTime());
+            appointment.setEndTime(slot.getEndTime());
+            appointments.add(appointment);
+        }
+
+        // Act
+        appointmentRepository.batchInsert(appointments);
+
+        // Assert
+        appointments.forEach(a -> assertNotNull(a.getId()));
+        Appointment reloaded = appointmentRepository.findById(appointments.get(1).getId()).orElseThrow();
+        assertEquals("Group 1", reloaded.getCustomerName());
+        assertEquals(appointments.get(1).getTimeSlot().getId(), reloaded.getTimeSlot().getId());
+        assertEquals(AppointmentStatus.BOOKED, reloaded.getStatus());
+    }
+
+    @Test
+    void testCancelIfBooked_CancelsOnceAndReleasesSeatOnce() {
+        // Arrange
+        Appointment appointment = bookedAppointment(OffsetDateTime.now().plusDays(1));
+        Long slotId = appointment.getTimeSlot().getId();
+
+        // Act - same order as AppointmentService.cancelAppointment
+        TimeSlot locked = timeSlotRepository.lockSlotOfAppointment(appointment.getId()).orElseThrow();
+        int first = appointmentRepository.cancelIfBooked(appointment.getId());
+        int released = timeSlotRepository.releaseSeatOfAppointment(appointment.getId());
+        int second = appointmentRepository.cancelIfBooked(appointment.getId());
+
+        // Assert - the row is kept as history
+        assertEquals(slotId, locked.getId());
+        assertEquals(1, first);
+        assertEquals(1, released);
+        assertEquals(0, second);
+        assertEquals(AppointmentStatus.CANCELLED, appointmentRepository.findById(appointment.getId()).orElseThrow().getStatus());
+        assertEquals(0, timeSlotRepository.findById(slotId).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testCompleteEndedAppointments_OnlyTouchesEndedBookings() {
+        // Arrange
+        Appointment ended = bookedAppointment(OffsetDateTime.now().minusDays(1));
+        Appointment upcoming = bookedAppointment(OffsetDateTime.now().plusDays(1));
+        Appointment cancelled = bookedAppointment(OffsetDateTime.now().minusDays(2));
+        appointmentRepository.cancelIfBooked(cancelled.getId());
+
+        // Act
+        int completed = appointmentRepository.completeEndedAppointments(OffsetDateTime.now());
+
+        // Assert
+        assertEquals(1, completed);
+        assertEquals(AppointmentStatus.COMPLETED, appointmentRepository.findById(ended.getId()).orElseThrow().getStatus());
+        assertEquals(AppointmentStatus.BOOKED, appointmentRepository.findById(upcoming.getId()).orElseThrow().getStatus());
+        assertEquals(AppointmentStatus.CANCELLED, appointmentRepository.findById(cancelled.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testBulkCancellation_ReopensSeatsOnlyForCancelledBookings() {
+        // Arrange - two bookings inside the range, one after it
+        OffsetDateTime day = OffsetDateTime.now().plusDays(3).truncatedTo(ChronoUnit.DAYS);
+        Appointment first = bookedAppointment(day.withHour(9));
+        Appointment second = bookedAppointment(day.withHour(11));
+        Appointment nextDay = bookedAppointment(day.plusDays(1).withHour(9));
+
+        // Act - same order as AppointmentService.cancelAppointmentsInRange
+        int locked = timeSlotRepository.lockSlotsStartingBetween(day, day.plusDays(1), null).size();
+        List<CancelledBooking> bookings = appointmentRepository.findBookedInSlotsStartingBetween(day,
+                day.plusDays(1), null);
+        timeSlotRepository.releaseBookedSeatsStartingBetween(day, day.plusDays(1), null);
+        int cancelled = appointmentRepository.cancelBookedInSlotsStartingBetween(day, day.plusDays(1), null);
+
+        // Assert
+        assertEquals(2, locked);
+        assertEquals(2, bookings.size());
+        assertEquals(2, cancelled);
+        assertEquals(0, timeSlotRepository.findById(first.getTimeSlot().getId()).orElseThrow().getBookedCount());
+        assertEquals(AppointmentStatus.CANCELLED, appointmentRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(AppointmentStatus.BOOKED, appointmentRepository.findById(nextDay.getId()).orElseThrow().getStatus());
+        assertEquals(1, timeSlotRepository.findById(nextDay.getTimeSlot().getId()).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testBulkCancellation_ClosesSlotsOfOneResource() {
+        // Arrange
+        OffsetDateTime day = OffsetDateTime.now().plusDays(3).truncatedTo(ChronoUnit.DAYS);
+        Resource alice = new Resource();
+        alice.setName("Alice");
+        alice = resourceRepository.save(alice);
+        Appointment aliceBooking = bookedAppointment(day.withHour(9));
+        TimeSlot aliceSlot = timeSlotRepository.findById(aliceBooking.getTimeSlot().getId()).orElseThrow();
+        aliceSlot.setResource(alice);
+        timeSlotRepository.saveAndFlush(aliceSlot);
+        Appointment otherBooking = bookedAppointment(day.withHour(10));
+
+        // Act
+        timeSlotRepository.closeSlotsStartingBetween(day, day.plusDays(1), alice.getId());
+        int cancelled = appointmentRepository.cancelBookedInSlotsStartingBetween(day, day.plusDays(1),
+                alice.getId());
+
+        // Assert
+        assertEquals(1, cancelled);
+        TimeSlot closed = timeSlotRepository.findById(aliceSlot.getId()).orElseThrow();
+        assertEquals(0, closed.getCapacity());
+        assertFalse(closed.isAvailable());
+        assertEquals(AppointmentStatus.BOOKED, appointmentRepository.findById(otherBooking.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void testUpcomingAndHistory_PagedByStartTimeAndId() {
+        // Arrange - two appointments share a start time, one starts exactly now
+        User user = new User();
+        user.setUsername("pager");
+        user.setPassword("secret");
+        user.setEmail("pager@example.com");
+        user = userRepository.save(user);
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Appointment startsNow = appointmentFor(user, now);
+        Appointment tiedFirst = appointmentFor(user, now.plusHours(1));
+        Appointment tiedSecond = appointmentFor(user, now.plusHours(1));
+        Appointment later = appointmentFor(user, now.plusDays(1));
+        Appointment past = appointmentFor(user, now.minusDays(1));
+        Appointment older = appointmentFor(user, now.minusDays(2));
+        Appointment cancelled = appointmentFor(user, now.plusDays(2));
+        appointmentRepository.cancelIfBooked(cancelled.getId());
+
+        // Act
+        List<AppointmentView> firstPage = appointmentRepository.findUpcoming(user.getId(), now, Limit.of(2));
+        AppointmentView last = firstPage.get(1);
+        List<AppointmentView> secondPage = appointmentRepository.findUpcomingAfter(user.getId(), now,
+                last.getStartTime(), last.getId(), Limit.of(10));
+        List<AppointmentView> history = appointmentRepository.findHistory(user.getId(), now, Limit.of(2));
+        AppointmentView lastPast = history.get(1);
+        List<AppointmentView> olderHistory = appointmentRepository.findHistoryBefore(user.getId(), now,
+                lastPast.getStartTime(), lastPast.getId(), Limit.of(10));
+
+        // Assert
+        assertEquals(List.of(startsNow.getId(), tiedFirst.getId()), ids(firstPage));
+        assertEquals(List.of(tiedSecond.getId(), later.getId()), ids(secondPage));
+        assertEquals(List.of(cancelled.getId(), past.getId()), ids(history));
+        assertEquals(List.of(older.getId()), ids(olderHistory));
+    }
+
+    @Test
+    void testFindViewById_ProjectsScalarFieldsAndSlotId() {
+        // Arrange
+        Appointment booked = bookedAppointment(OffsetDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS));
+        Appointment withoutSlot = appointmentFor(null, OffsetDateTime.now().plusDays(4));
+
+        // Act
+        AppointmentView view = appointmentRepository.findViewById(booked.getId()).orElseThrow();
+        List<AppointmentView> all = appointmentRepository.findAllViews();
+
+        // Assert - the slot ID comes from the foreign key, so rows without a slot are kept
+        assertEquals("Customer", view.getCustomerName());
+        assertEquals(AppointmentStatus.BOOKED, view.getStatus());
+        assertEquals(booked.getTimeSlot().getId(), view.getTimeSlotId());
+        assertTrue(booked.getStartTime().isEqual(view.getStartTime()));
+        assertNull(view.getCancellationToken());
+        assertTrue(ids(all).containsAll(List.of(booked.getId(), withoutSlot.getId())));
+    }
+
+    @Test
+    void testFindViews_FiltersAndPagesBySpecification() {
+        // Arrange
+        User user = new User();
+        user.setUsername("searched");
+        user.setPassword("secret");
+        user.setEmail("searched@example.com");
+        user = userRepository.save(user);
+        OffsetDateTime day = OffsetDateTime.now().plusDays(10).truncatedTo(ChronoUnit.DAYS);
+        Appointment first = appointmentFor(user, day.plusHours(9));
+        Appointment second = appointmentFor(user, day.plusHours(9));
+        Appointment third = appointmentFor(user, day.plusHours(11));
+        appointmentFor(user, day.plusDays(1));
+        appointmentFor(null, day.plusHours(10));
+        AppointmentSearch search = new AppointmentSearch(day, day.plusDays(1), null, null, "SEARCHED@example.com",
+                user.getId(), AppointmentStatus.BOOKED);
+
+        // Act
+        List<AppointmentView> firstPage = appointmentRepository.findViews(AppointmentSpecifications.matching(search),
+                2);
+        AppointmentView last = firstPage.get(1);
+        List<AppointmentView> secondPage = appointmentRepository.findViews(AppointmentSpecifications.matching(search)
+                .and(AppointmentSpecifications.after(last.getStartTime(), last.getId())), 2);
+
+        // Assert - same start time is ordered by ID; the next day and other customers are filtered out
+        assertEquals(List.of(first.getId(), second.getId()), ids(firstPage));
+        assertEquals(List.of(third.getId()), ids(secondPage));
+    }
+
+    @Test
+    void testFindCustomers_GroupsBookingsPerCustomer() {
+        // Arrange - Mia booked twice, once next week; a cancellation is not upcoming
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Appointment past = guestAppointment("Mia Wong", "mia@example.com", now.minusDays(20));
+        Appointment next = guestAppointment("Mia Wong", "mia@example.com", now.plusDays(2));
+        Appointment cancelled = guestAppointment("Miles Davis", "miles@example.com", now.plusDays(3));
+        appointmentRepository.cancelIfBooked(cancelled.getId());
+
+        // Act
+        List<CustomerMatch> matches = appointmentRepository.findCustomersMatching("%wong%", Limit.of(10));
+        List<CustomerMatch> upcoming = appointmentRepository.findCustomersBookedBetween(now, now.plusDays(7));
+
+        // Assert
+        assertEquals(1, matches.size());
+        assertTrue(next.getStartTime().isEqual(matches.get(0).getAppointmentTime()));
+        assertEquals(List.of("mia@example.com"), upcoming.stream().map(CustomerMatch::getEmail).toList());
+        assertFalse(past.getStartTime().isEqual(upcoming.get(0).getAppointmentTime()));
+    }
+
+    @Test
+    void testFindCustomersSimilar_IsBadSqlWithoutPgTrgm() {
+        // Act & Assert - what CustomerSearchService relies on to switch similarity search off
+        assertThrows(BadSqlGrammarException.class, () -> appointmentRepository.findCustomersSimilar("smiht", 10));
+    }
+
+    private Appointment guestAppointment(String name, String email, OffsetDateTime start) {
+        Appointment appointment = appointmentFor(null, start);
+        appointment.setCustomerName(name);
+        appointment.setCustomerEmail(email);
+        return appointmentRepository.saveAndFlush(appointment);
+    }
+
+    private Appointment appointmentFor(User user, OffsetDateTime start) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomerName("Customer");
+        appointment.setCustomerEmail(user != null ? user.getEmail() : null);
+        appointment.setUser(user);
+        appointment.setStartTime(start);
+        appointment.setEndTime(start.plusHours(1));
+        return appointmentRepository.saveAndFlush(appointment);
+    }
+
+    private static List<Long> ids(List<AppointmentView> appointments) {
+        return appointments.stream().map(AppointmentView::getId).toList();
+    }
+
+    private Appointment bookedAppointment(OffsetDateTime start) {
+        TimeSlot slot = new TimeSlot();
+        slot.setStartTime(start);
+        slot.setEndTime(start.plusHours(1));
+        slot = timeSlotRepository.save(slot);
+        timeSlotRepository.reserveSeatIfAvailable(slot.getId());
+
+        Appointment appointment = new Appointment();
+        appointment.setCustomerName("Customer");
+        appointment.setTimeSlot(slot);
+        appointment.setStartTime(slot.getStartTime());
+        appointment.setEndTime(slot.getEndTime());
+        return appointmentRepository.saveAndFlush(appointment);
+    }
+}
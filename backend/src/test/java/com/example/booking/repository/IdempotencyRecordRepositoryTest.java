@@ -0,0 +1,75 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for IdempotencyRecordRepository.
+ * Tests that claiming a key is a real insert and how claims are completed
+ * and released.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class IdempotencyRecordRepositoryTest {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsertPending_SecondClaimFails() {
+        // Arrange
+        OffsetDateTime expiresAt = OffsetDateTime.now().plusMinutes(5);
+        idempotencyRecordRepository.insertPending("alice:k1", "POST /api/appointments", expiresAt);
+
+        // Act & Assert - unlike save(), the duplicate does not overwrite the claim
+        assertThrows(DataIntegrityViolationException.class,
+                () -> idempotencyRecordRepository.insertPending("alice:k1", "POST /api/appointments", expiresAt));
+    }
+
+    @Test
+    void testComplete_StoresResponseAndKeepsIt() {
+        // Arrange
+        idempotencyRecordRepository.insertPending("alice:k2", "POST /api/appointments",
+                OffsetDateTime.now().plusMinutes(5));
+
+        // Act
+        int completed = idempotencyRecordRepository.complete("alice:k2", 200, "application/json", "{\"id\":1}",
+                OffsetDateTime.now().plusDays(1));
+        int released = idempotencyRecordRepository.deletePending("alice:k2");
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, completed);
+        assertEquals(0, released);
+        IdempotencyRecord record = idempotencyRecordRepository.findById("alice:k2").orElseThrow();
+        assertFalse(record.isPending());
+        assertEquals(200, record.getStatusCode());
+        assertEquals("{\"id\":1}", record.getResponseBody());
+    }
+
+    @Test
+    void testDeletePending_ReleasesUnfinishedClaim() {
+        // Arrange
+        idempotencyRecordRepository.insertPending("alice:k3", "POST /api/appointments",
+                OffsetDateTime.now().plusMinutes(5));
+
+        // Act
+        int released = idempotencyRecordRepository.deletePending("alice:k3");
+
+        // Assert
+        assertEquals(1, released);
+        assertTrue(idempotencyRecordRepository.findById("alice:k3").isEmpty());
+    }
+}
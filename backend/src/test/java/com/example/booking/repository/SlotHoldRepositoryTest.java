@@ -0,0 +1,129 @@
+package com.example.booking.repository;
+
+import com.example.booking.model.SlotHold;
+import com.example.booking.model.TimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for SlotHoldRepository.
+ * Tests hold confirmation and expiry release against the seat counters.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+public class SlotHoldRepositoryTest {
+
+    @Autowired
+    private SlotHoldRepository slotHoldRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    private TimeSlot slot;
+
+    @BeforeEach
+    void setUp() {
+        slotHoldRepository.deleteAll();
+        timeSlotRepository.deleteAll();
+
+        slot = new TimeSlot();
+        slot.setStartTime(OffsetDateTime.now().plusDays(1));
+        slot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
+        slot.setCapacity(3);
+        slot = timeSlotRepository.save(slot);
+    }
+
+    private SlotHold hold(Long userId, OffsetDateTime heldUntil) {
+        timeSlotRepository.reserveSeatIfAvailable(slot.getId());
+        return slotHoldRepository.save(new SlotHold(slot.getId(), userId, heldUntil));
+    }
+
+    @Test
+    void testConfirmHold_OnlyForOwnerBeforeExpiry() {
+        // Arrange
+        hold(7L, OffsetDateTime.now().plusMinutes(5));
+
+        // Act & Assert
+        assertEquals(0, slotHoldRepository.confirmHold(slot.getId(), 8L, OffsetDateTime.now()));
+        assertEquals(1, slotHoldRepository.confirmHold(slot.getId(), 7L, OffsetDateTime.now()));
+
+        assertFalse(slotHoldRepository.existsByTimeSlotIdAndUserId(slot.getId(), 7L));
+        assertEquals(1, timeSlotRepository.findById(slot.getId()).orElseThrow().getBookedCount(),
+                "Confirmed seat stays booked");
+    }
+
+    @Test
+    void testConfirmHold_FailsAfterExpiry() {
+        // Arrange
+        hold(7L, OffsetDateTime.now().minusSeconds(1));
+
+        // Act & Assert
+        assertEquals(0, slotHoldRepository.confirmHold(slot.getId(), 7L, OffsetDateTime.now()));
+    }
+
+    @Test
+    void testReleaseExpiredHolds_SkipsLiveHolds() {
+        // Arrange
+        SlotHold expired1 = hold(7L, OffsetDateTime.now().minusSeconds(2));
+        SlotHold expired2 = hold(8L, OffsetDateTime.now().minusSeconds(1));
+        SlotHold live = hold(9L, OffsetDateTime.now().plusMinutes(5));
+
+        // Act
+        int released = slotHoldRepository.releaseExpiredHolds(
+                List.of(expired1.getId(), expired2.getId(), live.getId()), OffsetDateTime.now());
+
+        // Assert
+        assertEquals(2, released);
+        assertEquals(1, timeSlotRepository.findById(slot.getId()).orElseThrow().getBookedCount());
+        assertEquals(List.of(live.getId()),
+                slotHoldRepository.findByHeldUntilAfter(OffsetDateTime.now()).stream().map(SlotHold::getId).toList());
+    }
+
+    @Test
+    void testReleaseExpiredHolds_SkipsConfirmedHolds() {
+        // Arrange
+        SlotHold confirmed = hold(7L, OffsetDateTime.now().plusSeconds(30));
+        slotHoldRepository.confirmHold(slot.getId(), 7L, OffsetDateTime.now());
+
+        // Act
+        int released = slotHoldRepository.releaseExpiredHolds(List.of(confirmed.getId()),
+                OffsetDateTime.now().plusMinutes(1));
+
+        // Assert
+        assertEquals(0, released);
+        assertEquals(1, timeSlotRepository.findById(slot.getId()).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testReleaseAllExpiredHolds() {
+        // Arrange
+        hold(7L, OffsetDateTime.now().minusSeconds(1));
+        hold(8L, OffsetDateTime.now().plusMinutes(5));
+
+        // Act
+        int released = slotHoldRepository.releaseAllExpiredHolds(OffsetDateTime.now());
+
+        // Assert
+        assertEquals(1, released);
+        assertEquals(1, slotHoldRepository.count());
+        assertEquals(1, timeSlotRepository.findById(slot.getId()).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testDeleteHold() {
+        // Arrange
+        hold(7L, OffsetDateTime.now().plusMinutes(5));
+
+        // Act & Assert
+        assertEquals(0, slotHoldRepository.deleteHold(slot.getId(), 8L));
+        assertEquals(1, slotHoldRepository.deleteHold(slot.getId(), 7L));
+    }
+}
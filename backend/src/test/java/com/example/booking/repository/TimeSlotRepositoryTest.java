@@ -1,20 +1,27 @@
 package com.example.booking.repository;
 
+import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
+import com.example.booking.model.Resource;
 import com.example.booking.model.TimeSlot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Integration tests for TimeSlotRepository.
- * Tests the custom atomic update query and standard JPA operations.
+ * Tests the atomic seat counter updates, unlinking cancelled appointments and
+ * standard JPA operations.
  */
 @DataJpaTest
 @ActiveProfiles("test")
@@ -23,6 +30,9 @@ public class TimeSlotRepositoryTest {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private TimeSlot testSlot;
 
     @BeforeEach
@@ -32,82 +42,81 @@ public class TimeSlotRepositoryTest {
         testSlot = new TimeSlot();
         testSlot.setStartTime(OffsetDateTime.now().plusDays(1));
         testSlot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
-        testSlot.setAvailable(true);
     }
 
     @Test
-    void testMarkAsUnavailableIfAvailable_WhenAvailable_ShouldSucceed() {
+    void testReserveSeatIfAvailable_WhenAvailable_ShouldSucceed() {
         // Arrange
         TimeSlot saved = timeSlotRepository.save(testSlot);
         assertTrue(saved.isAvailable());
 
         // Act
-        int updated = timeSlotRepository.markAsUnavailableIfAvailable(saved.getId());
+        int updated = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
 
         // Assert
         assertEquals(1, updated, "Should update 1 row");
 
-        // Verify the slot is now unavailable
+        // Verify the only seat is now taken
         TimeSlot reloaded = timeSlotRepository.findById(saved.getId()).orElseThrow();
-        assertFalse(reloaded.isAvailable(), "Slot should be marked as unavailable");
+        assertEquals(1, reloaded.getBookedCount());
+        assertFalse(reloaded.isAvailable(), "Slot should be full");
     }
 
     @Test
-    void testMarkAsUnavailableIfAvailable_WhenAlreadyUnavailable_ShouldReturnZero() {
+    void testReserveSeatIfAvailable_WhenFull_ShouldReturnZero() {
         // Arrange
-        testSlot.setAvailable(false);
+        testSlot.setBookedCount(1);
         TimeSlot saved = timeSlotRepository.save(testSlot);
         assertFalse(saved.isAvailable());
 
         // Act
-        int updated = timeSlotRepository.markAsUnavailableIfAvailable(saved.getId());
+        int updated = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
 
         // Assert
-        assertEquals(0, updated, "Should update 0 rows when already unavailable");
+        assertEquals(0, updated, "Should update 0 rows when already full");
 
-        // Verify slot is still unavailable
+        // Verify slot is not overbooked
         TimeSlot reloaded = timeSlotRepository.findById(saved.getId()).orElseThrow();
-        assertFalse(reloaded.isAvailable());
+        assertEquals(1, reloaded.getBookedCount());
     }
 
     @Test
-    void testMarkAsUnavailableIfAvailable_WhenSlotNotFound_ShouldReturnZero() {
+    void testReserveSeatIfAvailable_WhenSlotNotFound_ShouldReturnZero() {
         // Act
-        int updated = timeSlotRepository.markAsUnavailableIfAvailable(99999L);
+        int updated = timeSlotRepository.reserveSeatIfAvailable(99999L);
 
         // Assert
         assertEquals(0, updated, "Should update 0 rows when slot doesn't exist");
     }
 
     @Test
-    void testMarkAsUnavailableIfAvailable_IsAtomic() {
+    void testReserveSeatIfAvailable_IsAtomic() {
         // Arrange
         TimeSlot saved = timeSlotRepository.save(testSlot);
 
         // Act - First call should succeed
-        int firstUpdate = timeSlotRepository.markAsUnavailableIfAvailable(saved.getId());
+        int firstUpdate = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
 
         // Second call should fail (already updated)
-        int secondUpdate = timeSlotRepository.markAsUnavailableIfAvailable(saved.getId());
+        int secondUpdate = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
 
         // Assert
         assertEquals(1, firstUpdate, "First update should succeed");
-        assertEquals(0, secondUpdate, "Second update should fail (already unavailable)");
+        assertEquals(0, secondUpdate, "Second update should fail (already full)");
     }
 
     @Test
-    void testMarkAsUnavailableIfAvailable_OnlyAffectsSpecifiedSlot() {
+    void testReserveSeatIfAvailable_OnlyAffectsSpecifiedSlot() {
         // Arrange - Create two available slots
         TimeSlot slot1 = timeSlotRepository.save(testSlot);
 
         TimeSlot slot2 = new TimeSlot();
         slot2.setStartTime(OffsetDateTime.now().plusDays(2));
         slot2.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
-        slot2.setAvailable(true);
         TimeSlot savedSlot2 = timeSlotRepository.save(slot2);
 
-        // Act - Mark only slot1 as unavailable
-        int updated = timeSlotRepository.markAsUnavailableIfAvailable(slot1.getId());
+        // Act - Take the seat on slot1 only
+        int updated = timeSlotRepository.reserveSeatIfAvailable(slot1.getId());
 
         // Assert
         assertEquals(1, updated);
@@ -115,7 +124,7 @@ public class TimeSlotRepositoryTest {
         TimeSlot reloadedSlot1 = timeSlotRepository.findById(slot1.getId()).orElseThrow();
         TimeSlot reloadedSlot2 = timeSlotRepository.findById(savedSlot2.getId()).orElseThrow();
 
-        assertFalse(reloadedSlot1.isAvailable(), "Slot 1 should be unavailable");
+        assertFalse(reloadedSlot1.isAvailable(), "Slot 1 should be full");
         assertTrue(reloadedSlot2.isAvailable(), "Slot 2 should still be available");
     }
 
@@ -155,7 +164,7 @@ public class TimeSlotRepositoryTest {
         TimeSlot slot2 = new TimeSlot();
         slot2.setStartTime(OffsetDateTime.now().plusDays(2));
         slot2.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
-        slot2.setAvailable(false);
+        slot2.setBookedCount(1);
         timeSlotRepository.save(slot2);
 
         // Act
@@ -176,18 +185,18 @@ public class TimeSlotRepositoryTest {
     }
 
     @Test
-    void testFindByAvailableTrue() {
+    void testFindAvailable() {
         // Arrange
         timeSlotRepository.save(testSlot); // Available
 
         TimeSlot unavailable = new TimeSlot();
         unavailable.setStartTime(OffsetDateTime.now().plusDays(2));
         unavailable.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
-        unavailable.setAvailable(false);
+        unavailable.setBookedCount(1);
         timeSlotRepository.save(unavailable);
 
         // Act
-        List<TimeSlot> availableSlots = timeSlotRepository.findByAvailableTrue();
+        List<TimeSlot> availableSlots = timeSlotRepository.findAvailable();
 
         // Assert
         assertEquals(1, availableSlots.size());
@@ -199,14 +208,14 @@ public class TimeSlotRepositoryTest {
         // Arrange
         // Slot 1: 10:00 - 11:00
         TimeSlot slot1 = new TimeSlot();
-        slot1.setStartTime(OffsetDateTime.now().plusDays(1).withHour(10).withMinute(0));
-        slot1.setEndTime(OffsetDateTime.now().plusDays(1).withHour(11).withMinute(0));
+        slot1.setStartTime(tomorrow().withHour(10).withMinute(0));
+        slot1.setEndTime(tomorrow().withHour(11).withMinute(0));
         timeSlotRepository.save(slot1);
 
         // Slot 2: 11:00 - 12:00 (Adjacent, not overlapping)
         TimeSlot slot2 = new TimeSlot();
-        slot2.setStartTime(OffsetDateTime.now().plusDays(1).withHour(11).withMinute(0));
-        slot2.setEndTime(OffsetDateTime.now().plusDays(1).withHour(12).withMinute(0));
+        slot2.setStartTime(tomorrow().withHour(11).withMinute(0));
+        slot2.setEndTime(tomorrow().withHour(12).withMinute(0));
         timeSlotRepository.save(slot2);
 
         // Act & Assert
@@ -228,8 +237,8 @@ public class TimeSlotRepositoryTest {
     void testFindOverlappingSlotsExcluding() {
         // Arrange
         TimeSlot slot1 = new TimeSlot();
-        slot1.setStartTime(OffsetDateTime.now().plusDays(1).withHour(10).withMinute(0));
-        slot1.setEndTime(OffsetDateTime.now().plusDays(1).withHour(11).withMinute(0));
+        slot1.setStartTime(tomorrow().withHour(10).withMinute(0));
+        slot1.setEndTime(tomorrow().withHour(11).withMinute(0));
         slot1 = timeSlotRepository.save(slot1);
 
         // Act
@@ -246,8 +255,8 @@ public class TimeSlotRepositoryTest {
         // but here we only have one)
         // Let's add another slot to collide with
         TimeSlot slot2 = new TimeSlot();
-        slot2.setStartTime(OffsetDateTime.now().plusDays(1).withHour(10).withMinute(30));
-        slot2.setEndTime(OffsetDateTime.now().plusDays(1).withHour(11).withMinute(30));
+        slot2.setStartTime(tomorrow().withHour(10).withMinute(30));
+        slot2.setEndTime(tomorrow().withHour(11).withMinute(30));
         timeSlotRepository.save(slot2);
 
         List<TimeSlot> otherOverlap = timeSlotRepository.findOverlappingSlotsExcluding(
@@ -257,4 +266,212 @@ public class TimeSlotRepositoryTest {
         );
         assertEquals(1, otherOverlap.size());
     }
+
+    @Test
+    void testReserveSeatsIfAvailable_CountsOnlySlotsWithFreeSeats() {
+        // Arrange
+        TimeSlot available = timeSlotRepository.save(testSlot);
+        TimeSlot booked = new TimeSlot();
+        booked.setStartTime(OffsetDateTime.now().plusDays(2));
+        booked.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
+        booked.setBookedCount(1);
+        booked = timeSlotRepository.save(booked);
+
+        // Act
+        int claimed = timeSlotRepository.reserveSeatsIfAvailable(List.of(available.getId(), booked.getId()));
+
+        // Assert
+        assertEquals(1, claimed, "Caller detects the shortfall and rolls back");
+        assertEquals(2, timeSlotRepository.countByIdIn(List.of(available.getId(), booked.getId(), 99999L)));
+    }
+
+    @Test
+    void testReserveSeatIfAvailable_FillsCapacity() {
+        // Arrange - one group slot instead of three duplicate slots
+        testSlot.setCapacity(3);
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+
+        // Act
+        int first = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+        int second = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+        int third = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+        int fourth = timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+
+        // Assert
+        assertEquals(3, first + second + third);
+        assertEquals(0, fourth, "No seat is left");
+        TimeSlot reloaded = timeSlotRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(3, reloaded.getBookedCount());
+        assertFalse(reloaded.isAvailable());
+    }
+
+    @Test
+    void testReleaseSeats_NeverGoesBelowZero() {
+        // Arrange
+        testSlot.setCapacity(2);
+        testSlot.setBookedCount(1);
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+
+        // Act & Assert
+        assertEquals(1, timeSlotRepository.releaseSeats(saved.getId(), 1));
+        assertEquals(0, timeSlotRepository.releaseSeats(saved.getId(), 1));
+        assertEquals(0, timeSlotRepository.findById(saved.getId()).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testUpdateIfUnchanged_RejectsCapacityBelowBookedSeats() {
+        // Arrange
+        testSlot.setCapacity(5);
+        testSlot.setBookedCount(3);
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+
+        // Act & Assert
+        assertEquals(0, timeSlotRepository.updateIfUnchanged(saved.getId(), saved.getVersion(),
+                saved.getStartTime(), saved.getEndTime(), 2));
+        assertEquals(1, timeSlotRepository.updateIfUnchanged(saved.getId(), saved.getVersion(),
+                saved.getStartTime(), saved.getEndTime(), 3));
+        assertEquals(3, timeSlotRepository.findById(saved.getId()).orElseThrow().getCapacity());
+    }
+
+    @Test
+    void testUpdateIfUnchanged_RejectsStaleVersion() {
+        // Arrange - a booking after the read moves the version on
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+        long readVersion = saved.getVersion();
+        timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+
+        // Act
+        int updated = timeSlotRepository.updateIfUnchanged(saved.getId(), readVersion, saved.getStartTime(),
+                saved.getEndTime().plusMinutes(30), 1);
+
+        // Assert
+        assertEquals(0, updated);
+        TimeSlot reloaded = timeSlotRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(readVersion + 1, reloaded.getVersion());
+        assertEquals(1, reloaded.getBookedCount());
+    }
+
+    @Test
+    void testScheduleVersion_OnlyBumpedByEdits() {
+        // Arrange
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+        timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+        TimeSlot booked = timeSlotRepository.findById(saved.getId()).orElseThrow();
+
+        // Act
+        timeSlotRepository.updateIfUnchanged(saved.getId(), booked.getVersion(), saved.getStartTime(),
+                saved.getEndTime(), 2);
+
+        // Assert - the booking left the schedule version alone, the edit bumped it
+        assertEquals(0, booked.getScheduleVersion());
+        assertEquals(1, timeSlotRepository.findById(saved.getId()).orElseThrow().getScheduleVersion());
+    }
+
+    @Test
+    void testSave_DoesNotOverwriteSeatCounters() {
+        // Arrange
+        TimeSlot saved = timeSlotRepository.save(testSlot);
+        TimeSlot stale = timeSlotRepository.findById(saved.getId()).orElseThrow();
+        timeSlotRepository.reserveSeatIfAvailable(saved.getId());
+
+        // Act - saving a copy loaded before the booking must not free the seat
+        stale.setBookedCount(0);
+        stale.setEndTime(stale.getEndTime().plusMinutes(30));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> timeSlotRepository.saveAndFlush(stale));
+        entityManager.clear();
+
+        // Assert
+        assertEquals(1, timeSlotRepository.findById(saved.getId()).orElseThrow().getBookedCount());
+    }
+
+    @Test
+    void testFindOverlappingSlotsForResource_IsScopedToResource() {
+        // Arrange - the same hour on two resources and on the global timeline
+        Resource alice = entityManager.persist(resource("Alice"));
+        Resource roomA = entityManager.persist(resource("Room A"));
+        entityManager.persist(slot(alice, 10, 11));
+        entityManager.persist(slot(roomA, 10, 11));
+        entityManager.persist(slot(null, 10, 11));
+        entityManager.flush();
+
+        OffsetDateTime start = tomorrow().withHour(10).withMinute(30);
+        OffsetDateTime end = tomorrow().withHour(11).withMinute(30);
+
+        // Act & Assert
+        assertEquals(1, timeSlotRepository.findOverlappingSlotsForResource(alice.getId(), start, end).size());
+        assertEquals(1, timeSlotRepository.findOverlappingSlots(start, end).size());
+        assertTrue(timeSlotRepository.findOverlappingSlotsForResource(alice.getId(),
+                end, end.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void testFindAvailableForResource_ReturnsOpenSlotsInStartOrder() {
+        // Arrange
+        Resource alice = entityManager.persist(resource("Alice"));
+        TimeSlot late = entityManager.persist(slot(alice, 14, 15));
+        TimeSlot early = entityManager.persist(slot(alice, 9, 10));
+        TimeSlot full = slot(alice, 11, 12);
+        full.setBookedCount(1);
+        entityManager.persist(full);
+        entityManager.persist(slot(null, 12, 13));
+        entityManager.flush();
+
+        // Act
+        List<TimeSlot> available = timeSlotRepository.findAvailableForResource(alice.getId(),
+                tomorrow(), tomorrow().plusDays(1));
+
+        // Assert
+        assertEquals(List.of(early.getId(), late.getId()), available.stream().map(TimeSlot::getId).toList());
+    }
+
+    @Test
+    void testDetachCancelledAppointments_LetsSlotBeDeleted() {
+        // Arrange - one cancelled and one booked appointment on different slots
+        TimeSlot slot = entityManager.persist(slot(null, 9, 10));
+        TimeSlot other = entityManager.persist(slot(null, 11, 12));
+        Appointment cancelled = entityManager.persist(appointment(slot, AppointmentStatus.CANCELLED));
+        Appointment booked = entityManager.persist(appointment(other, AppointmentStatus.BOOKED));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        int detached = timeSlotRepository.detachCancelledAppointments(slot.getId());
+        timeSlotRepository.deleteById(slot.getId());
+        timeSlotRepository.flush();
+        entityManager.clear();
+
+        // Assert - the history row is kept, only unlinked
+        assertEquals(1, detached);
+        assertNull(entityManager.find(Appointment.class, cancelled.getId()).getTimeSlot());
+        assertEquals(other.getId(), entityManager.find(Appointment.class, booked.getId()).getTimeSlot().getId());
+        assertTrue(timeSlotRepository.findById(slot.getId()).isEmpty());
+    }
+
+    private static Appointment appointment(TimeSlot slot, AppointmentStatus status) {
+        Appointment appointment = new Appointment();
+        appointment.setCustomerName("Jane");
+        appointment.setTimeSlot(slot);
+        appointment.setStartTime(slot.getStartTime());
+        appointment.setEndTime(slot.getEndTime());
+        appointment.setStatus(status);
+        return appointment;
+    }
+
+    private static Resource resource(String name) {
+        Resource resource = new Resource();
+        resource.setName(name);
+        return resource;
+    }
+
+    private static TimeSlot slot(Resource resource, int startHour, int endHour) {
+        TimeSlot slot = new TimeSlot();
+        slot.setResource(resource);
+        slot.setStartTime(tomorrow().withHour(startHour));
+        slot.setEndTime(tomorrow().withHour(endHour));
+        return slot;
+    }
+
+    private static OffsetDateTime tomorrow() {
+        return OffsetDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+    }
 }
@@ -0,0 +1,110 @@
+package com.example.booking.repository;
+
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for UserRepository.
+ * Tests the JDBC batch insert used by the bulk import, the existence
+ * lookups it runs first and the customer lookup. Runs without the test transaction so the batch
+ * insert commits or rolls back on its own, as it does in production.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testInsertSkippingDuplicates_ReportsEachRow() {
+        // Arrange
+        userRepository.save(user("existing", "existing@example.com"));
+
+        // Act
+        boolean[] inserted = userRepository.insertSkippingDuplicates(List.of(
+                user("alice", "alice@example.com"),
+                user("existing", "other@example.com"),
+                user("bob", "existing@example.com"),
+                user("carol", "carol@example.com")));
+
+        // Assert
+        assertArrayEquals(new boolean[] { true, false, false, true }, inserted);
+        User alice = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals("USER", alice.getRole());
+        assertEquals(0, alice.getTokenVersion());
+        assertTrue(userRepository.findByUsername("bob").isEmpty());
+    }
+
+    @Test
+    void testInsertSkippingDuplicates_CommitsCleanBatch() {
+        // Act
+        boolean[] inserted = userRepository.insertSkippingDuplicates(List.of(
+                user("alice", "alice@example.com"),
+                user("bob", "bob@example.com")));
+
+        // Assert
+        assertArrayEquals(new boolean[] { true, true }, inserted);
+        assertEquals(2, userRepository.count());
+    }
+
+    @Test
+    void testFindExistingUsernamesAndEmails() {
+        // Arrange
+        userRepository.save(user("existing", "existing@example.com"));
+
+        // Act & Assert
+        assertEquals(List.of("existing"), userRepository.findExistingUsernames(List.of("existing", "new")));
+        assertEquals(List.of("existing@example.com"),
+                userRepository.findExistingEmails(List.of("existing@example.com", "new@example.com")));
+    }
+
+    @Test
+    void testFindCustomersMatching_InfixOnUsernameEmailAndPhone() {
+        // Arrange
+        userRepository.save(user("janesmith", "jane@example.com"));
+        User other = user("bob", "bob@example.org");
+        other.setPhone("5559876543");
+        userRepository.save(other);
+
+        // Act
+        List<CustomerMatch> byName = userRepository.findCustomersMatching("%smi%", Limit.of(10));
+        List<CustomerMatch> byEmail = userRepository.findCustomersMatching("%example.org%", Limit.of(10));
+        List<CustomerMatch> byPhone = userRepository.findCustomersMatching("%987%", Limit.of(10));
+        List<CustomerMatch> literal = userRepository.findCustomersMatching("%!_%", Limit.of(10));
+
+        // Assert
+        assertEquals("janesmith", byName.get(0).getName());
+        assertNotNull(byName.get(0).getUserId());
+        assertEquals(List.of("bob"), byEmail.stream().map(CustomerMatch::getName).toList());
+        assertEquals(List.of("bob"), byPhone.stream().map(CustomerMatch::getName).toList());
+        assertTrue(literal.isEmpty());
+    }
+
+    private static User user(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("$2a$04$hash");
+        user.setEmail(email);
+        user.setPhone("1234567890");
+        return user;
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.booking.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateLimitFilter.
+ * Tests token buckets per rule and key, Retry-After, keying logins by the
+ * username in the body and idle bucket eviction.
+ */
+public class RateLimitFilterTest {
+    private static final String RULES = "GET /api/timeslots/** ip 2 60, POST /api/auth/login user 1 6";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+        filter = new RateLimitFilter(RULES, 1000, new ObjectMapper(), nanos::get);
+    }
+
+    @Test
+    void testBurstThenRejectWithRetryAfter() throws Exception {
+        // Act
+        assertEquals(200, get("/api/timeslots", "10.0.0.1").getStatus());
+        assertEquals(200, get("/api/timeslots/available", "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = get("/api/timeslots", "10.0.0.1");
+
+        // Assert - one token per second at 60 per minute
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("Too many requests"));
+    }
+
+    @Test
+    void testTokensRefillOverTime() throws Exception {
+        // Arrange
+        get("/api/timeslots", "10.0.0.1");
+        get("/api/timeslots", "10.0.0.1");
+        assertEquals(429, get("/api/timeslots", "10.0.0.1").getStatus());
+
+        // Act
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Assert
+        assertEquals(200, get("/api/timeslots", "10.0.0.1").getStatus());
+        assertEquals(429, get("/api/timeslots", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void testKeysAndUnmatchedPathsAreIndependent() throws Exception {
+        // Arrange
+        get("/api/timeslots", "10.0.0.1");
+        get("/api/timeslots", "10.0.0.1");
+
+        // Act & Assert
+        assertEquals(200, get("/api/timeslots", "10.0.0.2").getStatus());
+        assertEquals(200, get("/api/appointments", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void testLoginIsLimitedPerUsernameAndBodyStaysReadable() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+
+        // Act - the same username from two addresses, then another username
+        filter.doFilter(login("alice", "10.0.0.1"), first, chain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(login("alice", "10.0.0.2"), second, new MockFilterChain());
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(login("bob", "10.0.0.1"), other, new MockFilterChain());
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        String forwarded = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(forwarded.contains("\"alice\""));
+        assertEquals(429, second.getStatus());
+        assertEquals("10", second.getHeader("Retry-After"));
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void testPaddedLoginsShareOneBucket() throws Exception {
+        // Arrange - bodies too large to look for the username in, from different addresses
+        MockHttpServletRequest first = paddedLogin("alice", "10.0.0.1");
+        MockHttpServletRequest second = paddedLogin("alice", "10.0.0.2");
+
+        // Act
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        filter.doFilter(first, firstResponse, new MockFilterChain());
+        MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+        filter.doFilter(second, secondResponse, new MockFilterChain());
+
+        // Assert - not keyed by address, so spreading the attempts over addresses does not help
+        assertEquals(200, firstResponse.getStatus());
+        assertEquals(429, secondResponse.getStatus());
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(login("bob", "10.0.0.3"), other, new MockFilterChain());
+        assertEquals(200, other.getStatus());
+    }
+
+    @Test
+    void testChunkedLoginIsKeyedByUsername() throws Exception {
+        // Arrange - no Content-Length
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(chunked(login("alice", "10.0.0.1")), first, chain);
+        filter.doFilter(chunked(login("alice", "10.0.0.2")), second, new MockFilterChain());
+
+        // Assert
+        assertEquals(200, first.getStatus());
+        assertTrue(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                .contains("\"alice\""));
+        assertEquals(429, second.getStatus());
+    }
+
+    @Test
+    void testOversizedChunkedLoginIsRejected() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(chunked(paddedLogin("alice", "10.0.0.1")), response, chain);
+
+        // Assert
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void testAuthenticatedCallerIsKeyedByUsername() throws Exception {
+        // Arrange
+        filter = new RateLimitFilter("POST /api/appointments/** user 1 60", 1000, new ObjectMapper(), nanos::get);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of()));
+
+        // Act & Assert
+        assertEquals(200, post("/api/appointments", "10.0.0.1").getStatus());
+        assertEquals(429, post("/api/appointments/hold", "10.0.0.2").getStatus());
+        SecurityContextHolder.clearContext();
+        assertEquals(200, post("/api/appointments", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(2, 60, 1000, nanos::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.tryAcquire("c");
+
+        // Act - "a" and "b" have refilled, "c" has not
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        int evicted = limiter.evictIdle();
+
+        // Assert
+        assertEquals(2, evicted);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void testKeyCountIsBounded() {
+        // Arrange
+        RateLimiter limiter = new RateLimiter(1, 1, 3, nanos::get);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        // Assert
+        assertTrue(limiter.size() <= 3);
+    }
+
+    @Test
+    void testFullMapIsShrunkInBatches() {
+        // Arrange - every bucket stays active, so only the batch eviction frees room
+        RateLimiter limiter = new RateLimiter(1, 1, 100, nanos::get);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+        assertEquals(100, limiter.size());
+
+        // Act
+        limiter.tryAcquire("client-100");
+
+        // Assert - shrunk to three quarters before the new key went in
+        assertEquals(76, limiter.size());
+        for (int i = 101; i < 125; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+        assertEquals(100, limiter.size());
+    }
+
+    @Test
+    void testCachedBodySupportsReadListener() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(login("alice", "10.0.0.1"), new MockHttpServletResponse(), chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        StringBuilder body = new StringBuilder();
+        AtomicBoolean done = new AtomicBoolean();
+
+        // Act
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    body.append((char) in.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                done.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        // Assert
+        assertTrue(done.get());
+        assertTrue(body.toString().contains("\"alice\""));
+    }
+
+    @Test
+    void testInvalidRuleIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitFilter("GET /api/timeslots session 1 1", 1000, new ObjectMapper(), nanos::get));
+    }
+
+    private MockHttpServletResponse get(String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private MockHttpServletResponse post(String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest login(String username, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"secret\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletRequest paddedLogin(String username, String ip) {
+        MockHttpServletRequest request = login(username, ip);
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"secret\",\"padding\":\""
+                + "x".repeat(5000) + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // The same request sent with chunked transfer encoding
+    private static MockHttpServletRequest chunked(MockHttpServletRequest request) {
+        MockHttpServletRequest chunked = new MockHttpServletRequest(request.getMethod(), request.getRequestURI()) {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setRemoteAddr(request.getRemoteAddr());
+        chunked.setContentType(request.getContentType());
+        chunked.setContent(request.getContentAsByteArray());
+        return chunked;
+    }
+}
@@ -12,18 +12,31 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Optional;
+import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class SecurityTest {
+    private static final String SECRET = "v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp";
 
-    @InjectMocks
     private JwtUtil jwtUtil;
 
     @Mock
@@ -39,19 +52,23 @@ public class SecurityTest {
     @Mock
     private FilterChain filterChain;
 
+    private User testUser;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
-        // Inject secret manually since it's @Value
-        ReflectionTestUtils.setField(jwtUtil, "secretString",
-                "v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp");
+        jwtUtil = new JwtUtil(SECRET);
+        testUser = new User();
+        testUser.setId(7L);
+        testUser.setUsername("testuser");
+        testUser.setRole("ADMIN");
         ReflectionTestUtils.setField(jwtAuthenticationFilter, "jwtUtil", jwtUtil);
     }
 
     @Test
     public void testJwtUtil() {
-        String token = jwtUtil.generateToken("testuser");
+        String token = jwtUtil.generateToken(testUser);
         assertNotNull(token);
         assertEquals("testuser", jwtUtil.extractUsername(token));
         assertTrue(jwtUtil.validateToken(token));
@@ -62,21 +79,79 @@ public class SecurityTest {
         assertFalse(jwtUtil.validateToken("invalid.token.here"));
     }
 
+    @Test
+    public void testParseClaims() {
+        String token = jwtUtil.generateToken(testUser);
+
+        assertEquals("testuser", jwtUtil.parseClaims(token).getSubject());
+        assertNull(jwtUtil.parseClaims(token.substring(0, token.length() - 2)));
+        assertNull(new JwtUtil("another-secret-that-is-long-enough-for-hs512-signing-keys-0123456789")
+                .parseClaims(token));
+    }
+
     @Test
     public void testFilterWithValidToken() throws ServletException, IOException {
-        String token = jwtUtil.generateToken("testuser");
+        String token = jwtUtil.generateToken(testUser);
         Cookie cookie = new Cookie("jwt", token);
 
         when(request.getCookies()).thenReturn(new Cookie[] { cookie });
-        when(userService.getUserByUsername("testuser")).thenReturn(Optional.of(new User()));
+        when(userService.isTokenVersionCurrent(7L, 0)).thenReturn(true);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals("testuser", SecurityContextHolder.getContext().getAuthentication().getName());
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication()
+                .getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        // The user is not loaded from the database
+        verify(userService, never()).getUserByUsername(any());
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    public void testFilterWithRevokedToken() throws ServletException, IOException {
+        Cookie cookie = new Cookie("jwt", jwtUtil.generateToken(testUser));
+        when(request.getCookies()).thenReturn(new Cookie[] { cookie });
+        when(userService.isTokenVersionCurrent(7L, 0)).thenReturn(false);
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void testParsePrincipalRequiresUserClaims() {
+        // Tokens from before the user claims were added only carry a subject
+        String legacy = Jwts.builder().setSubject("testuser")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertNull(jwtUtil.parsePrincipal(legacy));
+        AuthenticatedUser principal = jwtUtil.parsePrincipal(jwtUtil.generateToken(testUser));
+        assertEquals(7L, principal.getId());
+        assertEquals("ADMIN", principal.getRole());
+        assertEquals(0, principal.getTokenVersion());
+    }
+
+    @Test
+    public void testParsePrincipalCachesVerifiedTokens() {
+        String token = jwtUtil.generateToken(testUser);
+
+        AuthenticatedUser first = jwtUtil.parsePrincipal(token);
+        AuthenticatedUser second = jwtUtil.parsePrincipal(token);
+
+        assertSame(first, second);
+        assertEquals(1, jwtUtil.cachedTokens());
+        // A token with a different signature is verified, fails and is not cached
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertNull(jwtUtil.parsePrincipal(tampered));
+        assertEquals(1, jwtUtil.cachedTokens());
+    }
+
     @Test
     public void testFilterWithNoCookie() throws ServletException, IOException {
         when(request.getCookies()).thenReturn(null);
@@ -97,4 +172,72 @@ public class SecurityTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain).doFilter(request, response);
     }
+
+    @Test
+    public void testCancellationTokenRoundTrip() {
+        CancellationTokenSigner signer = new CancellationTokenSigner("cancel-secret");
+        String token = signer.sign(42L, OffsetDateTime.now().plusDays(1));
+
+        assertEquals(42L, signer.verify(token));
+    }
+
+    @Test
+    public void testCancellationTokenRejectsForgeries() {
+        CancellationTokenSigner signer = new CancellationTokenSigner("cancel-secret");
+        String token = signer.sign(42L, OffsetDateTime.now().plusDays(1));
+        String otherId = "43" + token.substring(token.indexOf('.'));
+
+        assertNull(signer.verify(otherId));
+        assertNull(new CancellationTokenSigner("other-secret").verify(token));
+        assertNull(signer.verify("550e8400-e29b-41d4-a716-446655440000"));
+        assertNull(signer.verify("42.abc.def"));
+        assertNull(signer.verify(token + "x".repeat(100)));
+        assertNull(signer.verify(null));
+    }
+
+    @Test
+    public void testCalendarFeedTokenRoundTrip() {
+        CalendarFeedTokenSigner signer = new CalendarFeedTokenSigner("calendar-secret");
+        String token = signer.sign(42L, 3);
+
+        assertEquals(new CalendarFeedTokenSigner.FeedToken(42L, 3), signer.verify(token));
+        assertNull(signer.verify("43" + token.substring(token.indexOf('.'))));
+        // Bumping the version in the URL does not carry the signature over
+        assertNull(signer.verify(token.replace("42.3.", "42.4.")));
+        assertNull(new CalendarFeedTokenSigner("other-secret").verify(token));
+        // A cancellation token signed with the same secret is not a feed token
+        assertNull(signer.verify(new CancellationTokenSigner("calendar-secret")
+                .sign(42L, OffsetDateTime.now().plusDays(1))));
+        assertNull(signer.verify("42"));
+        assertNull(signer.verify("x.abc"));
+        assertNull(signer.verify("42..abc"));
+        assertNull(signer.verify(null));
+    }
+
+    @Test
+    public void testCancellationTokenExpires() {
+        Instant now = Instant.parse("2030-01-01T10:00:00Z");
+        CancellationTokenSigner signer = new CancellationTokenSigner("cancel-secret",
+                Clock.fixed(now, ZoneOffset.UTC));
+
+        assertEquals(1L, signer.verify(signer.sign(1L, OffsetDateTime.ofInstant(now, ZoneOffset.UTC))));
+        assertNull(signer.verify(signer.sign(1L, OffsetDateTime.ofInstant(now.minusSeconds(1), ZoneOffset.UTC))));
+    }
+
+    @Test
+    public void testCancellationTokenMatchesSharedVector() throws IOException {
+        // The reactive backend checks the same vector, so tokens stay redeemable on either stack
+        Properties vector = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of("..", "testdata", "cancellation-token.properties"))) {
+            vector.load(reader);
+        }
+        Instant expiresAt = Instant.parse(vector.getProperty("expires-at"));
+        long appointmentId = Long.parseLong(vector.getProperty("appointment-id"));
+        CancellationTokenSigner signer = new CancellationTokenSigner(vector.getProperty("secret"),
+                Clock.fixed(expiresAt.minusSeconds(60), ZoneOffset.UTC));
+
+        assertEquals(vector.getProperty("token"),
+                signer.sign(appointmentId, OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC)));
+        assertEquals(appointmentId, signer.verify(vector.getProperty("token")));
+    }
 }
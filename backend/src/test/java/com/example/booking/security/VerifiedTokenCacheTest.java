@@ -0,0 +1,98 @@
+package com.example.booking.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VerifiedTokenCache.
+ * Tests expiry at the token's exp and least-recently-used eviction.
+ */
+public class VerifiedTokenCacheTest {
+    private static final AuthenticatedUser PRINCIPAL = new AuthenticatedUser(1L, "testuser", "USER", 0);
+
+    private final AtomicLong millis = new AtomicLong(1_000);
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(10, millis::get);
+    }
+
+    @Test
+    void testHitUntilExpiry() {
+        // Arrange
+        cache.put("token", PRINCIPAL, 2_000);
+
+        // Act & Assert
+        assertSame(PRINCIPAL, cache.get("token"));
+        assertNull(cache.get("other-token"));
+        millis.set(2_000);
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpiredTokenIsNotCached() {
+        // Act
+        cache.put("token", PRINCIPAL, 1_000);
+
+        // Assert
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedTokensAreEvicted() {
+        // Arrange - ten tokens, of which token-0 is used again last
+        for (int i = 0; i < 10; i++) {
+            millis.incrementAndGet();
+            cache.put("token-" + i, PRINCIPAL, 60_000);
+        }
+        millis.incrementAndGet();
+        cache.get("token-0");
+
+        // Act
+        millis.incrementAndGet();
+        cache.put("token-10", PRINCIPAL, 60_000);
+
+        // Assert - token-1 and token-2 were the least recently used
+        assertTrue(cache.size() <= 10);
+        assertNotNull(cache.get("token-0"));
+        assertNotNull(cache.get("token-10"));
+        assertNull(cache.get("token-1"));
+        assertNull(cache.get("token-2"));
+    }
+
+    @Test
+    void testExpiredTokensAreEvictedFirst() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            cache.put("token-" + i, PRINCIPAL, i < 5 ? 1_500 : 60_000);
+        }
+        millis.set(1_500);
+
+        // Act
+        cache.put("token-10", PRINCIPAL, 60_000);
+
+        // Assert
+        assertEquals(6, cache.size());
+        assertNotNull(cache.get("token-5"));
+    }
+
+    @Test
+    void testZeroSizeDisablesCache() {
+        // Arrange
+        cache = new VerifiedTokenCache(0, millis::get);
+
+        // Act
+        cache.put("token", PRINCIPAL, 60_000);
+
+        // Assert
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.CancelledBooking;
+import com.example.booking.model.Appointment;
+import jakarta.mail.MessagingException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AppointmentMailer.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AppointmentMailerTest {
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AppointmentMailer appointmentMailer;
+
+    private Appointment appointment;
+
+    @BeforeEach
+    void setUp() {
+        appointment = new Appointment();
+        appointment.setCustomerName("John Doe");
+        appointment.setCustomerEmail("john@example.com");
+        appointment.setCancellationToken("token-123");
+        appointment.setStartTime(OffsetDateTime.now().plusDays(1));
+        appointment.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
+    }
+
+    @Test
+    void testSendConfirmation() {
+        // Arrange
+        when(mailSender.createMimeMessage()).thenReturn(mock(MimeMessage.class));
+
+        // Act
+        appointmentMailer.sendConfirmation(appointment);
+
+        // Assert
+        verify(mailSender).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void testSendConfirmation_SwallowsMessagingErrors() throws Exception {
+        // Arrange
+        MimeMessage message = mock(MimeMessage.class);
+        doThrow(new MessagingException("bad header")).when(message).setSubject(anyString());
+        when(mailSender.createMimeMessage()).thenReturn(message);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> appointmentMailer.sendConfirmation(appointment));
+        verify(mailSender, never()).send(any(MimeMessage.class));
+        assertEquals(1, meterRegistry.get("booking.mail.failed").tag("type", "confirmation").counter().count());
+    }
+
+    @Test
+    void testSendConfirmation_TimesSendAndCountsSmtpFailures() {
+        // Arrange
+        when(mailSender.createMimeMessage()).thenReturn(mock(MimeMessage.class));
+        doThrow(new MailSendException("connection refused")).when(mailSender).send(any(MimeMessage.class));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> appointmentMailer.sendConfirmation(appointment));
+        assertEquals(1, meterRegistry.get("booking.mail.send").tag("type", "confirmation").timer().count());
+        assertEquals(1, meterRegistry.get("booking.mail.failed").tag("type", "confirmation").counter().count());
+    }
+
+    @Test
+    void testSendCancellationNotices_OneMessagePerCustomerInOneBatch() {
+        // Arrange
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> mock(MimeMessage.class));
+        OffsetDateTime start = OffsetDateTime.now().plusDays(1);
+        List<CancelledBooking> bookings = List.of(
+                new CancelledBooking(1L, "John Doe", "john@example.com", start, start.plusHours(1)),
+                new CancelledBooking(2L, "John Doe", "john@example.com", start.plusHours(2), start.plusHours(3)),
+                new CancelledBooking(3L, "Jane Roe", "jane@example.com", start, start.plusHours(1)),
+                new CancelledBooking(4L, "Walk-in", null, start, start.plusHours(1)));
+
+        // Act
+        appointmentMailer.sendCancellationNotices(bookings);
+
+        // Assert - two customers with an address, sent together
+        verify(mailSender, times(2)).createMimeMessage();
+        verify(mailSender).send(any(MimeMessage.class), any(MimeMessage.class));
+    }
+}
@@ -1,20 +1,33 @@
 package com.example.booking.service;
 
+import com.example.booking.dto.AppointmentPage;
+import com.example.booking.dto.AppointmentSearch;
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.dto.BulkCancellationResult;
+import com.example.booking.dto.CancelledBooking;
 import com.example.booking.model.Appointment;
+import com.example.booking.model.AppointmentStatus;
 import com.example.booking.model.TimeSlot;
 import com.example.booking.model.User;
 import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.repository.SlotHoldRepository;
 import com.example.booking.repository.TimeSlotRepository;
+import com.example.booking.security.CancellationTokenSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.javamail.JavaMailSender;
-import jakarta.mail.internet.MimeMessage;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,7 +48,19 @@ public class AppointmentServiceTest {
     private TimeSlotRepository timeSlotRepository;
 
     @Mock
-    private JavaMailSender mailSender;
+    private SlotHoldRepository slotHoldRepository;
+
+    @Mock
+    private AppointmentMailer appointmentMailer;
+
+    @Mock
+    private CalendarFeedService calendarFeedService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CancellationTokenSigner cancellationTokenSigner = new CancellationTokenSigner("test-secret");
 
     @InjectMocks
     private AppointmentService appointmentService;
@@ -52,14 +77,13 @@ public class AppointmentServiceTest {
         availableTimeSlot.setId(1L);
         availableTimeSlot.setStartTime(OffsetDateTime.now().plusDays(1));
         availableTimeSlot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
-        availableTimeSlot.setAvailable(true);
 
         // Setup unavailable time slot
         unavailableTimeSlot = new TimeSlot();
         unavailableTimeSlot.setId(2L);
         unavailableTimeSlot.setStartTime(OffsetDateTime.now().plusDays(2));
         unavailableTimeSlot.setEndTime(OffsetDateTime.now().plusDays(2).plusHours(1));
-        unavailableTimeSlot.setAvailable(false);
+        unavailableTimeSlot.setBookedCount(1);
 
         // Setup test appointment
         testAppointment = new Appointment();
@@ -73,15 +97,12 @@ public class AppointmentServiceTest {
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
-
-        // Mock MimeMessage creation to prevent NPE
-        lenient().when(mailSender.createMimeMessage()).thenReturn(mock(MimeMessage.class));
     }
 
     @Test
     void testBookAppointment_Success_WithUser() {
         // Arrange
-        when(timeSlotRepository.markAsUnavailableIfAvailable(1L)).thenReturn(1);
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
         when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(availableTimeSlot));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
             Appointment saved = invocation.getArgument(0);
@@ -98,18 +119,21 @@ public class AppointmentServiceTest {
         assertEquals(availableTimeSlot, result.getTimeSlot());
         assertNotNull(result.getCancellationToken());
         assertEquals("John Doe", result.getCustomerName());
+        assertEquals(1, meterRegistry.get("booking.appointment.book")
+                .tags("operation", "single", "outcome", "booked").timer().count());
 
         // Verify interactions
-        verify(timeSlotRepository).markAsUnavailableIfAvailable(1L);
+        verify(timeSlotRepository).reserveSeatIfAvailable(1L);
         verify(timeSlotRepository).findById(1L);
         verify(appointmentRepository).save(any(Appointment.class));
-        verify(mailSender).send(any(MimeMessage.class));
+        verify(appointmentMailer).sendConfirmation(any(Appointment.class));
+        verify(calendarFeedService).invalidate(1L);
     }
 
     @Test
     void testBookAppointment_Success_WithoutUser() {
         // Arrange
-        when(timeSlotRepository.markAsUnavailableIfAvailable(1L)).thenReturn(1);
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
         when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(availableTimeSlot));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
             Appointment saved = invocation.getArgument(0);
@@ -127,16 +151,36 @@ public class AppointmentServiceTest {
         assertNotNull(result.getCancellationToken());
 
         // Verify interactions
-        verify(timeSlotRepository).markAsUnavailableIfAvailable(1L);
+        verify(timeSlotRepository).reserveSeatIfAvailable(1L);
         verify(timeSlotRepository).findById(1L);
         verify(appointmentRepository).save(any(Appointment.class));
-        verify(mailSender).send(any(MimeMessage.class));
+        verify(appointmentMailer).sendConfirmation(any(Appointment.class));
+    }
+
+    @Test
+    void testBookAppointment_FullMailQueueDoesNotFailBooking() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
+        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(availableTimeSlot));
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment saved = invocation.getArgument(0);
+            saved.setId(100L);
+            return saved;
+        });
+        doThrow(new TaskRejectedException("mail queue full")).when(appointmentMailer).sendConfirmation(any());
+
+        // Act
+        Appointment result = assertDoesNotThrow(() -> appointmentService.bookAppointment(testAppointment, 1L, null));
+
+        // Assert
+        assertEquals(100L, result.getId());
+        assertEquals(1, meterRegistry.get("booking.mail.failed").tag("type", "confirmation").counter().count());
     }
 
     @Test
     void testBookAppointment_FailsWhenSlotAlreadyBooked() {
         // Arrange - atomic update returns 0 (slot already unavailable)
-        when(timeSlotRepository.markAsUnavailableIfAvailable(2L)).thenReturn(0);
+        when(timeSlotRepository.reserveSeatIfAvailable(2L)).thenReturn(0);
         when(timeSlotRepository.existsById(2L)).thenReturn(true);
 
         // Act & Assert
@@ -147,16 +191,18 @@ public class AppointmentServiceTest {
         assertEquals("Time slot is not available", exception.getMessage());
 
         // Verify
-        verify(timeSlotRepository).markAsUnavailableIfAvailable(2L);
+        verify(timeSlotRepository).reserveSeatIfAvailable(2L);
         verify(timeSlotRepository).existsById(2L);
         verify(appointmentRepository, never()).save(any());
-        verify(mailSender, never()).send(any(MimeMessage.class));
+        verify(appointmentMailer, never()).sendConfirmation(any());
+        assertEquals(1, meterRegistry.get("booking.appointment.book")
+                .tags("operation", "single", "outcome", "conflict").timer().count());
     }
 
     @Test
     void testBookAppointment_FailsWhenSlotNotFound() {
         // Arrange - atomic update returns 0 and slot doesn't exist
-        when(timeSlotRepository.markAsUnavailableIfAvailable(999L)).thenReturn(0);
+        when(timeSlotRepository.reserveSeatIfAvailable(999L)).thenReturn(0);
         when(timeSlotRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
@@ -167,16 +213,107 @@ public class AppointmentServiceTest {
         assertEquals("Time slot not found", exception.getMessage());
 
         // Verify
-        verify(timeSlotRepository).markAsUnavailableIfAvailable(999L);
+        verify(timeSlotRepository).reserveSeatIfAvailable(999L);
         verify(timeSlotRepository).existsById(999L);
         verify(appointmentRepository, never()).save(any());
-        verify(mailSender, never()).send(any(MimeMessage.class));
+        verify(appointmentMailer, never()).sendConfirmation(any());
+    }
+
+    @Test
+    void testConfirmHeldAppointment_Success() {
+        // Arrange
+        when(slotHoldRepository.confirmHold(eq(1L), eq(1L), any(OffsetDateTime.class))).thenReturn(1);
+        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(availableTimeSlot));
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Appointment result = appointmentService.confirmHeldAppointment(testAppointment, 1L, testUser);
+
+        // Assert
+        assertEquals(availableTimeSlot, result.getTimeSlot());
+        assertEquals(testUser, result.getUser());
+        verify(timeSlotRepository, never()).reserveSeatIfAvailable(any());
+        verify(appointmentMailer).sendConfirmation(any(Appointment.class));
+    }
+
+    @Test
+    void testConfirmHeldAppointment_FailsWhenHoldExpired() {
+        // Arrange
+        when(slotHoldRepository.confirmHold(eq(1L), eq(1L), any(OffsetDateTime.class))).thenReturn(0);
+        when(timeSlotRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> appointmentService.confirmHeldAppointment(testAppointment, 1L, testUser));
+        verify(appointmentRepository, never()).save(any());
+    }
+
+    @Test
+    void testBookAppointments_BooksAllSlots() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatsIfAvailable(anyCollection())).thenReturn(2);
+        when(timeSlotRepository.findAllById(anyIterable()))
+                .thenReturn(java.util.List.of(unavailableTimeSlot, availableTimeSlot));
+        doAnswer(invocation -> {
+            java.util.List<Appointment> inserted = invocation.getArgument(0);
+            for (int i = 0; i < inserted.size(); i++) {
+                inserted.get(i).setId(200L + i);
+            }
+            return null;
+        }).when(appointmentRepository).batchInsert(anyList());
+
+        // Act
+        java.util.List<Appointment> result = appointmentService.bookAppointments(testAppointment,
+                java.util.List.of(1L, 2L), testUser);
+
+        // Assert - sorted by start time, one appointment per slot
+        assertEquals(2, result.size());
+        assertEquals(availableTimeSlot, result.get(0).getTimeSlot());
+        assertEquals(unavailableTimeSlot, result.get(1).getTimeSlot());
+        assertEquals("Consultation", result.get(1).getService());
+        assertNotEquals(result.get(0).getCancellationToken(), result.get(1).getCancellationToken());
+        verify(appointmentRepository).batchInsert(result);
+        verify(appointmentRepository, never()).save(any());
+        verify(appointmentMailer, times(2)).sendConfirmation(any(Appointment.class));
+    }
+
+    @Test
+    void testBookAppointments_FailsWhenAnySlotUnavailable() {
+        // Arrange - only one of the two slots could be claimed
+        when(timeSlotRepository.reserveSeatsIfAvailable(anyCollection())).thenReturn(1);
+        when(timeSlotRepository.countByIdIn(anyCollection())).thenReturn(2L);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> appointmentService.bookAppointments(testAppointment, java.util.List.of(1L, 2L), testUser));
+        verify(appointmentRepository, never()).batchInsert(any());
+        verify(appointmentMailer, never()).sendConfirmation(any());
+    }
+
+    @Test
+    void testBookAppointments_FailsWhenSlotNotFound() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatsIfAvailable(anyCollection())).thenReturn(1);
+        when(timeSlotRepository.countByIdIn(anyCollection())).thenReturn(1L);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.bookAppointments(testAppointment, java.util.List.of(1L, 999L), testUser));
+        assertEquals("Time slot not found", exception.getMessage());
+    }
+
+    @Test
+    void testBookAppointments_RejectsDuplicateIds() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.bookAppointments(testAppointment, java.util.List.of(1L, 1L), testUser));
+        verify(timeSlotRepository, never()).reserveSeatsIfAvailable(any());
     }
 
     @Test
     void testBookAppointment_GeneratesCancellationToken() {
         // Arrange
-        when(timeSlotRepository.markAsUnavailableIfAvailable(1L)).thenReturn(1);
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
         when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(availableTimeSlot));
         when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
             Appointment saved = invocation.getArgument(0);
@@ -189,160 +326,261 @@ public class AppointmentServiceTest {
 
         // Assert
         assertNotNull(result.getCancellationToken());
-        assertTrue(result.getCancellationToken().length() > 0);
+        assertEquals(100L, cancellationTokenSigner.verify(result.getCancellationToken()));
     }
 
     @Test
     void testCancelAppointment_Success() {
         // Arrange
-        Appointment appointment = new Appointment();
-        appointment.setId(100L);
-        appointment.setTimeSlot(unavailableTimeSlot);
-
-        when(appointmentRepository.findById(100L)).thenReturn(Optional.of(appointment));
-        doNothing().when(appointmentRepository).delete(appointment);
+        when(appointmentRepository.cancelIfBooked(100L)).thenReturn(1);
+        when(appointmentRepository.findUserIdById(100L)).thenReturn(Optional.of(1L));
 
         // Act
-        appointmentService.cancelAppointment(100L);
+        boolean result = appointmentService.cancelAppointment(100L);
 
-        // Assert
-        verify(appointmentRepository).findById(100L);
-        verify(timeSlotRepository).save(unavailableTimeSlot);
-        verify(appointmentRepository).delete(appointment);
-        assertTrue(unavailableTimeSlot.isAvailable(), "Time slot should be marked as available after cancellation");
+        // Assert - slot locked before the appointment row, two conditional updates, no delete
+        assertTrue(result);
+        InOrder inOrder = inOrder(timeSlotRepository, appointmentRepository);
+        inOrder.verify(timeSlotRepository).lockSlotOfAppointment(100L);
+        inOrder.verify(appointmentRepository).cancelIfBooked(100L);
+        inOrder.verify(timeSlotRepository).releaseSeatOfAppointment(100L);
+        verify(appointmentRepository, never()).findById(any());
+        verify(appointmentRepository, never()).delete(any());
+        verify(calendarFeedService).invalidate(1L);
+        assertEquals(1, meterRegistry.get("booking.appointment.cancel").tag("operation", "single").timer().count());
     }
 
     @Test
-    void testCancelAppointment_WhenNotFound() {
-        // Arrange
-        when(appointmentRepository.findById(999L)).thenReturn(Optional.empty());
+    void testCancelAppointment_WhenNotBooked() {
+        // Arrange - missing, already cancelled or completed
+        when(appointmentRepository.cancelIfBooked(999L)).thenReturn(0);
 
         // Act
-        appointmentService.cancelAppointment(999L);
+        boolean result = appointmentService.cancelAppointment(999L);
 
-        // Assert
-        verify(appointmentRepository).findById(999L);
-        verify(appointmentRepository, never()).delete(any());
-        verify(timeSlotRepository, never()).save(any());
+        // Assert - the seat is not given back twice
+        assertFalse(result);
+        verify(timeSlotRepository, never()).releaseSeatOfAppointment(any());
     }
 
     @Test
     void testCancelAppointmentByToken_Success() {
         // Arrange
-        String token = "test-token-123";
-        Appointment appointment = new Appointment();
-        appointment.setId(100L);
-        appointment.setCancellationToken(token);
-        appointment.setTimeSlot(unavailableTimeSlot);
-
-        when(appointmentRepository.findByCancellationToken(token)).thenReturn(appointment);
-        doNothing().when(appointmentRepository).delete(appointment);
+        String token = cancellationTokenSigner.sign(100L, OffsetDateTime.now().plusDays(1));
+        when(appointmentRepository.cancelIfBooked(100L)).thenReturn(1);
 
         // Act
         boolean result = appointmentService.cancelAppointmentByToken(token);
 
         // Assert
         assertTrue(result);
-        verify(appointmentRepository).findByCancellationToken(token);
-        verify(timeSlotRepository).save(unavailableTimeSlot);
-        verify(appointmentRepository).delete(appointment);
-        assertTrue(unavailableTimeSlot.isAvailable());
+        verify(timeSlotRepository).releaseSeatOfAppointment(100L);
     }
 
     @Test
-    void testCancelAppointmentByToken_SuccessNullTimeSlot() {
-        // Arrange
-        String token = "test-token-123";
-        Appointment appointment = new Appointment();
-        appointment.setId(100L);
-        appointment.setCancellationToken(token);
-        appointment.setTimeSlot(null);
+    void testCancelAppointmentByToken_InvalidToken() {
+        // Act
+        boolean result = appointmentService.cancelAppointmentByToken("invalid-token");
 
-        when(appointmentRepository.findByCancellationToken(token)).thenReturn(appointment);
-        doNothing().when(appointmentRepository).delete(appointment);
+        // Assert - rejected without a database lookup
+        assertFalse(result);
+        verifyNoInteractions(appointmentRepository);
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    @Test
+    void testCancelAppointmentByToken_AlreadyCancelled() {
+        // Arrange
+        String token = cancellationTokenSigner.sign(100L, OffsetDateTime.now().plusDays(1));
+        when(appointmentRepository.cancelIfBooked(100L)).thenReturn(0);
 
         // Act
         boolean result = appointmentService.cancelAppointmentByToken(token);
 
         // Assert
-        assertTrue(result);
-        verify(appointmentRepository).findByCancellationToken(token);
-        verify(timeSlotRepository, never()).save(any());
-        verify(appointmentRepository).delete(appointment);
+        assertFalse(result);
+        verify(timeSlotRepository, never()).releaseSeatOfAppointment(any());
     }
 
     @Test
-    void testCancelAppointmentByToken_InvalidToken() {
+    void testCancelAppointmentsInRange_ReopensSlotsAndNotifiesOncePerCustomer() {
         // Arrange
-        when(appointmentRepository.findByCancellationToken("invalid-token")).thenReturn(null);
+        OffsetDateTime from = OffsetDateTime.now().plusDays(1);
+        OffsetDateTime to = from.plusDays(1);
+        when(timeSlotRepository.lockSlotsStartingBetween(from, to, null))
+                .thenReturn(java.util.List.of(availableTimeSlot, unavailableTimeSlot));
+        java.util.List<CancelledBooking> bookings = java.util.List.of(
+                new CancelledBooking(1L, "John Doe", "john@example.com", from, from.plusHours(1), 7L),
+                new CancelledBooking(2L, "John Doe", "john@example.com", from.plusHours(2), from.plusHours(3), 7L),
+                new CancelledBooking(3L, "Jane Roe", "jane@example.com", from, from.plusHours(1)));
+        when(appointmentRepository.findBookedInSlotsStartingBetween(from, to, null)).thenReturn(bookings);
+        when(appointmentRepository.cancelBookedInSlotsStartingBetween(from, to, null)).thenReturn(3);
 
         // Act
-        boolean result = appointmentService.cancelAppointmentByToken("invalid-token");
+        BulkCancellationResult result = appointmentService.cancelAppointmentsInRange(from, to, null, false);
 
         // Assert
-        assertFalse(result);
-        verify(appointmentRepository).findByCancellationToken("invalid-token");
-        verify(appointmentRepository, never()).delete(any());
-        verify(timeSlotRepository, never()).save(any());
+        assertEquals(3, result.getCancelledAppointments());
+        assertEquals(2, result.getAffectedSlots());
+        assertEquals(2, result.getNotifiedCustomers());
+        verify(timeSlotRepository).releaseBookedSeatsStartingBetween(from, to, null);
+        verify(timeSlotRepository, never()).closeSlotsStartingBetween(any(), any(), any());
+        verify(appointmentMailer).sendCancellationNotices(bookings);
+        // One refresh per account; the guest has no feed
+        verify(calendarFeedService).invalidate(7L);
+        verifyNoMoreInteractions(calendarFeedService);
     }
 
     @Test
-    void testCancelAppointment_WithNullTimeSlot() {
+    void testCancelAppointmentsInRange_ClosesSlotsAndDropsHolds() {
         // Arrange
-        Appointment appointment = new Appointment();
-        appointment.setId(100L);
-        appointment.setTimeSlot(null);
-
-        when(appointmentRepository.findById(100L)).thenReturn(Optional.of(appointment));
+        OffsetDateTime from = OffsetDateTime.now().plusDays(1);
+        OffsetDateTime to = from.plusDays(1);
+        when(timeSlotRepository.lockSlotsStartingBetween(from, to, 7L))
+                .thenReturn(java.util.List.of(availableTimeSlot));
+        when(appointmentRepository.findBookedInSlotsStartingBetween(from, to, 7L))
+                .thenReturn(java.util.List.of());
 
         // Act
-        appointmentService.cancelAppointment(100L);
+        BulkCancellationResult result = appointmentService.cancelAppointmentsInRange(from, to, 7L, true);
+
+        // Assert - nothing booked, but the slot is still closed
+        assertEquals(0, result.getCancelledAppointments());
+        assertTrue(result.isSlotsClosed());
+        verify(slotHoldRepository).deleteHoldsOnSlotsStartingBetween(from, to, 7L);
+        verify(timeSlotRepository).closeSlotsStartingBetween(from, to, 7L);
+        verify(appointmentRepository, never()).cancelBookedInSlotsStartingBetween(any(), any(), any());
+        verify(appointmentMailer, never()).sendCancellationNotices(any());
+    }
 
-        // Assert
-        verify(appointmentRepository).findById(100L);
-        verify(timeSlotRepository, never()).save(any());
-        verify(appointmentRepository).delete(appointment);
+    @Test
+    void testCancelAppointmentsInRange_RejectsInvalidRanges() {
+        OffsetDateTime from = OffsetDateTime.now();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.cancelAppointmentsInRange(from, from, null, false));
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.cancelAppointmentsInRange(from,
+                from.plusDays(AppointmentService.MAX_BULK_CANCEL_DAYS + 1), null, false));
+        verifyNoInteractions(timeSlotRepository);
     }
 
     @Test
     void testGetAllAppointments() {
         // Arrange
-        when(appointmentRepository.findAll()).thenReturn(java.util.List.of(testAppointment));
+        when(appointmentRepository.findAllViews()).thenReturn(List.of(view(100L, OffsetDateTime.now())));
 
         // Act
         var result = appointmentService.getAllAppointments();
 
-        // Assert
+        // Assert - no entities are loaded and no cancellation tokens are handed out
         assertEquals(1, result.size());
-        verify(appointmentRepository).findAll();
+        assertNull(result.get(0).getCancellationToken());
+        verify(appointmentRepository, never()).findAll();
     }
 
     @Test
     void testGetAppointment() {
         // Arrange
-        testAppointment.setId(100L);
-        when(appointmentRepository.findById(100L)).thenReturn(Optional.of(testAppointment));
+        when(appointmentRepository.findViewById(100L)).thenReturn(Optional.of(view(100L, OffsetDateTime.now())));
 
         // Act
-        Optional<Appointment> result = appointmentService.getAppointment(100L);
+        Optional<AppointmentView> result = appointmentService.getAppointment(100L);
 
         // Assert
         assertTrue(result.isPresent());
         assertEquals(100L, result.get().getId());
-        verify(appointmentRepository).findById(100L);
+        verify(appointmentRepository, never()).findById(any());
     }
 
     @Test
-    void testGetAppointmentsForUser() {
+    void testGetUpcomingAppointments_ReturnsCursorWhenMoreRowsExist() {
+        // Arrange - the repository is asked for one row more than the page
+        OffsetDateTime start = availableTimeSlot.getStartTime();
+        AppointmentView first = view(100L, start);
+        AppointmentView second = view(101L, start.plusHours(1));
+        AppointmentView third = view(102L, start.plusHours(2));
+        when(appointmentRepository.findUpcoming(eq(1L), any(), eq(Limit.of(3))))
+                .thenReturn(List.of(first, second, third));
+
+        // Act
+        AppointmentPage page = appointmentService.getUpcomingAppointments(1L, null, 2);
+
+        // Assert
+        assertEquals(2, page.getAppointments().size());
+        assertNotNull(page.getAppointments().get(0).getCancellationToken());
+        assertNotNull(page.getNextCursor());
+        AppointmentService.PageCursor cursor = AppointmentService.PageCursor.decode(page.getNextCursor());
+        assertEquals(101L, cursor.id());
+        assertTrue(second.getStartTime().isEqual(cursor.startTime()));
+    }
+
+    @Test
+    void testGetUpcomingAppointments_FollowsCursor() {
+        // Arrange
+        String cursor = AppointmentService.PageCursor.encode(view(100L, availableTimeSlot.getStartTime()));
+        when(appointmentRepository.findUpcomingAfter(eq(1L), any(), any(), eq(100L), eq(Limit.of(21))))
+                .thenReturn(List.of());
+
+        // Act
+        AppointmentPage page = appointmentService.getUpcomingAppointments(1L, cursor, 0);
+
+        // Assert - the default page size applies and the last page has no cursor
+        assertTrue(page.getAppointments().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetAppointmentHistory_CapsPageSize() {
         // Arrange
-        Long userId = 1L;
-        when(appointmentRepository.findByUserId(userId)).thenReturn(java.util.List.of(testAppointment));
+        when(appointmentRepository.findHistory(eq(1L), any(), any()))
+                .thenReturn(List.of(view(100L, OffsetDateTime.now().minusDays(1))));
 
         // Act
-        var result = appointmentService.getAppointmentsForUser(userId);
+        AppointmentPage page = appointmentService.getAppointmentHistory(1L, null, 10_000);
 
         // Assert
-        assertEquals(1, result.size());
-        verify(appointmentRepository).findByUserId(userId);
+        assertEquals(1, page.getAppointments().size());
+        assertNull(page.getNextCursor());
+        verify(appointmentRepository).findHistory(eq(1L), any(), eq(Limit.of(AppointmentService.MAX_PAGE_SIZE + 1)));
+    }
+
+    @Test
+    void testSearchAppointments_FollowsCursorWithoutTokens() {
+        // Arrange
+        String cursor = AppointmentService.PageCursor.encode(view(100L, availableTimeSlot.getStartTime()));
+        when(appointmentRepository.findViews(any(), eq(11)))
+                .thenReturn(List.of(view(101L, availableTimeSlot.getStartTime())));
+        AppointmentSearch search = new AppointmentSearch(null, null, "Consultation", null, null, null, null);
+
+        // Act
+        AppointmentPage page = appointmentService.searchAppointments(search, cursor, 10);
+
+        // Assert - admin results never carry cancellation tokens
+        assertEquals(1, page.getAppointments().size());
+        assertNull(page.getAppointments().get(0).getCancellationToken());
+        assertNull(page.getNextCursor());
+        verify(cancellationTokenSigner, never()).sign(any(), any());
+    }
+
+    @Test
+    void testSearchAppointments_InvertedRange() {
+        OffsetDateTime now = OffsetDateTime.now();
+        AppointmentSearch search = new AppointmentSearch(now, now.minusDays(1), null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> appointmentService.searchAppointments(search, null, 20));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    @Test
+    void testGetAppointmentHistory_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> appointmentService.getAppointmentHistory(1L, "not-a-cursor", 20));
+        verifyNoInteractions(appointmentRepository);
+    }
+
+    private static AppointmentView view(Long id, OffsetDateTime start) {
+        return new AppointmentView(id, "John Doe", "john@example.com", "1234567890", "Room 1", "Consultation",
+                AppointmentStatus.BOOKED, start, start.plusHours(1), 1L);
     }
 }
@@ -0,0 +1,202 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.AppointmentView;
+import com.example.booking.model.AppointmentStatus;
+import com.example.booking.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CalendarFeedService.
+ * Tests feed caching, invalidation, the cache bound, stable validators across re-renders and
+ * the iCalendar output.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CalendarFeedServiceTest {
+    private static final OffsetDateTime START = OffsetDateTime.parse("2030-01-02T09:00:00Z");
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    private MutableClock clock;
+    private CalendarFeedService calendarFeedService;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2030-01-01T10:00:00Z"));
+        calendarFeedService = new CalendarFeedService(appointmentRepository, clock);
+    }
+
+    @Test
+    void testGetFeed_CachedUntilInvalidated() {
+        // Arrange
+        when(appointmentRepository.findUpcoming(eq(1L), any(), any()))
+                .thenReturn(List.of(view(10L, "Consultation")))
+                .thenReturn(List.of(view(10L, "Consultation"), view(11L, "Follow-up")));
+
+        // Act
+        CalendarFeedService.CalendarFeed first = calendarFeedService.getFeed(1L);
+        CalendarFeedService.CalendarFeed cached = calendarFeedService.getFeed(1L);
+        clock.advanceSeconds(60);
+        calendarFeedService.invalidate(1L);
+        CalendarFeedService.CalendarFeed refreshed = calendarFeedService.getFeed(1L);
+
+        // Assert
+        assertSame(first, cached);
+        assertNotEquals(first.etag(), refreshed.etag());
+        assertTrue(refreshed.lastModified().isAfter(first.lastModified()));
+        assertTrue(new String(refreshed.body(), StandardCharsets.UTF_8).contains("UID:appointment-11@"));
+        verify(appointmentRepository, times(2)).findUpcoming(eq(1L), any(), any());
+    }
+
+    @Test
+    void testGetFeed_UnchangedEventsKeepValidatorsAfterExpiry() {
+        // Arrange
+        when(appointmentRepository.findUpcoming(eq(1L), any(), any())).thenReturn(List.of(view(10L, "Consultation")));
+        CalendarFeedService.CalendarFeed first = calendarFeedService.getFeed(1L);
+
+        // Act
+        clock.advanceSeconds(3601);
+        CalendarFeedService.CalendarFeed rerendered = calendarFeedService.getFeed(1L);
+
+        // Assert - the database was asked again, but clients still get 304s
+        assertSame(first, rerendered);
+        verify(appointmentRepository, times(2)).findUpcoming(eq(1L), any(), any());
+    }
+
+    @Test
+    void testGetFeed_InvalidationDuringRenderWins() {
+        // Arrange - a booking commits while the feed is being read
+        when(appointmentRepository.findUpcoming(eq(1L), any(), any())).thenAnswer(invocation -> {
+            calendarFeedService.invalidate(1L);
+            return List.of(view(10L, "Consultation"));
+        }).thenReturn(List.of(view(10L, "Consultation"), view(11L, "Follow-up")));
+
+        // Act
+        calendarFeedService.getFeed(1L);
+        CalendarFeedService.CalendarFeed next = calendarFeedService.getFeed(1L);
+
+        // Assert - the stale render was not cached
+        assertTrue(new String(next.body(), StandardCharsets.UTF_8).contains("UID:appointment-11@"));
+    }
+
+    @Test
+    void testGetFeed_EvictsBeyondCacheSize() {
+        // Arrange
+        ReflectionTestUtils.setField(calendarFeedService, "maxEntries", 2);
+        when(appointmentRepository.findUpcoming(anyLong(), any(), any())).thenReturn(List.of());
+
+        // Act
+        for (long userId = 1; userId <= 5; userId++) {
+            calendarFeedService.getFeed(userId);
+        }
+
+        // Assert
+        assertEquals(2, calendarFeedService.size());
+    }
+
+    @Test
+    void testInvalidate_DoesNotCacheUsersWithoutFeed() {
+        // Arrange
+        ReflectionTestUtils.setField(calendarFeedService, "maxEntries", 2);
+
+        // Act - bookings by users who never subscribed
+        for (long userId = 1; userId <= 5; userId++) {
+            calendarFeedService.invalidate(userId);
+        }
+
+        // Assert
+        assertEquals(0, calendarFeedService.size());
+    }
+
+    @Test
+    void testGetFeed_EvictionDuringRenderDoesNotCacheStaleFeed() {
+        // Arrange - user 1's claim is evicted while it renders, then a booking of theirs commits
+        ReflectionTestUtils.setField(calendarFeedService, "maxEntries", 1);
+        when(appointmentRepository.findUpcoming(eq(1L), any(), any())).thenAnswer(invocation -> {
+            when(appointmentRepository.findUpcoming(eq(2L), any(), any())).thenReturn(List.of());
+            calendarFeedService.getFeed(2L);
+            calendarFeedService.invalidate(1L);
+            return List.of(view(10L, "Consultation"));
+        }).thenReturn(List.of(view(10L, "Consultation"), view(11L, "Follow-up")));
+
+        // Act
+        calendarFeedService.getFeed(1L);
+        CalendarFeedService.CalendarFeed next = calendarFeedService.getFeed(1L);
+
+        // Assert - the stale render was not cached
+        assertTrue(new String(next.body(), StandardCharsets.UTF_8).contains("UID:appointment-11@"));
+        verify(appointmentRepository, times(2)).findUpcoming(eq(1L), any(), any());
+    }
+
+    @Test
+    void testRender_EscapesAndFoldsLines() {
+        // Arrange
+        String service = "Massage; deep tissue, 90 min " + "x".repeat(80);
+
+        // Act
+        String ics = new String(CalendarFeedService.render(List.of(view(10L, service)),
+                Instant.parse("2030-01-01T10:00:00Z")), StandardCharsets.UTF_8);
+
+        // Assert
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.contains("DTSTART:20300102T090000Z\r\n"));
+        assertTrue(ics.contains("DTEND:20300102T100000Z\r\n"));
+        assertTrue(ics.contains("DTSTAMP:20300101T100000Z\r\n"));
+        assertTrue(ics.contains("SUMMARY:Massage\\; deep tissue\\, 90 min"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        String unfolded = ics.replace("\r\n ", "");
+        assertTrue(unfolded.contains("SUMMARY:" + CalendarFeedService.escape(service) + "\r\n"));
+    }
+
+    private static AppointmentView view(Long id, String service) {
+        return new AppointmentView(id, "Jane", "jane@example.com", null, "Room 1", service, AppointmentStatus.BOOKED,
+                START.plusDays(id - 10), START.plusDays(id - 10).plusHours(1), 1L);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advanceSeconds(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -44,7 +44,6 @@ public class ConcurrentBookingTest {
         TimeSlot timeSlot = new TimeSlot();
         timeSlot.setStartTime(OffsetDateTime.now().plusDays(1));
         timeSlot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
-        timeSlot.setAvailable(true);
         TimeSlot savedSlot = timeSlotRepository.save(timeSlot);
         Long timeSlotId = savedSlot.getId();
 
@@ -129,7 +128,7 @@ public class ConcurrentBookingTest {
         TimeSlot timeSlot = new TimeSlot();
         timeSlot.setStartTime(OffsetDateTime.now().plusDays(1));
         timeSlot.setEndTime(OffsetDateTime.now().plusDays(1).plusHours(1));
-        timeSlot.setAvailable(false);
+        timeSlot.setBookedCount(1);
         TimeSlot savedSlot = timeSlotRepository.save(timeSlot);
 
         Appointment appointment = new Appointment();
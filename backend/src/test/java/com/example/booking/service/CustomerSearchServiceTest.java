@@ -0,0 +1,167 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.CustomerMatch;
+import com.example.booking.repository.AppointmentRepository;
+import com.example.booking.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.data.domain.Limit;
+
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CustomerSearchService.
+ * Tests prefix lookups in the upcoming-bookings index, the database fallback,
+ * the similarity fallback for typos, de-duplication across sources and query normalization.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CustomerSearchServiceTest {
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CustomerSearchService customerSearchService;
+
+    @Test
+    void testSearch_AnswersPrefixFromUpcomingIndex() {
+        // Arrange
+        OffsetDateTime tomorrow = OffsetDateTime.now().plusDays(1);
+        when(appointmentRepository.findCustomersBookedBetween(any(), any())).thenReturn(List.of(
+                new CustomerMatch("Jane Smith", "jane@example.com", "5551234567", 1L, tomorrow),
+                new CustomerMatch("John Appleseed", "john@example.com", "5559876543", null, tomorrow)));
+        customerSearchService.refreshUpcomingIndex();
+
+        // Act
+        List<CustomerMatch> bySurname = customerSearchService.search("Smi", 1);
+        List<CustomerMatch> byPhone = customerSearchService.search("(555) 987", 1);
+
+        // Assert - the index filled the page, so the database is not queried
+        assertEquals("jane@example.com", bySurname.get(0).getEmail());
+        assertEquals("john@example.com", byPhone.get(0).getEmail());
+        verify(appointmentRepository, never()).findCustomersMatching(any(), any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testSearch_FallsBackToDatabaseAndDeduplicates() {
+        // Arrange - Jane is upcoming, booked before and has an account
+        OffsetDateTime tomorrow = OffsetDateTime.now().plusDays(1);
+        when(appointmentRepository.findCustomersBookedBetween(any(), any())).thenReturn(List.of(
+                new CustomerMatch("Jane Smith", "jane@example.com", "5551234567", 1L, tomorrow)));
+        customerSearchService.refreshUpcomingIndex();
+        when(appointmentRepository.findCustomersMatching("%jan%", Limit.of(10))).thenReturn(List.of(
+                new CustomerMatch("Jane Smith", "Jane@Example.com", "5551234567", 1L, tomorrow.minusDays(30)),
+                new CustomerMatch("Janet Guest", null, "5550000000", null, tomorrow.minusDays(60))));
+        when(userRepository.findCustomersMatching("%jan%", Limit.of(10))).thenReturn(List.of(
+                new CustomerMatch("jane", "jane@example.com", "5551234567", 1L),
+                new CustomerMatch("janek", "janek@example.com", "5551111111", 2L)));
+
+        // Act
+        List<CustomerMatch> result = customerSearchService.search("jan", 0);
+
+        // Assert - the upcoming booking wins, then guests, then accounts
+        assertEquals(3, result.size());
+        assertEquals(tomorrow, result.get(0).getAppointmentTime());
+        assertEquals("Janet Guest", result.get(1).getName());
+        assertEquals(2L, result.get(2).getUserId());
+    }
+
+    @Test
+    void testSearch_FallsBackToSimilarityForTypos() {
+        // Arrange - "smiht" is no substring of anything, but a trigram neighbour of "smith"
+        when(appointmentRepository.findCustomersSimilar("smiht", 10)).thenReturn(List.of(
+                new CustomerMatch("Jane Smith", "jane@example.com", "5551234567", 1L, OffsetDateTime.now())));
+        when(userRepository.findCustomersSimilar("smiht", 10)).thenReturn(List.of(
+                new CustomerMatch("jane", "jane@example.com", "5551234567", 1L),
+                new CustomerMatch("smithy", "smithy@example.com", null, 3L)));
+
+        // Act
+        List<CustomerMatch> result = customerSearchService.search("Smiht", 10);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("Jane Smith", result.get(0).getName());
+        assertEquals(3L, result.get(1).getUserId());
+    }
+
+    @Test
+    void testSearch_SkipsSimilarityOnceUnavailable() {
+        // Arrange - H2, or PostgreSQL without pg_trgm
+        when(appointmentRepository.findCustomersSimilar(any(), anyInt()))
+                .thenThrow(new BadSqlGrammarException("customer search", "SELECT ...",
+                        new SQLException("operator does not exist: text <% text", "42883")));
+
+        // Act
+        List<CustomerMatch> first = customerSearchService.search("smiht", 10);
+        List<CustomerMatch> second = customerSearchService.search("smiht", 10);
+
+        // Assert - infix matching keeps working and the failing query is not retried
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(appointmentRepository, times(2)).findCustomersMatching(any(), any());
+        verify(appointmentRepository, times(1)).findCustomersSimilar(any(), anyInt());
+        verify(userRepository, never()).findCustomersSimilar(any(), anyInt());
+    }
+
+    @Test
+    void testSearch_TransientFailureOnlySkipsSimilarityOnce() {
+        // Arrange - pg_trgm is installed, but the first statement times out
+        when(appointmentRepository.findCustomersSimilar(any(), anyInt()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .thenReturn(List.of(new CustomerMatch("Jane Smith", "jane@example.com", null, 1L, null)));
+
+        // Act
+        List<CustomerMatch> first = customerSearchService.search("smiht", 1);
+        List<CustomerMatch> second = customerSearchService.search("smiht", 1);
+
+        // Assert - the next search tries the similarity query again
+        assertTrue(first.isEmpty());
+        assertEquals("Jane Smith", second.get(0).getName());
+    }
+
+    @Test
+    void testSearch_ShortQueryOnlyUsesIndex() {
+        // Act
+        List<CustomerMatch> result = customerSearchService.search("ja", 10);
+
+        // Assert - two characters are too few for the trigram indexes
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(appointmentRepository, userRepository);
+    }
+
+    @Test
+    void testSearch_RejectsTooShortQuery() {
+        assertThrows(IllegalArgumentException.class, () -> customerSearchService.search(" j ", 10));
+        assertThrows(IllegalArgumentException.class, () -> customerSearchService.search(null, 10));
+    }
+
+    @Test
+    void testSearch_EscapesLikeWildcards() {
+        // Act
+        customerSearchService.search("50%_off!", 5);
+
+        // Assert
+        verify(appointmentRepository).findCustomersMatching("%50!%!_off!!%", Limit.of(5));
+    }
+
+    @Test
+    void testNormalize() {
+        assertEquals("5551234567", CustomerSearchService.normalize(" 555-123-4567 "));
+        assertEquals("+jane smith", CustomerSearchService.normalize("+Jane Smith"));
+    }
+}
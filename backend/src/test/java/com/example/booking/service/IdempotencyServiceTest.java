@@ -0,0 +1,145 @@
+package com.example.booking.service;
+
+import com.example.booking.model.IdempotencyRecord;
+import com.example.booking.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyService.
+ * Tests the in-memory store, database fallback, memory bound and claiming
+ * keys through the database.
+ */
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotencyService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "maxCachedEntries", 2);
+    }
+
+    @Test
+    void testStoreThenFind_ServedFromMemory() {
+        // Act
+        idempotencyService.store("alice:k1", "POST /api/appointments", 200, "application/json", "{\"id\":1}");
+        Optional<IdempotencyRecord> found = idempotencyService.find("alice:k1");
+
+        // Assert
+        assertTrue(found.isPresent());
+        assertEquals("{\"id\":1}", found.get().getResponseBody());
+        verify(idempotencyRecordRepository).complete(eq("alice:k1"), eq(200), eq("application/json"),
+                eq("{\"id\":1}"), any());
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void testFind_FallsBackToDatabase() {
+        // Arrange
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopedKey("alice:k2");
+        record.setExpiresAt(OffsetDateTime.now().plusMinutes(1));
+        when(idempotencyRecordRepository.findById("alice:k2")).thenReturn(Optional.of(record));
+
+        // Act
+        assertTrue(idempotencyService.find("alice:k2").isPresent());
+        assertTrue(idempotencyService.find("alice:k2").isPresent());
+
+        // Assert - second lookup is answered from memory
+        verify(idempotencyRecordRepository, times(1)).findById("alice:k2");
+    }
+
+    @Test
+    void testFind_IgnoresExpiredRecords() {
+        // Arrange
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopedKey("alice:k3");
+        record.setExpiresAt(OffsetDateTime.now().minusSeconds(1));
+        when(idempotencyRecordRepository.findById("alice:k3")).thenReturn(Optional.of(record));
+
+        // Act & Assert
+        assertTrue(idempotencyService.find("alice:k3").isEmpty());
+    }
+
+    @Test
+    void testMemoryIsBounded() {
+        // Act
+        idempotencyService.store("alice:a", "POST /api/appointments", 200, null, "");
+        idempotencyService.store("alice:b", "POST /api/appointments", 200, null, "");
+        idempotencyService.find("alice:a");
+        idempotencyService.store("alice:c", "POST /api/appointments", 200, null, "");
+
+        // Assert - the least recently used entry was dropped
+        assertEquals(2, idempotencyService.cachedEntries());
+        idempotencyService.find("alice:a");
+        idempotencyService.find("alice:b");
+        verify(idempotencyRecordRepository, never()).findById("alice:a");
+        verify(idempotencyRecordRepository).findById("alice:b");
+    }
+
+    @Test
+    void testFind_DoesNotCachePendingClaims() {
+        // Arrange - another instance is running the request
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setScopedKey("alice:k5");
+        claim.setPending(true);
+        claim.setExpiresAt(OffsetDateTime.now().plusMinutes(1));
+        when(idempotencyRecordRepository.findById("alice:k5")).thenReturn(Optional.of(claim));
+
+        // Act
+        assertTrue(idempotencyService.find("alice:k5").get().isPending());
+        idempotencyService.find("alice:k5");
+
+        // Assert - the finished response will be looked up again
+        verify(idempotencyRecordRepository, times(2)).findById("alice:k5");
+        assertEquals(0, idempotencyService.cachedEntries());
+    }
+
+    @Test
+    void testTryBegin_RejectsConcurrentDuplicate() {
+        // Arrange - the primary key already holds a live claim
+        when(idempotencyRecordRepository.insertPending(eq("alice:k4"), any(), any()))
+                .thenReturn(1)
+                .thenThrow(new DuplicateKeyException("idempotency_record_pkey"))
+                .thenReturn(1);
+
+        // Act & Assert
+        assertTrue(idempotencyService.tryBegin("alice:k4", "POST /api/appointments"));
+        assertFalse(idempotencyService.tryBegin("alice:k4", "POST /api/appointments"));
+        idempotencyService.finish("alice:k4");
+        assertTrue(idempotencyService.tryBegin("alice:k4", "POST /api/appointments"));
+        verify(idempotencyRecordRepository).deletePending("alice:k4");
+    }
+
+    @Test
+    void testTryBegin_ReclaimsExpiredKey() {
+        // Arrange - a crashed request left its claim behind
+        when(idempotencyRecordRepository.insertPending(eq("alice:k6"), any(), any()))
+                .thenThrow(new DuplicateKeyException("idempotency_record_pkey"))
+                .thenReturn(1);
+        when(idempotencyRecordRepository.deleteExpired(eq("alice:k6"), any())).thenReturn(1);
+
+        // Act & Assert
+        assertTrue(idempotencyService.tryBegin("alice:k6", "POST /api/appointments"));
+        verify(idempotencyRecordRepository, times(2)).insertPending(eq("alice:k6"), any(), any());
+    }
+}
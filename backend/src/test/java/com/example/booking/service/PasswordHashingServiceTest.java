@@ -0,0 +1,129 @@
+package com.example.booking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHashingService.
+ * Tests hashing on the bounded pool, rehash on a cost change, fast rejection
+ * and the published meters. Low BCrypt costs keep the tests fast.
+ */
+public class PasswordHashingServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new PasswordHashingService(4, 1, 1, 5000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testEncodeAndVerify() {
+        // Act
+        String hash = service.encode("secret");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertEquals(new PasswordHashingService.Verification(true, null), service.verify("secret", hash));
+        assertFalse(service.verify("wrong", hash).matches());
+        assertFalse(service.verify(null, hash).matches());
+    }
+
+    @Test
+    void testVerifyRehashesWhenCostChanged() {
+        // Arrange
+        String oldHash = new BCryptPasswordEncoder(5).encode("secret");
+
+        // Act
+        PasswordHashingService.Verification verification = service.verify("secret", oldHash);
+
+        // Assert
+        assertTrue(verification.matches());
+        assertTrue(verification.rehashed().startsWith("$2a$04$"));
+        assertTrue(new BCryptPasswordEncoder(4).matches("secret", verification.rehashed()));
+        assertNull(service.verify("wrong", oldHash).rehashed());
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        // Arrange - one thread busy and the single queue slot taken
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        service.executor().execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await();
+        service.executor().execute(() -> awaitQuietly(release));
+
+        // Act & Assert
+        try {
+            assertThrows(RejectedExecutionException.class, () -> service.encode("secret"));
+            assertEquals(1.0, meterRegistry.get("booking.password.hash.rejected").counter().count());
+            assertEquals(1.0, meterRegistry.get("booking.password.hash.queue").gauge().value());
+            assertTrue(service.retryAfterSeconds() >= 1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testTimesOutWhenQueuedTooLong() throws Exception {
+        // Arrange
+        service.shutdown();
+        service = new PasswordHashingService(4, 1, 1, 50, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        service.executor().execute(() -> awaitQuietly(release));
+
+        // Act & Assert
+        try {
+            assertThrows(RejectedExecutionException.class, () -> service.encode("secret"));
+            // The abandoned task no longer holds the queue slot
+            assertEquals(0, service.executor().getQueue().size());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testHashTimeIsRecorded() {
+        // Act
+        service.verify("secret", service.encode("secret"));
+
+        // Assert
+        assertEquals(1, meterRegistry.get("booking.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("booking.password.hash").tag("operation", "verify").timer().count());
+        assertEquals(2, meterRegistry.get("booking.password.hash.wait").timer().count());
+    }
+
+    @Test
+    void testNeedsRehash() {
+        assertFalse(service.needsRehash("$2a$04$abcdefghijklmnopqrstuv"));
+        assertTrue(service.needsRehash("$2a$10$abcdefghijklmnopqrstuv"));
+        assertTrue(service.needsRehash("$2b$12$abcdefghijklmnopqrstuv"));
+        assertFalse(service.needsRehash("not-a-bcrypt-hash"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.booking.service;
+
+import com.example.booking.model.Resource;
+import com.example.booking.model.TimeSlot;
+import com.example.booking.repository.ResourceRepository;
+import com.example.booking.repository.TimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ResourceService.
+ * Tests resource validation and the merged multi-resource availability search.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ResourceServiceTest {
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    private ResourceService resourceService;
+
+    private final OffsetDateTime from = OffsetDateTime.parse("2030-01-01T00:00:00Z");
+    private final OffsetDateTime to = from.plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        // Run searches on the calling thread so the test stays deterministic
+        resourceService = new ResourceService(resourceRepository, timeSlotRepository, Runnable::run);
+    }
+
+    @Test
+    void testCreateResource_RejectsInvalidInput() {
+        // Arrange
+        Resource unnamed = new Resource();
+        Resource noType = new Resource();
+        noType.setName("Desk");
+        noType.setType(null);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> resourceService.createResource(unnamed));
+        assertThrows(IllegalArgumentException.class, () -> resourceService.createResource(noType));
+        verify(resourceRepository, never()).save(any());
+    }
+
+    @Test
+    void testSearchAvailableTimeSlots_MergesResultsByStartTime() {
+        // Arrange
+        TimeSlot a9 = slot(1L, 9);
+        TimeSlot a13 = slot(2L, 13);
+        TimeSlot b10 = slot(3L, 10);
+        TimeSlot b11 = slot(4L, 11);
+        TimeSlot c8 = slot(5L, 8);
+        when(timeSlotRepository.findAvailableForResource(1L, from, to)).thenReturn(List.of(a9, a13));
+        when(timeSlotRepository.findAvailableForResource(2L, from, to)).thenReturn(List.of(b10, b11));
+        when(timeSlotRepository.findAvailableForResource(3L, from, to)).thenReturn(List.of(c8));
+        when(timeSlotRepository.findAvailableForResource(4L, from, to)).thenReturn(Collections.emptyList());
+
+        // Act
+        List<TimeSlot> result = resourceService.searchAvailableTimeSlots(List.of(1L, 2L, 3L, 4L), from, to);
+
+        // Assert
+        assertEquals(List.of(c8, a9, b10, b11, a13), result);
+    }
+
+    @Test
+    void testSearchAvailableTimeSlots_QueriesDuplicateIdsOnce() {
+        // Arrange
+        when(timeSlotRepository.findAvailableForResource(1L, from, to)).thenReturn(List.of(slot(1L, 9)));
+
+        // Act
+        List<TimeSlot> result = resourceService.searchAvailableTimeSlots(List.of(1L, 1L), from, to);
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(timeSlotRepository, times(1)).findAvailableForResource(1L, from, to);
+    }
+
+    @Test
+    void testSearchAvailableTimeSlots_RejectsInvalidRequests() {
+        List<Long> tooMany = LongStream.rangeClosed(1, ResourceService.MAX_SEARCH_RESOURCES + 1)
+                .boxed()
+                .collect(Collectors.toList());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> resourceService.searchAvailableTimeSlots(List.of(), from, to));
+        assertThrows(IllegalArgumentException.class,
+                () -> resourceService.searchAvailableTimeSlots(tooMany, from, to));
+        assertThrows(IllegalArgumentException.class,
+                () -> resourceService.searchAvailableTimeSlots(List.of(1L), to, from));
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    private TimeSlot slot(Long id, int hour) {
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setStartTime(from.withHour(hour));
+        slot.setEndTime(from.withHour(hour + 1));
+        return slot;
+    }
+}
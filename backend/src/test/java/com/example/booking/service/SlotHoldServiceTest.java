@@ -0,0 +1,188 @@
+package com.example.booking.service;
+
+import com.example.booking.model.SlotHold;
+import com.example.booking.model.User;
+import com.example.booking.repository.SlotHoldRepository;
+import com.example.booking.repository.TimeSlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SlotHoldService.
+ * Tests hold placement and batched expiry release.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SlotHoldServiceTest {
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private SlotHoldRepository slotHoldRepository;
+
+    @InjectMocks
+    private SlotHoldService slotHoldService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(slotHoldService, "holdTtlSeconds", 300L);
+        ReflectionTestUtils.setField(slotHoldService, "releaseBatchSize", 2);
+
+        testUser = new User();
+        testUser.setId(7L);
+        testUser.setUsername("testuser");
+    }
+
+    private void stubHoldSaves() {
+        AtomicLong ids = new AtomicLong();
+        when(slotHoldRepository.save(any(SlotHold.class))).thenAnswer(invocation -> {
+            SlotHold hold = invocation.getArgument(0);
+            hold.setId(ids.incrementAndGet());
+            return hold;
+        });
+    }
+
+    @Test
+    void testHoldSlot_Success() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
+        stubHoldSaves();
+
+        // Act
+        OffsetDateTime heldUntil = slotHoldService.holdSlot(1L, testUser);
+
+        // Assert
+        assertTrue(heldUntil.isAfter(OffsetDateTime.now().plusSeconds(290)));
+        assertEquals(1, slotHoldService.pendingExpiries());
+        verify(slotHoldRepository).save(argThat(hold -> hold.getTimeSlotId() == 1L && hold.getUserId() == 7L));
+    }
+
+    @Test
+    void testHoldSlot_FailsWhenUnavailable() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatIfAvailable(2L)).thenReturn(0);
+        when(timeSlotRepository.existsById(2L)).thenReturn(true);
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> slotHoldService.holdSlot(2L, testUser));
+        assertEquals("Time slot is not available", exception.getMessage());
+        assertEquals(0, slotHoldService.pendingExpiries());
+        verify(slotHoldRepository, never()).save(any());
+    }
+
+    @Test
+    void testHoldSlot_FailsWhenAlreadyHeldByUser() {
+        // Arrange
+        when(slotHoldRepository.existsByTimeSlotIdAndUserId(1L, 7L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> slotHoldService.holdSlot(1L, testUser));
+        verify(timeSlotRepository, never()).reserveSeatIfAvailable(any());
+    }
+
+    @Test
+    void testHoldSlot_ConcurrentDuplicateIsConflict() {
+        // Arrange - a second request passed the exists check before the first inserted
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
+        when(slotHoldRepository.save(any(SlotHold.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> slotHoldService.holdSlot(1L, testUser));
+        assertEquals("Time slot is already held by this user", exception.getMessage());
+        assertEquals(0, slotHoldService.pendingExpiries());
+    }
+
+    @Test
+    void testHoldSlot_FailsWhenNotFound() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatIfAvailable(999L)).thenReturn(0);
+        when(timeSlotRepository.existsById(999L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> slotHoldService.holdSlot(999L, testUser));
+    }
+
+    @Test
+    void testReleaseExpiredHolds_ReleasesInBatches() {
+        // Arrange - zero TTL makes every hold due immediately
+        ReflectionTestUtils.setField(slotHoldService, "holdTtlSeconds", 0L);
+        when(timeSlotRepository.reserveSeatIfAvailable(anyLong())).thenReturn(1);
+        stubHoldSaves();
+        when(slotHoldRepository.releaseExpiredHolds(anyCollection(), any())).thenAnswer(
+                invocation -> ((java.util.Collection<?>) invocation.getArgument(0)).size());
+        slotHoldService.holdSlot(1L, testUser);
+        slotHoldService.holdSlot(2L, testUser);
+        slotHoldService.holdSlot(3L, testUser);
+
+        // Act
+        int released = slotHoldService.releaseExpiredHolds();
+
+        // Assert
+        assertEquals(3, released);
+        assertEquals(0, slotHoldService.pendingExpiries());
+        verify(slotHoldRepository, times(2)).releaseExpiredHolds(anyCollection(), any());
+    }
+
+    @Test
+    void testReleaseExpiredHolds_SkipsLiveHolds() {
+        // Arrange
+        when(timeSlotRepository.reserveSeatIfAvailable(1L)).thenReturn(1);
+        stubHoldSaves();
+        slotHoldService.holdSlot(1L, testUser);
+
+        // Act
+        int released = slotHoldService.releaseExpiredHolds();
+
+        // Assert
+        assertEquals(0, released);
+        assertEquals(1, slotHoldService.pendingExpiries());
+        verify(slotHoldRepository, never()).releaseExpiredHolds(anyCollection(), any());
+    }
+
+    @Test
+    void testRecoverHolds_ReleasesLapsedAndRequeuesLive() {
+        // Arrange
+        SlotHold live = new SlotHold(5L, 7L, OffsetDateTime.now().plusMinutes(2));
+        live.setId(11L);
+        when(slotHoldRepository.findByHeldUntilAfter(any())).thenReturn(List.of(live));
+
+        // Act
+        slotHoldService.recoverHolds();
+
+        // Assert
+        verify(slotHoldRepository).releaseAllExpiredHolds(any());
+        assertEquals(1, slotHoldService.pendingExpiries());
+    }
+
+    @Test
+    void testReleaseHold() {
+        // Arrange
+        when(slotHoldRepository.deleteHold(1L, 7L)).thenReturn(1);
+        when(slotHoldRepository.deleteHold(2L, 7L)).thenReturn(0);
+
+        // Act & Assert
+        assertTrue(slotHoldService.releaseHold(1L, testUser));
+        assertFalse(slotHoldService.releaseHold(2L, testUser));
+        verify(timeSlotRepository).releaseSeats(1L, 1);
+        verify(timeSlotRepository, never()).releaseSeats(eq(2L), anyInt());
+    }
+}
@@ -5,17 +5,21 @@ import com.example.booking.model.TimeSlot;
 import com.example.booking.repository.TimeSlotRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,13 +45,12 @@ class TimeSlotServiceTest {
     @Test
     void getAvailableTimeSlots() {
         TimeSlot slot = new TimeSlot();
-        slot.setAvailable(true);
-        when(timeSlotRepository.findByAvailableTrue()).thenReturn(List.of(slot));
+        when(timeSlotRepository.findAvailable()).thenReturn(List.of(slot));
 
         List<TimeSlot> result = timeSlotService.getAvailableTimeSlots();
 
         assertEquals(1, result.size());
-        verify(timeSlotRepository).findByAvailableTrue();
+        verify(timeSlotRepository).findAvailable();
     }
 
     @Test
@@ -78,14 +81,13 @@ class TimeSlotServiceTest {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
         slot.setId(id);
-        slot.setAvailable(true);
         slot.setAppointments(Collections.emptyList());
 
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         timeSlotService.deleteTimeSlot(id);
 
-        verify(timeSlotRepository).deleteById(id);
+        verify(timeSlotRepository).delete(slot);
     }
 
     @Test
@@ -93,14 +95,44 @@ class TimeSlotServiceTest {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
         slot.setId(id);
-        slot.setAvailable(true);
         slot.setAppointments(null);
 
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         timeSlotService.deleteTimeSlot(id);
 
-        verify(timeSlotRepository).deleteById(id);
+        verify(timeSlotRepository).delete(slot);
+    }
+
+    @Test
+    void deleteTimeSlot_OnlyCancelledAppointments_DetachesThemFirst() {
+        Long id = 1L;
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setAppointments(Collections.emptyList()); // Cancelled ones are hidden
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
+
+        timeSlotService.deleteTimeSlot(id);
+
+        InOrder inOrder = inOrder(timeSlotRepository);
+        inOrder.verify(timeSlotRepository).detachCancelledAppointments(id);
+        inOrder.verify(timeSlotRepository).delete(slot);
+    }
+
+    @Test
+    void deleteTimeSlot_StillReferenced_ThrowsConflict() {
+        Long id = 1L;
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setAppointments(Collections.emptyList());
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
+        doThrow(new DataIntegrityViolationException("FK_APPOINTMENT_TIME_SLOT")).when(timeSlotRepository).flush();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> timeSlotService.deleteTimeSlot(id));
+        assertEquals("Time slot has existing appointments.", e.getMessage());
     }
 
     @Test
@@ -109,7 +141,7 @@ class TimeSlotServiceTest {
         when(timeSlotRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> timeSlotService.deleteTimeSlot(id));
-        verify(timeSlotRepository, never()).deleteById(any());
+        verify(timeSlotRepository, never()).delete(any(TimeSlot.class));
     }
 
     @Test
@@ -117,12 +149,12 @@ class TimeSlotServiceTest {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
         slot.setId(id);
-        slot.setAvailable(false); // Booked
+        slot.setBookedCount(1); // Booked
 
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         assertThrows(IllegalStateException.class, () -> timeSlotService.deleteTimeSlot(id));
-        verify(timeSlotRepository, never()).deleteById(any());
+        verify(timeSlotRepository, never()).delete(any(TimeSlot.class));
     }
 
     @Test
@@ -130,13 +162,12 @@ class TimeSlotServiceTest {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
         slot.setId(id);
-        slot.setAvailable(true);
         slot.setAppointments(List.of(new Appointment())); // Has appointments
 
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         assertThrows(IllegalStateException.class, () -> timeSlotService.deleteTimeSlot(id));
-        verify(timeSlotRepository, never()).deleteById(any());
+        verify(timeSlotRepository, never()).delete(any(TimeSlot.class));
     }
 
     @Test
@@ -208,25 +239,203 @@ class TimeSlotServiceTest {
     @Test
     void updateTimeSlot_Success() {
         Long id = 1L;
-        TimeSlot existing = new TimeSlot();
-        existing.setId(id);
+        TimeSlot existing = slotAt(id, 3L, "2023-10-01T10:00:00Z", 1);
+        TimeSlot saved = slotAt(id, 4L, "2023-10-01T12:00:00Z", 5);
 
         TimeSlot update = new TimeSlot();
         update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
         update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
-        update.setAvailable(false);
+        update.setScheduleVersion(0L);
+        update.setCapacity(5);
 
-        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing), Optional.of(saved));
         when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
                 .thenReturn(Collections.emptyList());
-        when(timeSlotRepository.save(any(TimeSlot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(timeSlotRepository.updateIfUnchanged(id, 3L, update.getStartTime(), update.getEndTime(), 5))
+                .thenReturn(1);
 
         TimeSlot result = timeSlotService.updateTimeSlot(id, update);
 
         assertEquals(update.getStartTime(), result.getStartTime());
         assertEquals(update.getEndTime(), result.getEndTime());
-        assertFalse(result.isAvailable());
-        verify(timeSlotRepository).save(existing);
+        assertEquals(5, result.getCapacity());
+        verify(timeSlotRepository, never()).save(any());
+    }
+
+    @Test
+    void updateTimeSlot_CapacityBelowBookedSeats() {
+        Long id = 1L;
+        TimeSlot existing = slotAt(id, 3L, "2023-10-01T10:00:00Z", 5);
+        existing.setBookedCount(4);
+
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setScheduleVersion(0L);
+        update.setCapacity(2);
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
+                .thenReturn(Collections.emptyList());
+        when(timeSlotRepository.updateIfUnchanged(eq(id), eq(3L), any(), any(), eq(2))).thenReturn(0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> timeSlotService.updateTimeSlot(id, update));
+        assertEquals("Capacity cannot be lower than the number of booked seats.", e.getMessage());
+    }
+
+    @Test
+    void updateTimeSlot_RetriesAfterSeatUpdate() {
+        Long id = 1L;
+        TimeSlot existing = slotAt(id, 3L, "2023-10-01T10:00:00Z", 2);
+        // Only the seat counter moved since the first read
+        TimeSlot booked = slotAt(id, 4L, "2023-10-01T10:00:00Z", 2);
+        booked.setBookedCount(1);
+        TimeSlot saved = slotAt(id, 5L, "2023-10-01T12:00:00Z", 2);
+
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setScheduleVersion(0L);
+        update.setCapacity(2);
+
+        when(timeSlotRepository.findById(id))
+                .thenReturn(Optional.of(existing), Optional.of(booked), Optional.of(saved));
+        when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
+                .thenReturn(Collections.emptyList());
+        when(timeSlotRepository.updateIfUnchanged(eq(id), eq(3L), any(), any(), eq(2))).thenReturn(0);
+        when(timeSlotRepository.updateIfUnchanged(eq(id), eq(4L), any(), any(), eq(2))).thenReturn(1);
+
+        TimeSlot result = timeSlotService.updateTimeSlot(id, update);
+
+        assertEquals(5L, result.getVersion());
+        verify(timeSlotRepository, times(2)).updateIfUnchanged(eq(id), anyLong(), any(), any(), eq(2));
+    }
+
+    @Test
+    void updateTimeSlot_ConcurrentEditIsAConflict() {
+        Long id = 1L;
+        TimeSlot existing = slotAt(id, 3L, "2023-10-01T10:00:00Z", 2);
+        // Another admin moved the slot in the meantime
+        TimeSlot moved = slotAt(id, 4L, "2023-10-01T15:00:00Z", 2);
+        moved.setScheduleVersion(1L);
+
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setScheduleVersion(0L);
+        update.setCapacity(2);
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing), Optional.of(moved));
+        when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
+                .thenReturn(Collections.emptyList());
+        when(timeSlotRepository.updateIfUnchanged(eq(id), eq(3L), any(), any(), eq(2))).thenReturn(0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> timeSlotService.updateTimeSlot(id, update));
+        assertTrue(e.getMessage().startsWith("Time slot was changed by someone else"));
+        verify(timeSlotRepository, times(1)).updateIfUnchanged(any(), anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void updateTimeSlot_StaleScheduleVersionIsAConflict() {
+        Long id = 1L;
+        // Another admin edited the schedule after the client read schedule version 0
+        TimeSlot existing = slotAt(id, 4L, "2023-10-01T10:00:00Z", 2);
+        existing.setScheduleVersion(1L);
+
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setCapacity(2);
+        update.setScheduleVersion(0L);
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> timeSlotService.updateTimeSlot(id, update));
+        assertTrue(e.getMessage().startsWith("Time slot was changed by someone else"));
+        verify(timeSlotRepository, never()).updateIfUnchanged(any(), anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void updateTimeSlot_SeatsBookedSinceReadAreNoConflict() {
+        Long id = 1L;
+        // Seats were booked after the client read the slot; only the row version moved
+        TimeSlot existing = slotAt(id, 7L, "2023-10-01T10:00:00Z", 4);
+        existing.setBookedCount(2);
+        TimeSlot saved = slotAt(id, 8L, "2023-10-01T12:00:00Z", 4);
+        saved.setScheduleVersion(1L);
+
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setCapacity(4);
+        update.setScheduleVersion(0L);
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(existing), Optional.of(saved));
+        when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
+                .thenReturn(Collections.emptyList());
+        when(timeSlotRepository.updateIfUnchanged(eq(id), eq(7L), any(), any(), eq(4))).thenReturn(1);
+
+        TimeSlot result = timeSlotService.updateTimeSlot(id, update);
+
+        assertEquals(1L, result.getScheduleVersion());
+    }
+
+    @Test
+    void updateTimeSlot_GivesUpAfterMaxAttempts() {
+        Long id = 1L;
+        TimeSlot update = new TimeSlot();
+        update.setStartTime(OffsetDateTime.parse("2023-10-01T12:00:00Z"));
+        update.setEndTime(OffsetDateTime.parse("2023-10-01T13:00:00Z"));
+        update.setScheduleVersion(0L);
+
+        // Every re-read shows a newer version with the same schedule
+        AtomicLong versions = new AtomicLong();
+        when(timeSlotRepository.findById(id)).thenAnswer(
+                invocation -> Optional.of(slotAt(id, versions.incrementAndGet(), "2023-10-01T10:00:00Z", 1)));
+        when(timeSlotRepository.findOverlappingSlotsExcluding(any(), any(), eq(id)))
+                .thenReturn(Collections.emptyList());
+        when(timeSlotRepository.updateIfUnchanged(any(), anyLong(), any(), any(), anyInt())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> timeSlotService.updateTimeSlot(id, update));
+        verify(timeSlotRepository, times(TimeSlotService.MAX_UPDATE_ATTEMPTS))
+                .updateIfUnchanged(any(), anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void deleteTimeSlot_BookedMeanwhile_ThrowsException() {
+        Long id = 1L;
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setAppointments(Collections.emptyList());
+
+        when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
+        doThrow(new ObjectOptimisticLockingFailureException(TimeSlot.class, id)).when(timeSlotRepository).flush();
+
+        assertThrows(IllegalStateException.class, () -> timeSlotService.deleteTimeSlot(id));
+    }
+
+    private static TimeSlot slotAt(Long id, long version, String start, int capacity) {
+        TimeSlot slot = new TimeSlot();
+        slot.setId(id);
+        slot.setVersion(version);
+        slot.setStartTime(OffsetDateTime.parse(start));
+        slot.setEndTime(OffsetDateTime.parse(start).plusHours(1));
+        slot.setCapacity(capacity);
+        return slot;
+    }
+
+    @Test
+    void createTimeSlot_ValidationFailed_ZeroCapacity() {
+        TimeSlot slot = new TimeSlot();
+        slot.setStartTime(OffsetDateTime.parse("2023-10-01T10:00:00Z"));
+        slot.setEndTime(OffsetDateTime.parse("2023-10-01T11:00:00Z"));
+        slot.setCapacity(0);
+
+        assertThrows(IllegalArgumentException.class, () -> timeSlotService.createTimeSlot(slot));
+        verify(timeSlotRepository, never()).save(any());
     }
 
     @Test
@@ -311,7 +520,8 @@ class TimeSlotServiceTest {
     void isBooked_True() {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
-        slot.setAvailable(false);
+        slot.setCapacity(10);
+        slot.setBookedCount(1);
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         assertTrue(timeSlotService.isBooked(id));
@@ -321,7 +531,6 @@ class TimeSlotServiceTest {
     void isBooked_False_WhenAvailable() {
         Long id = 1L;
         TimeSlot slot = new TimeSlot();
-        slot.setAvailable(true);
         when(timeSlotRepository.findById(id)).thenReturn(Optional.of(slot));
 
         assertFalse(timeSlotService.isBooked(id));
@@ -0,0 +1,194 @@
+package com.example.booking.service;
+
+import com.example.booking.dto.UserImportResult;
+import com.example.booking.model.User;
+import com.example.booking.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserImportService.
+ * Tests parsing, validation, in-memory de-duplication, parallel hashing and
+ * batching against a mocked repository.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PasswordHashingService passwordHashing;
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashing = new PasswordHashingService(4, 1, 1, 5000, new SimpleMeterRegistry());
+        userImportService = new UserImportService(userRepository, passwordHashing, new ObjectMapper());
+        ReflectionTestUtils.setField(userImportService, "parallelism", 2);
+        lenient().when(userRepository.insertSkippingDuplicates(anyList()))
+                .thenAnswer(invocation -> allInserted(invocation.getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+        passwordHashing.shutdown();
+    }
+
+    @Test
+    void testImportCsv_HashesAndInsertsValidRows() throws Exception {
+        // Arrange
+        String csv = "email,username,phone,password\n"
+                + "alice@example.com,alice,1234567890,\"pa,ss\"\"word\"\n"
+                + "\n"
+                + "bob@example.com,bob,1234567890,secret1\n";
+
+        // Act
+        UserImportResult result = userImportService.importCsv(stream(csv));
+
+        // Assert
+        assertEquals(2, result.getImported());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<User>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).insertSkippingDuplicates(captor.capture());
+        User alice = captor.getValue().get(0);
+        assertEquals("alice", alice.getUsername());
+        assertTrue(new BCryptPasswordEncoder().matches("pa,ss\"word", alice.getPassword()));
+    }
+
+    @Test
+    void testImportJson_ReportsInvalidAndDuplicateRows() throws Exception {
+        // Arrange
+        String json = "["
+                + row("alice", "secret1", "alice@example.com") + ","
+                + row("alice", "secret1", "alice2@example.com") + ","
+                + row("bob", "secret1", "alice@example.com") + ","
+                + row("carol", "short", "carol@example.com") + ","
+                + row("dave", "secret1", "not-an-email") + ","
+                + row("erin", "secret1", "erin@example.com") + ","
+                + row("frank", "secret1", "frank@example.com") + "]";
+        when(userRepository.findExistingUsernames(anyList())).thenReturn(List.of("erin"));
+        when(userRepository.findExistingEmails(anyList())).thenReturn(List.of());
+        // frank was registered after the lookup; the unique constraint rejects the insert
+        when(userRepository.insertSkippingDuplicates(anyList())).thenReturn(new boolean[] { true, false });
+
+        // Act
+        UserImportResult result = userImportService.importJson(stream(json));
+
+        // Assert
+        assertEquals(7, result.getTotal());
+        assertEquals(1, result.getImported());
+        assertEquals(4, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        List<String> statuses = result.getRows().stream().map(UserImportResult.Row::getStatus).toList();
+        assertEquals(List.of("IMPORTED", "DUPLICATE", "DUPLICATE", "INVALID", "INVALID", "DUPLICATE", "DUPLICATE"),
+                statuses);
+        assertEquals(6, result.getRows().get(5).getRow());
+    }
+
+    @Test
+    void testImportInsertsInBatches() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(userImportService, "batchSize", 2);
+        StringBuilder csv = new StringBuilder("username,password,email,phone\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("user").append(i).append(",secret1,user").append(i).append("@example.com,1234567890\n");
+        }
+
+        // Act
+        UserImportResult result = userImportService.importCsv(stream(csv.toString()));
+        Object pool = ReflectionTestUtils.getField(userImportService, "hashPool");
+        userImportService.importCsv(stream(csv.toString()));
+
+        // Assert - each chunk is looked up, hashed and inserted before the next is read
+        assertEquals(5, result.getImported());
+        assertEquals(List.of(1, 2, 3, 4, 5), result.getRows().stream().map(UserImportResult.Row::getRow).toList());
+        verify(userRepository, times(6)).insertSkippingDuplicates(anyList());
+        verify(userRepository, times(6)).findExistingUsernames(anyList());
+        assertSame(pool, ReflectionTestUtils.getField(userImportService, "hashPool"));
+    }
+
+    @Test
+    void testConcurrentImportIsRejected() throws Exception {
+        // Arrange - the first import blocks waiting for more input
+        PipedOutputStream upload = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(upload);
+        upload.write("username,password,email,phone\n".getBytes(StandardCharsets.UTF_8));
+        upload.flush();
+        CompletableFuture<UserImportResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return userImportService.importCsv(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        AtomicBoolean importing = (AtomicBoolean) ReflectionTestUtils.getField(userImportService, "importing");
+        while (!importing.get()) {
+            Thread.onSpinWait();
+        }
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> userImportService.importCsv(stream("")));
+        upload.close();
+        assertEquals(0, first.get(5, TimeUnit.SECONDS).getTotal());
+        assertFalse(importing.get());
+    }
+
+    @Test
+    void testMalformedInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> userImportService.importJson(stream("{\"a\":1}")));
+        assertThrows(IllegalArgumentException.class, () -> userImportService.importCsv(stream("name,email\n")));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testRowLimit() {
+        // Arrange
+        ReflectionTestUtils.setField(userImportService, "maxRows", 1);
+        String json = "[" + row("alice", "secret1", "alice@example.com") + ","
+                + row("bob", "secret1", "bob@example.com") + "]";
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userImportService.importJson(stream(json)));
+    }
+
+    private static boolean[] allInserted(List<User> users) {
+        boolean[] inserted = new boolean[users.size()];
+        java.util.Arrays.fill(inserted, true);
+        return inserted;
+    }
+
+    private static String row(String username, String password, String email) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + password + "\",\"email\":\"" + email
+                + "\",\"phone\":\"1234567890\"}";
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -7,10 +7,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -71,4 +75,73 @@ public class UserServiceTest {
         userService.updateUser(user);
         verify(userRepository).save(user);
     }
+
+    @Test
+    void testIsTokenVersionCurrent_CachesVersion() {
+        ReflectionTestUtils.setField(userService, "tokenVersionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(userService, "tokenVersionCacheSize", 100);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(2));
+
+        assertTrue(userService.isTokenVersionCurrent(1L, 2));
+        assertTrue(userService.isTokenVersionCurrent(1L, 2));
+        assertFalse(userService.isTokenVersionCurrent(1L, 1));
+
+        verify(userRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void testIsTokenVersionCurrent_RejectsMissingUser() {
+        ReflectionTestUtils.setField(userService, "tokenVersionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(userService, "tokenVersionCacheSize", 100);
+        when(userRepository.findTokenVersionById(9L)).thenReturn(Optional.empty());
+
+        assertFalse(userService.isTokenVersionCurrent(9L, 0));
+    }
+
+    @Test
+    void testRevokeTokens_ReloadsVersion() {
+        ReflectionTestUtils.setField(userService, "tokenVersionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(userService, "tokenVersionCacheSize", 100);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0), Optional.of(1));
+        assertTrue(userService.isTokenVersionCurrent(1L, 0));
+
+        userService.revokeTokens(1L);
+
+        verify(userRepository).incrementTokenVersion(1L);
+        assertFalse(userService.isTokenVersionCurrent(1L, 0));
+    }
+
+    @Test
+    void testRevokeTokens_InTransactionDropsCacheAfterCommit() {
+        ReflectionTestUtils.setField(userService, "tokenVersionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(userService, "tokenVersionCacheSize", 100);
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0), Optional.of(1));
+        assertTrue(userService.isTokenVersionCurrent(1L, 0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.revokeTokens(1L);
+            // Not committed yet: the cached version is kept
+            assertEquals(1, userService.cachedTokenVersions());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(userService.isTokenVersionCurrent(1L, 0));
+    }
+
+    @Test
+    void testTokenVersionCacheIsBounded() {
+        ReflectionTestUtils.setField(userService, "tokenVersionTtlSeconds", 60L);
+        ReflectionTestUtils.setField(userService, "tokenVersionCacheSize", 2);
+        when(userRepository.findTokenVersionById(anyLong())).thenReturn(Optional.of(0));
+
+        for (long id = 1; id <= 5; id++) {
+            userService.isTokenVersionCurrent(id, 0);
+        }
+
+        assertTrue(userService.cachedTokenVersions() <= 2);
+    }
 }
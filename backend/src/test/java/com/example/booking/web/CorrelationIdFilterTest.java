@@ -0,0 +1,100 @@
+package com.example.booking.web;
+
+import com.example.booking.config.AsyncConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CorrelationIdFilter.
+ * Tests how the request ID is chosen, that it is visible in the MDC only
+ * while the request runs, and that async tasks inherit it.
+ */
+public class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void testGeneratesIdWhenHeaderMissing() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/timeslots");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> logged.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // Assert
+        assertNotNull(logged.get());
+        assertEquals(logged.get(), response.getHeader(CorrelationIdFilter.HEADER));
+        assertNull(MDC.get(CorrelationIdFilter.MDC_KEY));
+    }
+
+    @Test
+    void testKeepsCallerId() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/timeslots");
+        request.addHeader(CorrelationIdFilter.HEADER, "edge-4f2a.17");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> logged.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // Assert
+        assertEquals("edge-4f2a.17", logged.get());
+        assertEquals("edge-4f2a.17", response.getHeader(CorrelationIdFilter.HEADER));
+    }
+
+    @Test
+    void testReplacesUnsafeCallerId() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/timeslots");
+        request.addHeader(CorrelationIdFilter.HEADER, "x\"}\n{\"level\":\"ERROR");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> logged.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+
+        // Assert
+        assertNotNull(logged.get());
+        assertFalse(logged.get().contains("\""));
+    }
+
+    @Test
+    void testTaskDecoratorCarriesIdToWorkerAndClearsIt() throws Exception {
+        // Arrange
+        Runnable decorated;
+        AtomicReference<String> seen = new AtomicReference<>();
+        MDC.put(CorrelationIdFilter.MDC_KEY, "request-1");
+        decorated = new AsyncConfig().mdcTaskDecorator().decorate(() -> seen.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+        MDC.clear();
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+
+        // Act
+        try {
+            worker.submit(decorated).get();
+            String leftOver = worker.submit(() -> MDC.get(CorrelationIdFilter.MDC_KEY)).get();
+
+            // Assert
+            assertEquals("request-1", seen.get());
+            assertNull(leftOver);
+        } finally {
+            worker.shutdown();
+        }
+    }
+}
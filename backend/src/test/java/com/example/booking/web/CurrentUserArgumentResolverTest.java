@@ -0,0 +1,126 @@
+package com.example.booking.web;
+
+import com.example.booking.model.User;
+import com.example.booking.security.AuthenticatedUser;
+import com.example.booking.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CurrentUserArgumentResolver.
+ * Tests per-request reuse of the loaded user and the query-free principal.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CurrentUserArgumentResolverTest {
+
+    @Mock
+    private UserService userService;
+
+    private CurrentUserArgumentResolver resolver;
+    private MethodParameter userParameter;
+    private MethodParameter principalParameter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        resolver = new CurrentUserArgumentResolver(userService);
+        userParameter = new MethodParameter(
+                Handlers.class.getDeclaredMethod("user", User.class, AuthenticatedUser.class), 0);
+        principalParameter = new MethodParameter(
+                Handlers.class.getDeclaredMethod("user", User.class, AuthenticatedUser.class), 1);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(7L, "testuser", "USER", 0), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testUserIsLoadedOncePerRequest() {
+        // Arrange
+        User user = new User();
+        user.setId(7L);
+        when(userService.getUserById(7L)).thenReturn(Optional.of(user));
+        NativeWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+        // Act
+        Object first = resolver.resolveArgument(userParameter, null, request, null);
+        Object second = resolver.resolveArgument(userParameter, null, request, null);
+
+        // Assert
+        assertSame(user, first);
+        assertSame(user, second);
+        verify(userService, times(1)).getUserById(7L);
+        verify(userService, never()).getUserByUsername(any());
+    }
+
+    @Test
+    void testPrincipalNeedsNoLookup() {
+        // Act
+        Object resolved = resolver.resolveArgument(principalParameter, null,
+                new ServletWebRequest(new MockHttpServletRequest()), null);
+
+        // Assert
+        assertEquals(7L, ((AuthenticatedUser) resolved).getId());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testMissingUserIsRememberedAsNull() {
+        // Arrange
+        when(userService.getUserById(7L)).thenReturn(Optional.empty());
+        NativeWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+        // Act & Assert
+        assertNull(resolver.resolveArgument(userParameter, null, request, null));
+        assertNull(resolver.resolveArgument(userParameter, null, request, null));
+        verify(userService, times(1)).getUserById(7L);
+    }
+
+    @Test
+    void testAnonymousRequestResolvesToNull() {
+        // Arrange
+        SecurityContextHolder.clearContext();
+
+        // Act & Assert
+        assertNull(resolver.resolveArgument(userParameter, null,
+                new ServletWebRequest(new MockHttpServletRequest()), null));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void testSupportsOnlyAnnotatedUserParameters() throws Exception {
+        MethodParameter unannotated = new MethodParameter(
+                Handlers.class.getDeclaredMethod("unannotated", User.class), 0);
+
+        assertTrue(resolver.supportsParameter(userParameter));
+        assertTrue(resolver.supportsParameter(principalParameter));
+        assertFalse(resolver.supportsParameter(unannotated));
+    }
+
+    @SuppressWarnings("unused")
+    private static class Handlers {
+        void user(@CurrentUser User user, @CurrentUser AuthenticatedUser principal) {
+        }
+
+        void unannotated(User user) {
+        }
+    }
+}
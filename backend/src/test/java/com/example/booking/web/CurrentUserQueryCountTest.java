@@ -0,0 +1,101 @@
+package com.example.booking.web;
+
+import com.example.booking.model.User;
+import com.example.booking.repository.UserRepository;
+import com.example.booking.security.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts user lookups per authenticated request with Hibernate statistics:
+ * the JWT filter loads no user, and {@link CurrentUser} loads it at most once.
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=v9y$B&E)H@McQfTjWmZq4t7w!z%C*F-JaNdRgUkXp2s5u8x/A?D(G+KbPeShVmYp",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class CurrentUserQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Cookie jwt;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.findByUsername("counted").ifPresent(userRepository::delete);
+        User user = new User();
+        user.setUsername("counted");
+        user.setPassword("not-used");
+        user.setEmail("counted@example.com");
+        user.setPhone("1234567890");
+        jwt = new Cookie("jwt", jwtUtil.generateToken(userRepository.save(user)));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Warm the token version cache so only the request's own lookups are counted
+        mockMvc.perform(get("/api/user/profile").cookie(jwt)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testProfileLoadsUserOnce() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/user/profile").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("counted@example.com"));
+
+        // Assert
+        assertEquals(1, userLoads());
+    }
+
+    @Test
+    void testMeLoadsUserOnce() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/auth/me").cookie(jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("counted"));
+
+        // Assert
+        assertEquals(1, userLoads());
+    }
+
+    @Test
+    void testAppointmentsUseTokenClaimsOnly() throws Exception {
+        // Act
+        statistics.clear();
+        mockMvc.perform(get("/api/user/appointments").cookie(jwt)).andExpect(status().isOk());
+
+        // Assert - the user ID comes from the token, only appointments are queried
+        assertEquals(0, userLoads());
+    }
+
+    private long userLoads() {
+        return statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.booking.web;
+
+import com.example.booking.model.IdempotencyRecord;
+import com.example.booking.service.IdempotencyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyFilter.
+ * Tests claiming keys, replays, request fingerprints and caller scopes.
+ */
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @InjectMocks
+    private IdempotencyFilter filter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRunsAndStoresFirstRequest() throws Exception {
+        // Arrange
+        when(idempotencyService.find("anonymous:k1")).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(eq("anonymous:k1"), any())).thenReturn(true);
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(booking("k1", "{\"timeSlotId\":1}"), new MockHttpServletResponse(), chain);
+
+        // Assert - the controller can still read the body that was hashed
+        assertEquals("{\"timeSlotId\":1}", new String(chain.getRequest().getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8));
+        verify(idempotencyService).store(eq("anonymous:k1"), any(), eq(200), any(), any());
+        verify(idempotencyService).finish("anonymous:k1");
+    }
+
+    @Test
+    void testReplaysResponseStoredWhileClaimingKey() throws Exception {
+        // Arrange - the original stores its response between find() and tryBegin()
+        MockHttpServletRequest request = booking("k1", "{\"timeSlotId\":1}");
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.find("anonymous:k1")).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(eq("anonymous:k1"), fingerprint.capture())).thenReturn(false);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        IdempotencyRecord record = stored(fingerprint.getValue(), false);
+        when(idempotencyService.find("anonymous:k1")).thenReturn(Optional.empty(), Optional.of(record));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(booking("k1", "{\"timeSlotId\":1}"), response, chain);
+
+        // Assert - the booking does not run a second time
+        assertNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"id\":1}", response.getContentAsString());
+        verify(idempotencyService, never()).store(any(), any(), anyInt(), any(), any());
+        verify(idempotencyService, never()).finish(any());
+    }
+
+    @Test
+    void testKeyReusedWithDifferentBodyIsRejected() throws Exception {
+        // Arrange - the key was first used to book slot 1
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.find("anonymous:k2")).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(eq("anonymous:k2"), fingerprint.capture())).thenReturn(true);
+        filter.doFilter(booking("k2", "{\"timeSlotId\":1}"), new MockHttpServletResponse(), new MockFilterChain());
+        when(idempotencyService.find("anonymous:k2")).thenReturn(Optional.of(stored(fingerprint.getValue(), false)));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(booking("k2", "{\"timeSlotId\":2}"), response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    void testKeyClaimedElsewhereIsInProgress() throws Exception {
+        // Arrange - another instance inserted the pending claim
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.find("anonymous:k3")).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(eq("anonymous:k3"), fingerprint.capture())).thenReturn(false);
+        filter.doFilter(booking("k3", "{}"), new MockHttpServletResponse(), new MockFilterChain());
+        when(idempotencyService.find("anonymous:k3")).thenReturn(Optional.of(stored(fingerprint.getValue(), true)));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        filter.doFilter(booking("k3", "{}"), response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(409, response.getStatus());
+    }
+
+    @Test
+    void testOversizedBodyIsRejected() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(booking("k4", "x".repeat(1024 * 1024 + 1)), response, new MockFilterChain());
+
+        // Assert
+        assertEquals(413, response.getStatus());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    void testAnonymousCallersShareTheAnonymousScope() throws Exception {
+        // Arrange - what the security chain leaves for a caller without a token
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key",
+                "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        when(idempotencyService.find("anonymous:k5")).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(eq("anonymous:k5"), any())).thenReturn(true);
+
+        // Act
+        filter.doFilter(booking("k5", "{}"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        verify(idempotencyService).finish("anonymous:k5");
+    }
+
+    private static MockHttpServletRequest booking(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/appointments");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static IdempotencyRecord stored(String fingerprint, boolean pending) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopedKey("anonymous:k");
+        record.setRequestFingerprint(fingerprint);
+        record.setPending(pending);
+        record.setStatusCode(200);
+        record.setContentType("application/json");
+        record.setResponseBody("{\"id\":1}");
+        return record;
+    }
+}
@@ -65,6 +65,22 @@ function App() {
     }
   };
 
+  // Appends the next page of upcoming bookings or history
+  const loadMoreBookings = async (kind) => {
+    const cursor = kind === 'upcoming' ? userBookings.upcomingCursor : userBookings.historyCursor;
+    if (!cursor) return;
+    const param = kind === 'upcoming' ? 'after' : 'before';
+    const res = await fetch(`/api/user/appointments/${kind}?${param}=${encodeURIComponent(cursor)}`);
+    if (res.ok) {
+      const page = await res.json();
+      setUserBookings(prev => ({
+        ...prev,
+        [kind]: [...prev[kind], ...page.appointments],
+        [`${kind}Cursor`]: page.nextCursor,
+      }));
+    }
+  };
+
   useEffect(() => {
     // Check for existing session
     fetch('/api/auth/me')
@@ -273,6 +289,7 @@ function App() {
             bookings={userBookings}
             onCancel={handleCancelBooking}
             onProfileUpdate={handleProfileUpdate}
+            onLoadMore={loadMoreBookings}
           />
         ) : !user && !bookingSuccess && !selectedTimeSlot && !isAdmin && showDashboard ? (
           <Auth onAuth={handleAuth} />
@@ -1,6 +1,6 @@
 // AppointmentForm.js
 // Form for booking an appointment for a selected time slot.
-import React, { useState } from 'react';
+import React, { useEffect, useState } from 'react';
 import TextField from '@mui/material/TextField';
 import Button from '@mui/material/Button';
 import Box from '@mui/material/Box';
@@ -15,6 +15,33 @@ function AppointmentForm({ timeSlot, onBooked, onCancel, user }) {
   const [service, setService] = useState(prev.service || '');
   const [location, setLocation] = useState(prev.location || '');
   const [error, setError] = useState('');
+  const [heldUntil, setHeldUntil] = useState(null);
+
+  // Hold the slot while the form is open so nobody else can take it
+  useEffect(() => {
+    let active = true;
+    fetch('/api/appointments/holds', {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify({ timeSlotId: timeSlot.id })
+    }).then(async res => {
+      const data = await res.json();
+      if (!active) return;
+      if (res.ok) {
+        setHeldUntil(data.heldUntil);
+      } else {
+        setError(data.message || 'This time slot is no longer available.');
+      }
+    });
+    return () => { active = false; };
+  }, [timeSlot.id]);
+
+  const handleCancel = async () => {
+    if (heldUntil) {
+      await fetch(`/api/appointments/holds/${timeSlot.id}`, { method: 'DELETE' });
+    }
+    onCancel();
+  };
 
   const handleSubmit = async (e) => {
     e.preventDefault();
@@ -24,7 +51,7 @@ function AppointmentForm({ timeSlot, onBooked, onCancel, user }) {
     }
     const headers = { 'Content-Type': 'application/json' };
 
-    const res = await fetch('/api/appointments', {
+    const res = await fetch(`/api/appointments/holds/${timeSlot.id}/confirm`, {
       method: 'POST',
       headers,
       body: JSON.stringify({
@@ -66,6 +93,11 @@ function AppointmentForm({ timeSlot, onBooked, onCancel, user }) {
           <Typography variant="body1">
             to {new Date(timeSlot.endTime).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}
           </Typography>
+          {heldUntil && (
+            <Typography variant="body2" color="text.secondary" sx={{ mt: 1 }}>
+              Held for you until {new Date(heldUntil).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}
+            </Typography>
+          )}
         </Box>
 
         <Box component="form" onSubmit={handleSubmit}>
@@ -105,7 +137,7 @@ function AppointmentForm({ timeSlot, onBooked, onCancel, user }) {
           </Grid>
 
           <Box sx={{ display: 'flex', justifyContent: 'flex-end', gap: 2, mt: 4, pt: 2, borderTop: '1px solid #eee' }}>
-            <Button type="button" variant="outlined" color="inherit" onClick={onCancel}>
+            <Button type="button" variant="outlined" color="inherit" onClick={handleCancel}>
               Cancel
             </Button>
             <Button type="submit" variant="contained" color="primary" size="large" sx={{ px: 4 }}>
@@ -11,6 +11,7 @@ function TimeSlotAdmin() {
   const [loading, setLoading] = useState(true);
   const [startTime, setStartTime] = useState('');
   const [endTime, setEndTime] = useState('');
+  const [capacity, setCapacity] = useState(1);
   const [error, setError] = useState('');
 
   const fetchTimeSlots = useCallback(() => {
@@ -43,12 +44,13 @@ function TimeSlotAdmin() {
       body: JSON.stringify({
         startTime: startUtc,
         endTime: endUtc,
-        available: true
+        capacity: Number(capacity)
       })
     });
     if (res.ok) {
       setStartTime('');
       setEndTime('');
+      setCapacity(1);
       fetchTimeSlots();
     } else {
       setError('Failed to create time slot.');
@@ -71,7 +73,7 @@ function TimeSlotAdmin() {
           <Typography variant="h6" gutterBottom>Create New Slot</Typography>
           <Box component="form" onSubmit={handleCreate}>
             <Grid container spacing={2} alignItems="center">
-              <Grid item xs={12} sm={5}>
+              <Grid item xs={12} sm={4}>
                 <TextField
                   label="Start Time"
                   type="datetime-local"
@@ -82,7 +84,7 @@ function TimeSlotAdmin() {
                   required
                 />
               </Grid>
-              <Grid item xs={12} sm={5}>
+              <Grid item xs={12} sm={4}>
                 <TextField
                   label="End Time"
                   type="datetime-local"
@@ -93,6 +95,17 @@ function TimeSlotAdmin() {
                   required
                 />
               </Grid>
+              <Grid item xs={12} sm={2}>
+                <TextField
+                  label="Seats"
+                  type="number"
+                  value={capacity}
+                  onChange={e => setCapacity(e.target.value)}
+                  inputProps={{ min: 1 }}
+                  fullWidth
+                  required
+                />
+              </Grid>
               <Grid item xs={12} sm={2}>
                 <Button type="submit" variant="contained" color="primary" fullWidth sx={{ height: '56px' }}>
                   Create
@@ -114,7 +127,7 @@ function TimeSlotAdmin() {
                   {idx > 0 && <Divider component="li" />}
                   <ListItem
                     secondaryAction={
-                      ts.available && (!ts.appointments || ts.appointments.length === 0) && (
+                      ts.bookedCount === 0 && (!ts.appointments || ts.appointments.length === 0) && (
                         <Button
                           variant="contained"
                           color="error"
@@ -133,7 +146,9 @@ function TimeSlotAdmin() {
                             {new Date(ts.startTime).toLocaleString()} - {new Date(ts.endTime).toLocaleTimeString()}
                           </Typography>
                           <Chip
-                            label={ts.available ? "Available" : "Booked"}
+                            label={ts.capacity > 1
+                              ? `${ts.bookedCount}/${ts.capacity} booked`
+                              : (ts.available ? "Available" : "Booked")}
                             color={ts.available ? "success" : "default"}
                             size="small"
                             variant={ts.available ? "filled" : "outlined"}
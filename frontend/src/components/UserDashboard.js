@@ -8,7 +8,7 @@ import ListItemText from '@mui/material/ListItemText';
 import Button from '@mui/material/Button';
 import Box from '@mui/material/Box';
 
-const UserDashboard = ({ user, bookings, onCancel, onProfileUpdate }) => {
+const UserDashboard = ({ user, bookings, onCancel, onProfileUpdate, onLoadMore }) => {
   return (
     <Box sx={{ maxWidth: 700, mx: 'auto', mt: 4 }}>
       <Card elevation={3} sx={{ mb: 4 }}>
@@ -41,6 +41,9 @@ const UserDashboard = ({ user, bookings, onCancel, onProfileUpdate }) => {
               </ListItem>
             ))}
           </List>
+          {bookings.upcomingCursor && (
+            <Button onClick={() => onLoadMore('upcoming')}>Load more</Button>
+          )}
         </CardContent>
       </Card>
       <Card elevation={3}>
@@ -54,11 +57,14 @@ const UserDashboard = ({ user, bookings, onCancel, onProfileUpdate }) => {
               <ListItem key={b.id} divider>
                 <ListItemText
                   primary={`${new Date(b.startTime).toLocaleString()} - ${new Date(b.endTime).toLocaleTimeString()}`}
-                  secondary={`${b.service} @ ${b.location}`}
+                  secondary={`${b.service} @ ${b.location}${b.status === 'CANCELLED' ? ' (cancelled)' : ''}`}
                 />
               </ListItem>
             ))}
           </List>
+          {bookings.historyCursor && (
+            <Button onClick={() => onLoadMore('history')}>Load more</Button>
+          )}
         </CardContent>
       </Card>
     </Box>